@@ -4,6 +4,7 @@ import com.sun.istack.internal.Nullable;
 import nullEngine.exception.InitializationException;
 import nullEngine.graphics.Window;
 import nullEngine.graphics.framebuffer.Framebuffer2D;
+import nullEngine.graphics.model.LightVolumes;
 import nullEngine.graphics.model.Quad;
 import nullEngine.graphics.renderer.MasterRenderer;
 import nullEngine.graphics.renderer.Renderer;
@@ -13,7 +14,9 @@ import nullEngine.input.ThreadedEventDistributor;
 import nullEngine.loading.Loader;
 import nullEngine.managing.ResourceManager;
 import nullEngine.util.Clock;
+import nullEngine.util.FixedTimestep;
 import nullEngine.util.logs.Logs;
+import nullEngine.util.profiler.FrameProfiler;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.glfw.GLFWVidMode;
@@ -46,6 +49,8 @@ public class Application {
 	private Clock updateClock;
 	private double lastFrameTime;
 	private double lastUpdateTime;
+	private volatile FixedTimestep fixedTimestep;
+	private volatile float updateInterpolation = 0;
 
 	private ReadWriteLock runningLock = new ReentrantReadWriteLock();
 	private volatile boolean running = false;
@@ -104,9 +109,11 @@ public class Application {
 		loader = new Loader(this);
 		renderer = new MasterRenderer();
 		renderer.viewport(0, 0, window.getWidth(), window.getHeight());
+		window.addResizeListener((width_, height_) -> MasterRenderer.viewport(0, 0, width_, height_));
 		renderer.init();
 
 		Quad.setup(loader);
+		LightVolumes.setup(loader);
 	}
 
 	/**
@@ -149,12 +156,33 @@ public class Application {
 					}
 					runningLock.readLock().unlock();
 
-					if (updateClock.update()) {
+					FixedTimestep timestep = fixedTimestep;
+					if (timestep != null) {
+						int steps = timestep.advance();
+						for (int i = 0; i < steps; i++) {
+							double start = updateClock.getTimeSeconds();
+							FrameProfiler.begin("events");
+							window.getInputData().publish();
+							if (window.getDistributor() instanceof ThreadedEventDistributor)
+								((ThreadedEventDistributor) window.getDistributor()).passEvents();
+							FrameProfiler.end();
+							update(timestep.getStep());
+							lastUpdateTime = updateClock.getTimeSeconds() - start;
+							FrameProfiler.endFrame();
+						}
+						updateInterpolation = timestep.getAlpha();
+						if (steps == 0)
+							timestep.waitForNextStep();
+					} else if (updateClock.update()) {
 						double start = updateClock.getTimeSeconds();
+						FrameProfiler.begin("events");
+						window.getInputData().publish();
 						if (window.getDistributor() instanceof ThreadedEventDistributor)
 							((ThreadedEventDistributor) window.getDistributor()).passEvents();
+						FrameProfiler.end();
 						update(updateClock.getDelta());
 						lastUpdateTime = updateClock.getTimeSeconds() - start;
+						FrameProfiler.endFrame();
 					}
 				}
 			} catch (Throwable e) {
@@ -223,17 +251,27 @@ public class Application {
 
 	private void render() {
 		double start = renderClock.getTimeSeconds();
+		FrameProfiler.begin("uploads");
+		loader.processUploads();
+		FrameProfiler.end();
 		GL11.glClear(GL11.GL_COLOR_BUFFER_BIT);
+		FrameProfiler.begin("render");
 		currentState.render(renderer);
+		FrameProfiler.end();
+		FrameProfiler.begin("swap");
 		GLFW.glfwSwapBuffers(window.getWindow());
+		FrameProfiler.end();
 		lastFrameTime = renderClock.getTimeSeconds() - start;
+		FrameProfiler.endFrame();
 		if (screenshot) {
 			screenshotImpl();
 		}
 	}
 
 	private void update(double delta) {
+		FrameProfiler.begin("update");
 		currentState.update(delta);
+		FrameProfiler.end();
 	}
 
 	/**
@@ -260,8 +298,12 @@ public class Application {
 	public void destroy() {
 		Logs.d("Cleaning up");
 		stop();
+		for (State state : states.values())
+			state.cleanup();
+		loader.cleanup();
 		ResourceManager.deleteAll();
 		renderer.cleanup();
+		FrameProfiler.cleanup();
 		window.free();
 		Logs.d("Cleanup successful");
 		Logs.finish();
@@ -278,6 +320,13 @@ public class Application {
 			Logs.e("Failed game stop call", e);
 		}
 
+		try {
+			for (State state : states.values())
+				state.cleanup();
+		} catch (Exception e) {
+			Logs.e("Failed state cleanup", e);
+		}
+
 		try {
 			ResourceManager.deleteAll();
 		} catch (Exception e) {
@@ -395,6 +444,24 @@ public class Application {
 		return lastUpdateTime;
 	}
 
+	/**
+	 * Run updates at a fixed rate instead of as fast as possible, the update thread sleeps between steps
+	 * @param tickRate The amount of updates per second, or 0 to update as fast as possible
+	 * @param maxSubsteps The maximum amount of updates to run at once when catching up
+	 */
+	public void setFixedUpdateRate(double tickRate, int maxSubsteps) {
+		fixedTimestep = tickRate > 0 ? new FixedTimestep(tickRate, maxSubsteps) : null;
+		updateInterpolation = 0;
+	}
+
+	/**
+	 * Get how far the current time is between the last update and the next one, for interpolating while rendering
+	 * @return A value between 0 and 1, always 0 if there is no fixed update rate
+	 */
+	public float getUpdateInterpolation() {
+		return updateInterpolation;
+	}
+
 	/**
 	 * Convert screen coords to OpenGL coords
 	 * @param x The x
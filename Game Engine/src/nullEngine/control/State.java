@@ -44,4 +44,13 @@ public class State extends EventHandler {
 			layers.get(i).update(delta);
 		}
 	}
+
+	/**
+	 * Clean up the layers of this state
+	 */
+	public void cleanup() {
+		for (Layer layer : layers) {
+			layer.cleanup();
+		}
+	}
 }
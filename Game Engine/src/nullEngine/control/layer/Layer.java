@@ -13,8 +13,11 @@ import nullEngine.input.PostResizeEvent;
 import nullEngine.object.GameObject;
 import nullEngine.object.RootObject;
 import nullEngine.object.component.graphics.camera.Camera;
+import nullEngine.util.profiler.FrameProfiler;
 import util.BitFieldInt;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -54,6 +57,11 @@ public abstract class Layer implements EventListener {
 	 */
 	protected BitFieldInt flags = new BitFieldInt();
 
+	private ForkJoinPool updatePool;
+	private int parallelUpdateThreshold;
+
+	private final String profileName = getClass().getSimpleName();
+
 	/**
 	 * Create a new layer
 	 *
@@ -74,6 +82,7 @@ public abstract class Layer implements EventListener {
 	public void render(Renderer passRenderer) {
 		Renderer useRenderer = renderer == null ? passRenderer : renderer;
 		if (enabled) {
+			FrameProfiler.begin(profileName);
 
 			if (camera != null)
 				useRenderer.setViewMatrix(camera.getViewMatrix());
@@ -89,6 +98,7 @@ public abstract class Layer implements EventListener {
 			useRenderer.preRender(flags);
 			root.render(useRenderer, flags);
 			useRenderer.postRender(flags);
+			FrameProfiler.end();
 		}
 	}
 
@@ -99,7 +109,17 @@ public abstract class Layer implements EventListener {
 	 */
 	public void update(double delta) {
 		if (enabled) {
-			root.update(physics, delta);
+			if (updatePool != null)
+				updatePool.invoke(new RecursiveAction() {
+					@Override
+					protected void compute() {
+						root.updateParallel(physics, delta, parallelUpdateThreshold);
+					}
+				});
+			else
+				root.update(physics, delta);
+			if (physics != null)
+				physics.update(delta);
 			matrixLock.lock();
 			{
 				root.postUpdate();
@@ -108,6 +128,37 @@ public abstract class Layer implements EventListener {
 		}
 	}
 
+	/**
+	 * Clean up this layer, stops the threads of its physics engine
+	 */
+	public void cleanup() {
+		if (physics != null)
+			physics.cleanup();
+	}
+
+	/**
+	 * Update the objects in this layer in parallel, sibling subtrees are split between the threads of the pool
+	 *
+	 * @param pool      The pool to update on, or <code>null</code> to update on the update thread only
+	 * @param threshold The maximum amount of siblings to update on a single thread
+	 * @see GameObject#updateParallel(PhysicsEngine, double, int)
+	 */
+	public void setParallelUpdate(@Nullable ForkJoinPool pool, int threshold) {
+		if (threshold < 1)
+			throw new IllegalArgumentException("Parallel update threshold must be at least 1");
+		this.updatePool = pool;
+		this.parallelUpdateThreshold = threshold;
+	}
+
+	/**
+	 * Get the pool used for parallel updates
+	 *
+	 * @return The pool or <code>null</code> if parallel updates are disabled
+	 */
+	public ForkJoinPool getUpdatePool() {
+		return updatePool;
+	}
+
 	public boolean isEnabled() {
 		return enabled;
 	}
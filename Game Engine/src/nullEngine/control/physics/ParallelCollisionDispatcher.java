@@ -0,0 +1,339 @@
+package nullEngine.control.physics;
+
+import com.bulletphysics.collision.broadphase.BroadphaseNativeType;
+import com.bulletphysics.collision.broadphase.BroadphasePair;
+import com.bulletphysics.collision.broadphase.CollisionAlgorithm;
+import com.bulletphysics.collision.broadphase.CollisionAlgorithmConstructionInfo;
+import com.bulletphysics.collision.broadphase.DispatchFunc;
+import com.bulletphysics.collision.broadphase.Dispatcher;
+import com.bulletphysics.collision.broadphase.DispatcherInfo;
+import com.bulletphysics.collision.broadphase.OverlappingPairCache;
+import com.bulletphysics.collision.dispatch.CollisionAlgorithmCreateFunc;
+import com.bulletphysics.collision.dispatch.CollisionConfiguration;
+import com.bulletphysics.collision.dispatch.CollisionDispatcher;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.DefaultCollisionConfiguration;
+import com.bulletphysics.collision.dispatch.DefaultNearCallback;
+import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.util.IntArrayList;
+import com.bulletphysics.util.ObjectArrayList;
+import nullEngine.util.logs.Logs;
+
+import java.util.IdentityHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A collision dispatcher that runs the narrowphase of the overlapping pairs on several threads.
+ * <p>
+ * jbullet's collision algorithms keep the pools and simplex solvers of the thread that created them, so every pair
+ * stays on the thread that created its algorithm and every thread has its own collision configuration. Concave and
+ * compound algorithms temporarily replace the shape of their collision object, so pairs with those shapes all run on
+ * the same thread. Manifolds that are created or released on the threads are merged in pair order afterwards so the
+ * manifold order is the same as with a {@link CollisionDispatcher}. Pairs are only dispatched in parallel with a
+ * {@link DefaultCollisionConfiguration}, a {@link DefaultNearCallback} and discrete collision detection, otherwise
+ * they are dispatched like a {@link CollisionDispatcher} does.
+ */
+public class ParallelCollisionDispatcher extends CollisionDispatcher {
+
+	private static final int MAX_BROADPHASE_COLLISION_TYPES = BroadphaseNativeType.MAX_BROADPHASE_COLLISION_TYPES.ordinal();
+
+	private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+	private final Worker[] workers;
+	// the worker that created each algorithm, only used on the thread that dispatches
+	private final IdentityHashMap<CollisionAlgorithm, Integer> owners = new IdentityHashMap<>();
+	// the worker that created each manifold in the manifold list, only used on the thread that dispatches
+	private final IdentityHashMap<PersistentManifold, Worker> manifoldOwners = new IdentityHashMap<>();
+	private final ObjectArrayList<BroadphasePair> newPairs = new ObjectArrayList<>();
+	private final IntArrayList newPairOwners = new IntArrayList();
+	private final Future<?>[] futures;
+	private boolean shutdown = false;
+
+	/**
+	 * Create a new parallel collision dispatcher
+	 *
+	 * @param collisionConfiguration The collision configuration
+	 * @param numTasks               The amount of threads the narrowphase runs on, 1 dispatches on the calling thread
+	 */
+	public ParallelCollisionDispatcher(CollisionConfiguration collisionConfiguration, int numTasks) {
+		super(collisionConfiguration);
+		if (numTasks < 1)
+			throw new IllegalArgumentException("Task count must be at least 1");
+
+		workers = new Worker[numTasks > 1 ? numTasks : 0];
+		futures = new Future<?>[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			int id = i;
+			ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "PHYSICS-" + id);
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				// created on its own thread so the pools of its configuration belong to that thread
+				workers[i] = executor.submit(() -> new Worker(executor)).get();
+			} catch (InterruptedException | ExecutionException e) {
+				Logs.f("Failed to start physics thread", e);
+			}
+		}
+	}
+
+	@Override
+	public void dispatchAllCollisionPairs(OverlappingPairCache pairCache, DispatcherInfo dispatchInfo, Dispatcher dispatcher) {
+		if (workers.length == 0 || shutdown || dispatchInfo.dispatchFunc != DispatchFunc.DISPATCH_DISCRETE
+				|| getCollisionConfiguration().getClass() != DefaultCollisionConfiguration.class
+				|| getNearCallback().getClass() != DefaultNearCallback.class) {
+			super.dispatchAllCollisionPairs(pairCache, dispatchInfo, dispatcher);
+			return;
+		}
+
+		ObjectArrayList<BroadphasePair> pairs = pairCache.getOverlappingPairArray();
+		for (Worker worker : workers)
+			worker.pairs.clear();
+		newPairs.clear();
+		newPairOwners.clear();
+		for (int i = 0; i < pairs.size(); i++) {
+			BroadphasePair pair = pairs.getQuick(i);
+			int owner;
+			if (pair.algorithm != null) {
+				// algorithms from before the dispatcher went parallel were made by the calling thread
+				Integer o = owners.get(pair.algorithm);
+				owner = o != null ? o : 0;
+			} else if (swapsShape(pair)) {
+				// these algorithms swap the shape of their object while they run, so all of them share one thread
+				owner = 0;
+			} else {
+				owner = Math.floorMod(pair.pProxy0.getUid() * 31 + pair.pProxy1.getUid(), workers.length);
+				newPairs.add(pair);
+				newPairOwners.add(owner);
+			}
+			workers[owner].pairs.add(i);
+		}
+
+		for (int i = 0; i < workers.length; i++) {
+			Worker worker = workers[i];
+			worker.events.clear();
+			worker.eventPairs.clear();
+			worker.eventManifolds.clear();
+			futures[i] = worker.executor.submit(() -> worker.dispatch(pairs, dispatchInfo));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException | ExecutionException e) {
+				Logs.f("Collision dispatch failed", e);
+			}
+		}
+
+		for (int i = 0; i < newPairs.size(); i++) {
+			CollisionAlgorithm algorithm = newPairs.getQuick(i).algorithm;
+			if (algorithm != null)
+				owners.put(algorithm, newPairOwners.get(i));
+		}
+		mergeManifolds();
+	}
+
+	private static boolean swapsShape(BroadphasePair pair) {
+		CollisionShape shape0 = ((CollisionObject) pair.pProxy0.clientObject).getCollisionShape();
+		CollisionShape shape1 = ((CollisionObject) pair.pProxy1.clientObject).getCollisionShape();
+		return shape0.isConcave() || shape0.isCompound() || shape1.isConcave() || shape1.isCompound();
+	}
+
+	// applies the manifold changes of the workers in pair order, the same order a sequential dispatch makes them in
+	private void mergeManifolds() {
+		ObjectArrayList<PersistentManifold> manifolds = getInternalManifoldPointer();
+		int[] next = new int[workers.length];
+		while (true) {
+			Worker first = null;
+			int firstIndex = 0;
+			for (int i = 0; i < workers.length; i++) {
+				Worker worker = workers[i];
+				if (next[i] < worker.events.size() && (first == null || worker.eventPairs.get(next[i]) < first.eventPairs.get(next[firstIndex]))) {
+					first = worker;
+					firstIndex = i;
+				}
+			}
+			if (first == null)
+				return;
+
+			int event = next[firstIndex]++;
+			PersistentManifold manifold = first.eventManifolds.getQuick(event);
+			if (first.events.get(event) == Worker.EVENT_CREATE) {
+				manifold.index1a = manifolds.size();
+				manifolds.add(manifold);
+				manifoldOwners.put(manifold, first);
+			} else {
+				// already cleared by the worker
+				removeManifold(manifold, first);
+			}
+		}
+	}
+
+	// removes a manifold from the manifold list and gives it back to the worker that created it, manifolds from the
+	// calling thread go to the worker that released them
+	private void removeManifold(PersistentManifold manifold, Worker releasedBy) {
+		ObjectArrayList<PersistentManifold> manifolds = getInternalManifoldPointer();
+		int index = manifold.index1a;
+		PersistentManifold last = manifolds.getQuick(manifolds.size() - 1);
+		manifolds.setQuick(index, last);
+		last.index1a = index;
+		manifolds.removeQuick(manifolds.size() - 1);
+		Worker owner = manifoldOwners.remove(manifold);
+		(owner != null ? owner : releasedBy).freeManifolds.add(manifold);
+	}
+
+	@Override
+	public CollisionAlgorithm findAlgorithm(CollisionObject body0, CollisionObject body1, PersistentManifold sharedManifold) {
+		Worker worker = currentWorker.get();
+		if (worker == null)
+			return super.findAlgorithm(body0, body1, sharedManifold);
+
+		CollisionAlgorithmConstructionInfo ci = worker.constructionInfo;
+		ci.dispatcher1 = this;
+		ci.manifold = sharedManifold;
+		CollisionAlgorithmCreateFunc createFunc = worker.createFuncs[body0.getCollisionShape().getShapeType().ordinal()][body1.getCollisionShape().getShapeType().ordinal()];
+		CollisionAlgorithm algorithm = createFunc.createCollisionAlgorithm(ci, body0, body1);
+		algorithm.internalSetCreateFunc(createFunc);
+		return algorithm;
+	}
+
+	@Override
+	public void freeCollisionAlgorithm(CollisionAlgorithm algorithm) {
+		// child algorithms freed on the workers are never in the owner map
+		if (currentWorker.get() == null)
+			owners.remove(algorithm);
+		super.freeCollisionAlgorithm(algorithm);
+	}
+
+	@Override
+	public PersistentManifold getNewManifold(Object b0, Object b1) {
+		Worker worker = currentWorker.get();
+		if (worker == null)
+			return super.getNewManifold(b0, b1);
+
+		PersistentManifold manifold;
+		if (worker.freeManifolds.size() > 0) {
+			manifold = worker.freeManifolds.remove(worker.freeManifolds.size() - 1);
+		} else {
+			manifold = new PersistentManifold();
+			worker.allocatedManifolds++;
+		}
+		manifold.init(b0, b1, 0);
+		manifold.index1a = -1;
+		worker.addEvent(Worker.EVENT_CREATE, manifold);
+		return manifold;
+	}
+
+	@Override
+	public void releaseManifold(PersistentManifold manifold) {
+		Worker worker = currentWorker.get();
+		if (worker == null) {
+			// algorithms freed on this thread still release the manifolds of the workers, the calling thread's pool is
+			// never used while dispatching in parallel so they have to go back to their worker
+			if (manifoldOwners.containsKey(manifold)) {
+				clearManifold(manifold);
+				removeManifold(manifold, null);
+			} else {
+				super.releaseManifold(manifold);
+			}
+			return;
+		}
+
+		clearManifold(manifold);
+		worker.addEvent(Worker.EVENT_RELEASE, manifold);
+	}
+
+	/**
+	 * Get the amount of threads the narrowphase runs on
+	 *
+	 * @return The amount of threads
+	 */
+	public int getNumTasks() {
+		return Math.max(workers.length, 1);
+	}
+
+	/**
+	 * Get the amount of manifolds the threads have created, every one of them is either in use or pooled
+	 *
+	 * @return The amount of manifolds
+	 */
+	public int getAllocatedManifolds() {
+		int allocated = 0;
+		for (Worker worker : workers)
+			allocated += worker.allocatedManifolds;
+		return allocated;
+	}
+
+	/**
+	 * Get the amount of manifolds the threads have created that are in use
+	 *
+	 * @return The amount of manifolds
+	 */
+	public int getUsedManifolds() {
+		return manifoldOwners.size();
+	}
+
+	/**
+	 * Get the amount of manifolds in the pools of the threads
+	 *
+	 * @return The amount of manifolds
+	 */
+	public int getPooledManifolds() {
+		int pooled = 0;
+		for (Worker worker : workers)
+			pooled += worker.freeManifolds.size();
+		return pooled;
+	}
+
+	/**
+	 * Stop the threads of this dispatcher, it dispatches on the calling thread afterwards
+	 */
+	public void shutdown() {
+		shutdown = true;
+		for (Worker worker : workers)
+			worker.executor.shutdown();
+	}
+
+	private class Worker {
+		public static final int EVENT_CREATE = 0;
+		public static final int EVENT_RELEASE = 1;
+
+		public final ExecutorService executor;
+		public final CollisionAlgorithmCreateFunc[][] createFuncs = new CollisionAlgorithmCreateFunc[MAX_BROADPHASE_COLLISION_TYPES][MAX_BROADPHASE_COLLISION_TYPES];
+		public final CollisionAlgorithmConstructionInfo constructionInfo = new CollisionAlgorithmConstructionInfo();
+		public final DefaultNearCallback nearCallback = new DefaultNearCallback();
+		public final ObjectArrayList<PersistentManifold> freeManifolds = new ObjectArrayList<>();
+		public int allocatedManifolds;
+
+		public final IntArrayList pairs = new IntArrayList();
+		public final IntArrayList events = new IntArrayList();
+		public final IntArrayList eventPairs = new IntArrayList();
+		public final ObjectArrayList<PersistentManifold> eventManifolds = new ObjectArrayList<>();
+		public int currentPair;
+
+		public Worker(ExecutorService executor) {
+			this.executor = executor;
+			CollisionConfiguration configuration = new DefaultCollisionConfiguration();
+			for (int i = 0; i < MAX_BROADPHASE_COLLISION_TYPES; i++)
+				for (int j = 0; j < MAX_BROADPHASE_COLLISION_TYPES; j++)
+					createFuncs[i][j] = configuration.getCollisionAlgorithmCreateFunc(BroadphaseNativeType.forValue(i), BroadphaseNativeType.forValue(j));
+			currentWorker.set(this);
+		}
+
+		public void dispatch(ObjectArrayList<BroadphasePair> allPairs, DispatcherInfo dispatchInfo) {
+			for (int i = 0; i < pairs.size(); i++) {
+				currentPair = pairs.get(i);
+				nearCallback.handleCollision(allPairs.getQuick(currentPair), ParallelCollisionDispatcher.this, dispatchInfo);
+			}
+		}
+
+		public void addEvent(int event, PersistentManifold manifold) {
+			events.add(event);
+			eventPairs.add(currentPair);
+			eventManifolds.add(manifold);
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package nullEngine.control.physics;
+
+import com.bulletphysics.BulletStats;
+import com.bulletphysics.collision.broadphase.BroadphaseInterface;
+import com.bulletphysics.collision.broadphase.Dispatcher;
+import com.bulletphysics.collision.dispatch.CollisionConfiguration;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.SimulationIslandManager;
+import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.constraintsolver.ConstraintSolver;
+import com.bulletphysics.dynamics.constraintsolver.ContactSolverInfo;
+import com.bulletphysics.dynamics.constraintsolver.SequentialImpulseConstraintSolver;
+import com.bulletphysics.dynamics.constraintsolver.TypedConstraint;
+import com.bulletphysics.linearmath.MiscUtil;
+import com.bulletphysics.util.ObjectArrayList;
+import com.sun.istack.internal.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A dynamics world that solves independent simulation islands at the same time, every thread has its own solver and
+ * islands never share bodies so the result doesn't depend on which worker solved an island
+ */
+public class ParallelDynamicsWorld extends DiscreteDynamicsWorld {
+
+	/**
+	 * The default minimum amount of islands that are solved in parallel
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 4;
+
+	// the solver's pools belong to the thread that created it so every thread needs its own solver
+	private static final ThreadLocal<SequentialImpulseConstraintSolver> solvers = ThreadLocal.withInitial(SequentialImpulseConstraintSolver::new);
+
+	private static final Comparator<TypedConstraint> CONSTRAINT_COMPARATOR = (a, b) -> Integer.compare(getConstraintIslandId(a), getConstraintIslandId(b));
+
+	private ForkJoinPool pool;
+	private int numTasks;
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	private final ObjectArrayList<TypedConstraint> sortedConstraints = new ObjectArrayList<>();
+	private final IslandCollector collector = new IslandCollector();
+	// islands are reused between steps so solving doesn't allocate once the scene has settled
+	private final ArrayList<Island> islands = new ArrayList<>();
+	private final ArrayList<Island> freeIslands = new ArrayList<>();
+	private final AtomicInteger nextIsland = new AtomicInteger();
+
+	private ContactSolverInfo solverInfo;
+
+	private final PhysicsStats stepStats = new PhysicsStats();
+	private final PhysicsStats lastStepStats = new PhysicsStats();
+	private ObjectArrayList<PersistentManifold> manifolds;
+
+	/**
+	 * Create a new parallel dynamics world that uses the common pool with a task per processor
+	 *
+	 * @param dispatcher             The collision dispatcher
+	 * @param pairCache              The broadphase
+	 * @param constraintSolver       The solver, islands are only solved in parallel if it is a
+	 *                               {@link SequentialImpulseConstraintSolver}
+	 * @param collisionConfiguration The collision configuration
+	 */
+	public ParallelDynamicsWorld(Dispatcher dispatcher, BroadphaseInterface pairCache, ConstraintSolver constraintSolver, CollisionConfiguration collisionConfiguration) {
+		super(dispatcher, pairCache, constraintSolver, collisionConfiguration);
+		pool = ForkJoinPool.commonPool();
+		setNumTasks(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Step the simulation and record the stats of the update
+	 *
+	 * @param timeStep      The time since the last update
+	 * @param maxSubSteps   The maximum amount of sub steps
+	 * @param fixedTimeStep The size of a sub step
+	 * @return The amount of sub steps that were simulated
+	 * @see #getLastStepStats()
+	 */
+	@Override
+	public int stepSimulation(float timeStep, int maxSubSteps, float fixedTimeStep) {
+		stepStats.reset();
+		long start = System.nanoTime();
+		int subSteps = super.stepSimulation(timeStep, maxSubSteps, fixedTimeStep);
+		stepStats.totalTime = System.nanoTime() - start;
+		stepStats.subSteps = subSteps;
+		stepStats.pairs = broadphasePairCache.getOverlappingPairCache().getNumOverlappingPairs();
+		stepStats.manifolds = dispatcher1.getNumManifolds();
+		for (int i = 0; i < stepStats.manifolds; i++)
+			stepStats.contacts += dispatcher1.getManifoldByIndexInternal(i).getNumContacts();
+		lastStepStats.set(stepStats);
+		return subSteps;
+	}
+
+	@Override
+	public void performDiscreteCollisionDetection() {
+		// the same as CollisionWorld but with the broadphase and narrowphase timed separately
+		BulletStats.pushProfile("performDiscreteCollisionDetection");
+		try {
+			long start = System.nanoTime();
+			updateAabbs();
+			BulletStats.pushProfile("calculateOverlappingPairs");
+			try {
+				broadphasePairCache.calculateOverlappingPairs(dispatcher1);
+			} finally {
+				BulletStats.popProfile();
+			}
+			long broadphaseEnd = System.nanoTime();
+			stepStats.broadphaseTime += broadphaseEnd - start;
+
+			Dispatcher dispatcher = getDispatcher();
+			BulletStats.pushProfile("dispatchAllCollisionPairs");
+			try {
+				if (dispatcher != null)
+					dispatcher.dispatchAllCollisionPairs(broadphasePairCache.getOverlappingPairCache(), dispatchInfo, dispatcher1);
+			} finally {
+				BulletStats.popProfile();
+			}
+			stepStats.narrowphaseTime += System.nanoTime() - broadphaseEnd;
+		} finally {
+			BulletStats.popProfile();
+		}
+	}
+
+	@Override
+	protected void predictUnconstraintMotion(float timeStep) {
+		long start = System.nanoTime();
+		super.predictUnconstraintMotion(timeStep);
+		stepStats.integrationTime += System.nanoTime() - start;
+	}
+
+	@Override
+	protected void integrateTransforms(float timeStep) {
+		long start = System.nanoTime();
+		super.integrateTransforms(timeStep);
+		stepStats.integrationTime += System.nanoTime() - start;
+	}
+
+	@Override
+	protected void calculateSimulationIslands() {
+		long start = System.nanoTime();
+		super.calculateSimulationIslands();
+		stepStats.islandTime += System.nanoTime() - start;
+	}
+
+	@Override
+	protected void solveConstraints(ContactSolverInfo solverInfo) {
+		long start = System.nanoTime();
+		if (constraintSolver instanceof SequentialImpulseConstraintSolver)
+			solveConstraintsParallel(solverInfo);
+		else
+			super.solveConstraints(solverInfo);
+		stepStats.solverTime += System.nanoTime() - start;
+	}
+
+	private void solveConstraintsParallel(ContactSolverInfo solverInfo) {
+		BulletStats.pushProfile("solveConstraints");
+		try {
+			// sorted by island so every island's constraints are next to each other
+			sortedConstraints.clear();
+			for (int i = 0; i < constraints.size(); i++)
+				sortedConstraints.add(constraints.getQuick(i));
+			MiscUtil.quickSort(sortedConstraints, CONSTRAINT_COMPARATOR);
+
+			this.solverInfo = solverInfo;
+			collector.nextConstraint = 0;
+			constraintSolver.prepareSolve(getNumCollisionObjects(), dispatcher1.getNumManifolds());
+
+			// collects the islands, the manifold list it passes stays valid until the next step
+			islandManager.buildAndProcessIslands(dispatcher1, getCollisionObjectArray(), collector);
+			stepStats.islands = islands.size();
+			solveIslands();
+
+			constraintSolver.allSolved(solverInfo, debugDrawer);
+		} finally {
+			freeIslands.addAll(islands);
+			islands.clear();
+			manifolds = null;
+			this.solverInfo = null;
+			BulletStats.popProfile();
+		}
+	}
+
+	private void solveIslands() {
+		int count = islands.size();
+		if (count == 0)
+			return;
+		if (count < parallelThreshold) {
+			for (int i = 0; i < count; i++)
+				solveIsland(solvers.get(), islands.get(i));
+			return;
+		}
+
+		// the profiler isn't thread safe, the islands are profiled as a whole by solveConstraints
+		boolean profile = BulletStats.isProfileEnabled();
+		BulletStats.setProfileEnabled(false);
+		try {
+			nextIsland.set(0);
+			int tasks = Math.min(numTasks, count);
+			ForkJoinTask<?>[] futures = new ForkJoinTask<?>[tasks - 1];
+			for (int i = 1; i < tasks; i++)
+				futures[i - 1] = pool.submit(this::solveIslandQueue);
+			solveIslandQueue();
+			for (ForkJoinTask<?> future : futures)
+				future.join();
+		} finally {
+			BulletStats.setProfileEnabled(profile);
+		}
+	}
+
+	private void solveIslandQueue() {
+		SequentialImpulseConstraintSolver solver = solvers.get();
+		int i;
+		while ((i = nextIsland.getAndIncrement()) < islands.size())
+			solveIsland(solver, islands.get(i));
+	}
+
+	private void solveIsland(SequentialImpulseConstraintSolver solver, Island island) {
+		// every island starts from the same seed so randomized solver order is deterministic too
+		solver.setRandSeed(0);
+		solver.solveGroup(island.bodies, island.bodies.size(), manifolds, island.manifoldStart, island.manifoldCount,
+				sortedConstraints, island.constraintStart, island.constraintCount, solverInfo, debugDrawer, dispatcher1);
+	}
+
+	private static int getConstraintIslandId(TypedConstraint constraint) {
+		CollisionObject a = constraint.getRigidBodyA();
+		CollisionObject b = constraint.getRigidBodyB();
+		return a.getIslandTag() >= 0 ? a.getIslandTag() : b.getIslandTag();
+	}
+
+	/**
+	 * Get the stats of the last call to {@link #stepSimulation(float, int, float)}
+	 *
+	 * @return The stats, they are updated in place by the next step
+	 */
+	public PhysicsStats getLastStepStats() {
+		return lastStepStats;
+	}
+
+	/**
+	 * Set the amount of islands that are solved at the same time
+	 *
+	 * @param numTasks The amount of tasks, 1 solves every island on the simulating thread with the same result
+	 */
+	@Override
+	public void setNumTasks(int numTasks) {
+		if (numTasks < 1)
+			throw new IllegalArgumentException("Task count must be at least 1");
+		this.numTasks = numTasks;
+	}
+
+	/**
+	 * Get the amount of islands that are solved at the same time
+	 *
+	 * @return The amount of tasks
+	 */
+	public int getNumTasks() {
+		return numTasks;
+	}
+
+	/**
+	 * Set the pool the islands are solved in
+	 *
+	 * @param pool The pool
+	 */
+	public void setPool(@NotNull ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Get the pool the islands are solved in
+	 *
+	 * @return The pool
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Set the minimum amount of islands in a step before they are solved in parallel
+	 *
+	 * @param parallelThreshold The minimum amount of islands
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		if (parallelThreshold < 1)
+			throw new IllegalArgumentException("Parallel threshold must be at least 1");
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * Get the minimum amount of islands in a step before they are solved in parallel
+	 *
+	 * @return The minimum amount of islands
+	 */
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	private static class Island {
+		public final ObjectArrayList<CollisionObject> bodies = new ObjectArrayList<>();
+		public int manifoldStart;
+		public int manifoldCount;
+		public int constraintStart;
+		public int constraintCount;
+	}
+
+	private class IslandCollector extends SimulationIslandManager.IslandCallback {
+		public int nextConstraint;
+
+		@Override
+		public void processIsland(ObjectArrayList<CollisionObject> bodies, int numBodies, ObjectArrayList<PersistentManifold> manifolds, int manifolds_offset, int numManifolds, int islandId) {
+			if (islandId < 0) {
+				// islands aren't split, solve everything at once like DiscreteDynamicsWorld does
+				constraintSolver.solveGroup(bodies, numBodies, manifolds, manifolds_offset, numManifolds, sortedConstraints,
+						0, sortedConstraints.size(), solverInfo, debugDrawer, dispatcher1);
+				return;
+			}
+			ParallelDynamicsWorld.this.manifolds = manifolds;
+
+			// islands arrive in ascending id order, the same order the constraints are sorted in
+			int constraintCount = sortedConstraints.size();
+			while (nextConstraint < constraintCount && getConstraintIslandId(sortedConstraints.getQuick(nextConstraint)) < islandId)
+				nextConstraint++;
+			int constraintStart = nextConstraint;
+			while (nextConstraint < constraintCount && getConstraintIslandId(sortedConstraints.getQuick(nextConstraint)) == islandId)
+				nextConstraint++;
+
+			if (numManifolds + nextConstraint - constraintStart == 0)
+				return;
+
+			Island island = freeIslands.isEmpty() ? new Island() : freeIslands.remove(freeIslands.size() - 1);
+			island.bodies.clear();
+			for (int i = 0; i < numBodies; i++)
+				island.bodies.add(bodies.getQuick(i));
+			island.manifoldStart = manifolds_offset;
+			island.manifoldCount = numManifolds;
+			island.constraintStart = constraintStart;
+			island.constraintCount = nextConstraint - constraintStart;
+			islands.add(island);
+		}
+	}
+}
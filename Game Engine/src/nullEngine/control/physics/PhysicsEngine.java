@@ -3,46 +3,120 @@ package nullEngine.control.physics;
 import com.bulletphysics.collision.broadphase.BroadphaseInterface;
 import com.bulletphysics.collision.broadphase.DbvtBroadphase;
 import com.bulletphysics.collision.dispatch.CollisionConfiguration;
-import com.bulletphysics.collision.dispatch.CollisionDispatcher;
 import com.bulletphysics.collision.dispatch.DefaultCollisionConfiguration;
 import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
 import com.bulletphysics.dynamics.constraintsolver.ConstraintSolver;
 import com.bulletphysics.dynamics.constraintsolver.SequentialImpulseConstraintSolver;
 import nullEngine.object.GameComponent;
 import nullEngine.object.component.physics.RigidBodyComponent;
 
 import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PhysicsEngine {
 
+	/**
+	 * The default size of a simulation step in seconds
+	 */
+	public static final float DEFAULT_FIXED_TIME_STEP = 1 / 60f;
+	/**
+	 * The default maximum amount of simulation steps per update
+	 */
+	public static final int DEFAULT_MAX_SUB_STEPS = 4;
+
 	private BroadphaseInterface broadphase;
 	private CollisionConfiguration collisionConfiguration;
-	private CollisionDispatcher dispatcher;
+	private ParallelCollisionDispatcher dispatcher;
 	private ConstraintSolver solver;
-	private DiscreteDynamicsWorld dynamicsWorld;
+	private ParallelDynamicsWorld dynamicsWorld;
+
+	private float fixedTimeStep;
+	private int maxSubSteps;
+	private List<RigidBodyComponent> rigidBodies = new ArrayList<>();
 
 	public PhysicsEngine() {
+		this(DEFAULT_FIXED_TIME_STEP, DEFAULT_MAX_SUB_STEPS);
+	}
+
+	/**
+	 * Create a new physics engine
+	 *
+	 * @param fixedTimeStep The size of a simulation step in seconds
+	 * @param maxSubSteps   The maximum amount of simulation steps per update, time beyond that is dropped
+	 */
+	public PhysicsEngine(float fixedTimeStep, int maxSubSteps) {
+		this(fixedTimeStep, maxSubSteps, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create a new physics engine
+	 *
+	 * @param fixedTimeStep The size of a simulation step in seconds
+	 * @param maxSubSteps   The maximum amount of simulation steps per update, time beyond that is dropped
+	 * @param numTasks      The amount of threads the narrowphase and the solver run on
+	 */
+	public PhysicsEngine(float fixedTimeStep, int maxSubSteps, int numTasks) {
+		this.fixedTimeStep = fixedTimeStep;
+		this.maxSubSteps = maxSubSteps;
 		broadphase = new DbvtBroadphase();
 		collisionConfiguration = new DefaultCollisionConfiguration();
-		dispatcher = new CollisionDispatcher(collisionConfiguration);
+		dispatcher = new ParallelCollisionDispatcher(collisionConfiguration, numTasks);
 		solver = new SequentialImpulseConstraintSolver();
-		dynamicsWorld = new DiscreteDynamicsWorld(dispatcher, broadphase, solver, collisionConfiguration);
+		dynamicsWorld = new ParallelDynamicsWorld(dispatcher, broadphase, solver, collisionConfiguration);
+		dynamicsWorld.setNumTasks(numTasks);
 		dynamicsWorld.setGravity(new Vector3f(0, -9.81f, 0));
 	}
 
+	/**
+	 * Step the simulation and copy the transforms of the bodies that moved back to their objects
+	 *
+	 * @param delta The time since update was last called
+	 */
 	public void update(double delta) {
+		if (dynamicsWorld.stepSimulation((float) delta, maxSubSteps, fixedTimeStep) == 0)
+			return;
 
+		for (int i = 0; i < rigidBodies.size(); i++) {
+			RigidBodyComponent component = rigidBodies.get(i);
+			RigidBody body = component.getRigidBody();
+			if (body.isActive() && !body.isStaticOrKinematicObject())
+				component.syncTransform();
+		}
 	}
 
 	public void add(GameComponent component) {
 		if (component instanceof RigidBodyComponent) {
+			rigidBodies.add((RigidBodyComponent) component);
 			dynamicsWorld.addRigidBody(((RigidBodyComponent) component).getRigidBody());
 		}
 	}
 
 	public void remove(GameComponent component) {
 		if (component instanceof RigidBodyComponent) {
+			rigidBodies.remove(component);
 			dynamicsWorld.removeRigidBody(((RigidBodyComponent) component).getRigidBody());
 		}
 	}
+
+	public DiscreteDynamicsWorld getDynamicsWorld() {
+		return dynamicsWorld;
+	}
+
+	/**
+	 * Get the timings and counts of the last update
+	 *
+	 * @return The stats, they are updated in place by the next update
+	 */
+	public PhysicsStats getLastStepStats() {
+		return dynamicsWorld.getLastStepStats();
+	}
+
+	/**
+	 * Stop the collision threads, the engine still works afterwards but dispatches collisions on the calling thread
+	 */
+	public void cleanup() {
+		dispatcher.shutdown();
+	}
 }
@@ -0,0 +1,94 @@
+package nullEngine.control.physics;
+
+/**
+ * Timings and counts of a simulation update, times are in nanoseconds and summed over every sub step of the update
+ */
+public class PhysicsStats {
+
+	/**
+	 * The amount of sub steps that were simulated
+	 */
+	public int subSteps;
+	/**
+	 * The time spent updating bounding boxes and finding overlapping pairs
+	 */
+	public long broadphaseTime;
+	/**
+	 * The time spent generating contacts for the overlapping pairs
+	 */
+	public long narrowphaseTime;
+	/**
+	 * The time spent building simulation islands
+	 */
+	public long islandTime;
+	/**
+	 * The time spent solving constraints and contacts
+	 */
+	public long solverTime;
+	/**
+	 * The time spent predicting and integrating motion
+	 */
+	public long integrationTime;
+	/**
+	 * The time of the whole update
+	 */
+	public long totalTime;
+	/**
+	 * The amount of overlapping pairs after the last sub step
+	 */
+	public int pairs;
+	/**
+	 * The amount of contact manifolds after the last sub step
+	 */
+	public int manifolds;
+	/**
+	 * The amount of contact points after the last sub step
+	 */
+	public int contacts;
+	/**
+	 * The amount of active simulation islands in the last sub step
+	 */
+	public int islands;
+
+	/**
+	 * Set all of the timings and counts to 0
+	 */
+	public void reset() {
+		subSteps = 0;
+		broadphaseTime = 0;
+		narrowphaseTime = 0;
+		islandTime = 0;
+		solverTime = 0;
+		integrationTime = 0;
+		totalTime = 0;
+		pairs = 0;
+		manifolds = 0;
+		contacts = 0;
+		islands = 0;
+	}
+
+	/**
+	 * Copy the timings and counts from other stats
+	 *
+	 * @param stats The stats to copy
+	 */
+	public void set(PhysicsStats stats) {
+		subSteps = stats.subSteps;
+		broadphaseTime = stats.broadphaseTime;
+		narrowphaseTime = stats.narrowphaseTime;
+		islandTime = stats.islandTime;
+		solverTime = stats.solverTime;
+		integrationTime = stats.integrationTime;
+		totalTime = stats.totalTime;
+		pairs = stats.pairs;
+		manifolds = stats.manifolds;
+		contacts = stats.contacts;
+		islands = stats.islands;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PhysicsStats(steps: %d, broadphase: %.3fms, narrowphase: %.3fms, islands: %.3fms, solver: %.3fms, integration: %.3fms, total: %.3fms, pairs: %d, manifolds: %d, contacts: %d, active islands: %d)",
+				subSteps, broadphaseTime / 1e6, narrowphaseTime / 1e6, islandTime / 1e6, solverTime / 1e6, integrationTime / 1e6, totalTime / 1e6, pairs, manifolds, contacts, islands);
+	}
+}
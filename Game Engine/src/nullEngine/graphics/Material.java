@@ -8,6 +8,7 @@ import nullEngine.graphics.shader.mousePick.MousePickBasicShader;
 import nullEngine.graphics.texture.Texture2D;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +24,12 @@ public class Material implements Cloneable {
 		return nextShaderIndex++;
 	}
 
+	private static int nextMaterialID = 0;
+
+	private static synchronized int getNextMaterialID() {
+		return nextMaterialID++;
+	}
+
 	/**
 	 * The index of a materials basic shader
 	 */
@@ -36,11 +43,43 @@ public class Material implements Cloneable {
 	 */
 	public static final int MOUSE_PICKING_SHADER_INDEX = getNextShaderIndex();
 
-	private Map<String, Float> floats;
-	private Map<String, Vector4f> vectors;
-	private Map<String, Texture2D> textures;
+	// parameter names are resolved to dense slots once so materials can store their values in arrays
+	private static final Map<String, Integer> slots = new HashMap<>();
+	private static final List<String> slotNames = new ArrayList<>();
+
+	/**
+	 * Get the slot of a parameter name, the same name always has the same slot for every type of parameter
+	 *
+	 * @param name The name
+	 * @return The slot
+	 */
+	public static synchronized int getParameterSlot(String name) {
+		Integer slot = slots.get(name);
+		if (slot == null) {
+			slot = slotNames.size();
+			slots.put(name, slot);
+			slotNames.add(name);
+		}
+		return slot;
+	}
+
+	/**
+	 * Get the name of a parameter slot
+	 *
+	 * @param slot The slot
+	 * @return The name
+	 */
+	public static synchronized String getParameterName(int slot) {
+		return slotNames.get(slot);
+	}
+
+	private float[] floats;
+	private boolean[] hasFloats;
+	private Vector4f[] vectors;
+	private Texture2D[] textures;
 
 	private boolean alwaysRender = false;
+	private final int materialID = getNextMaterialID();
 
 	private List<Shader> shaders = new ArrayList<>();
 
@@ -57,9 +96,10 @@ public class Material implements Cloneable {
 	}
 
 	private Material(Material material) {
-		floats = new HashMap<>(material.floats);
-		vectors = new HashMap<>(material.vectors);
-		textures = new HashMap<>(material.textures);
+		floats = material.floats.clone();
+		hasFloats = material.hasFloats.clone();
+		vectors = material.vectors.clone();
+		textures = material.textures.clone();
 		alwaysRender = material.alwaysRender;
 		shaders = new ArrayList<>(material.shaders);
 	}
@@ -72,19 +112,39 @@ public class Material implements Cloneable {
 	}
 
 	private Material(@SuppressWarnings("unused") int dummy) {
-		floats = new HashMap<>();
-		vectors = new HashMap<>();
-		textures = new HashMap<>();
+		floats = new float[0];
+		hasFloats = new boolean[0];
+		vectors = new Vector4f[0];
+		textures = new Texture2D[0];
 		shaders = new ArrayList<>(3);
 	}
 
+	private static int grow(int length, int slot) {
+		return Math.max(slot + 1, length * 2);
+	}
+
 	/**
 	 * Set a float value
 	 * @param key The name
 	 * @param f The float
 	 */
 	public void setFloat(String key, float f) {
-		floats.put(key, f);
+		setFloat(getParameterSlot(key), f);
+	}
+
+	/**
+	 * Set a float value
+	 * @param slot The slot of the name
+	 * @param f The float
+	 * @see #getParameterSlot(String)
+	 */
+	public void setFloat(int slot, float f) {
+		if (slot >= floats.length) {
+			floats = Arrays.copyOf(floats, grow(floats.length, slot));
+			hasFloats = Arrays.copyOf(hasFloats, floats.length);
+		}
+		floats[slot] = f;
+		hasFloats[slot] = true;
 	}
 
 	/**
@@ -93,7 +153,19 @@ public class Material implements Cloneable {
 	 * @param v The vector
 	 */
 	public void setVector(String key, Vector4f v) {
-		vectors.put(key, v);
+		setVector(getParameterSlot(key), v);
+	}
+
+	/**
+	 * Set a Vector 4 value
+	 * @param slot The slot of the name
+	 * @param v The vector
+	 * @see #getParameterSlot(String)
+	 */
+	public void setVector(int slot, Vector4f v) {
+		if (slot >= vectors.length)
+			vectors = Arrays.copyOf(vectors, grow(vectors.length, slot));
+		vectors[slot] = v;
 	}
 
 	/**
@@ -102,7 +174,19 @@ public class Material implements Cloneable {
 	 * @param t The texture
 	 */
 	public void setTexture(String key, Texture2D t) {
-		textures.put(key, t);
+		setTexture(getParameterSlot(key), t);
+	}
+
+	/**
+	 * Set a texture value
+	 * @param slot The slot of the name
+	 * @param t The texture
+	 * @see #getParameterSlot(String)
+	 */
+	public void setTexture(int slot, Texture2D t) {
+		if (slot >= textures.length)
+			textures = Arrays.copyOf(textures, grow(textures.length, slot));
+		textures[slot] = t;
 	}
 
 	/**
@@ -111,7 +195,8 @@ public class Material implements Cloneable {
 	 * @return If the material has a float
 	 */
 	public boolean hasFloat(String key) {
-		return floats.containsKey(key);
+		int slot = getParameterSlot(key);
+		return slot < hasFloats.length && hasFloats[slot];
 	}
 
 	/**
@@ -120,7 +205,7 @@ public class Material implements Cloneable {
 	 * @return If the material has a vector
 	 */
 	public boolean hasVector(String key) {
-		return vectors.containsKey(key);
+		return getVector(getParameterSlot(key)) != null;
 	}
 
 	/**
@@ -129,7 +214,7 @@ public class Material implements Cloneable {
 	 * @return If the material has a texture
 	 */
 	public boolean hasTexture(String key) {
-		return textures.containsKey(key);
+		return getTexture(getParameterSlot(key)) != null;
 	}
 
 	/**
@@ -138,7 +223,17 @@ public class Material implements Cloneable {
 	 * @return The float value stored in name or <code>0</code> if it doesn't exist
 	 */
 	public float getFloat(String key) {
-		return floats.getOrDefault(key, 0f);
+		return getFloat(getParameterSlot(key));
+	}
+
+	/**
+	 * Get a float value
+	 * @param slot The slot of the name
+	 * @return The float value stored in the slot or <code>0</code> if it doesn't exist
+	 * @see #getParameterSlot(String)
+	 */
+	public float getFloat(int slot) {
+		return slot < floats.length ? floats[slot] : 0;
 	}
 
 	/**
@@ -147,7 +242,17 @@ public class Material implements Cloneable {
 	 * @return The vector value stored in name or <code>null</code> if it doesn't exist
 	 */
 	public Vector4f getVector(String key) {
-		return vectors.get(key);
+		return getVector(getParameterSlot(key));
+	}
+
+	/**
+	 * Get a vector value
+	 * @param slot The slot of the name
+	 * @return The vector value stored in the slot or <code>null</code> if it doesn't exist
+	 * @see #getParameterSlot(String)
+	 */
+	public Vector4f getVector(int slot) {
+		return slot < vectors.length ? vectors[slot] : null;
 	}
 
 	/**
@@ -156,7 +261,17 @@ public class Material implements Cloneable {
 	 * @return The texture value stored in name or <code>null</code> if it doesn't exist
 	 */
 	public Texture2D getTexture(String key) {
-		return textures.get(key);
+		return getTexture(getParameterSlot(key));
+	}
+
+	/**
+	 * Get a texture value
+	 * @param slot The slot of the name
+	 * @return The texture value stored in the slot or <code>null</code> if it doesn't exist
+	 * @see #getParameterSlot(String)
+	 */
+	public Texture2D getTexture(int slot) {
+		return slot < textures.length ? textures[slot] : null;
 	}
 
 	/**
@@ -195,6 +310,14 @@ public class Material implements Cloneable {
 		this.alwaysRender = alwaysRender;
 	}
 
+	/**
+	 * Get the unique id of this material, used to sort draws
+	 * @return The id
+	 */
+	public int getMaterialID() {
+		return materialID;
+	}
+
 	/**
 	 * Create a copy of this material
 	 * @return The copy
@@ -0,0 +1,14 @@
+package nullEngine.graphics;
+
+/**
+ * Listener for changes to the size of the drawing area of a window
+ */
+public interface ResizeListener {
+	/**
+	 * Called on the RENDER thread after the size of the drawing area changed
+	 *
+	 * @param width  The new width
+	 * @param height The new height
+	 */
+	void framebufferResized(int width, int height);
+}
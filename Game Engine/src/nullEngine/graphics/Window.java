@@ -24,6 +24,7 @@ import org.lwjgl.system.MemoryUtil;
 import java.nio.DoubleBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Wrapper for the GLFW windowing system
@@ -36,6 +37,11 @@ public class Window {
 
 	private int width, height;
 
+	//updated from the size callbacks so the sizes don't have to be queried from GLFW every time
+	private volatile int framebufferWidth, framebufferHeight;
+	private volatile int windowWidth, windowHeight;
+	private final CopyOnWriteArrayList<ResizeListener> resizeListeners = new CopyOnWriteArrayList<>();
+
 	private boolean fullscreen;
 	private boolean vsync = false;
 	private boolean cursorEnabled = true;
@@ -47,6 +53,7 @@ public class Window {
 	private GLFWFramebufferSizeCallback framebufferSizeCallback;
 	private GLFWKeyCallback keyCallback;
 	private GLFWMouseButtonCallback mouseButtonCallback;
+	private GLFWScrollCallback scrollCallback;
 	private GLFWWindowCloseCallback closeCallback;
 	private GLFWWindowFocusCallback focusCallback;
 	private GLFWWindowIconifyCallback iconifyCallback;
@@ -63,6 +70,16 @@ public class Window {
 
 	private boolean ignoreNextCursorEvent = false;
 
+	//reused for every callback, the distributor has to copy events it keeps
+	private final CharEvent charEvent = new CharEvent();
+	private final MouseEvent mouseMovedEvent = new MouseEvent(Event.EventType.MOUSE_MOVED);
+	private final MouseEvent mouseScrolledEvent = new MouseEvent(Event.EventType.MOUSE_SCROLLED);
+	private final MouseEvent mousePressedEvent = new MouseEvent(Event.EventType.MOUSE_PRESSED);
+	private final MouseEvent mouseReleasedEvent = new MouseEvent(Event.EventType.MOUSE_RELEASED);
+	private final KeyEvent keyPressedEvent = new KeyEvent(Event.EventType.KEY_PRESSED);
+	private final KeyEvent keyRepeatedEvent = new KeyEvent(Event.EventType.KEY_REPEATED);
+	private final KeyEvent keyReleasedEvent = new KeyEvent(Event.EventType.KEY_RELEASED);
+
 	private static final IntBuffer intBuffer = BufferUtils.createIntBuffer(1);
 	private static final DoubleBuffer doublebuffer = BufferUtils.createDoubleBuffer(1);
 
@@ -133,6 +150,8 @@ public class Window {
 		GLFW.glfwMakeContextCurrent(window);
 		GLFW.glfwSwapInterval(0);
 		glCapabilities = GL.createCapabilities();
+		updateWindowSize();
+		updateFramebufferSize();
 		initCallbacks();
 		setCursorEnabled(cursorEnabled);
 	}
@@ -180,8 +199,7 @@ public class Window {
 	 * @return The width of the drawing area
 	 */
 	public int getWidth() {
-		GLFW.glfwGetFramebufferSize(window, intBuffer, null);
-		return intBuffer.get(0);
+		return framebufferWidth;
 	}
 
 	/**
@@ -190,8 +208,66 @@ public class Window {
 	 * @return The height of the drawing area
 	 */
 	public int getHeight() {
+		return framebufferHeight;
+	}
+
+	/**
+	 * Get the width of the window in screen coordinates, can be different from the width of the drawing area
+	 *
+	 * @return The window width
+	 */
+	public int getWindowWidth() {
+		return windowWidth;
+	}
+
+	/**
+	 * Get the height of the window in screen coordinates, can be different from the height of the drawing area
+	 *
+	 * @return The window height
+	 */
+	public int getWindowHeight() {
+		return windowHeight;
+	}
+
+	/**
+	 * Add a listener that is called when the size of the drawing area changes
+	 *
+	 * @param listener The listener
+	 */
+	public void addResizeListener(ResizeListener listener) {
+		resizeListeners.add(listener);
+	}
+
+	/**
+	 * Remove a resize listener
+	 *
+	 * @param listener The listener
+	 */
+	public void removeResizeListener(ResizeListener listener) {
+		resizeListeners.remove(listener);
+	}
+
+	private void updateWindowSize() {
+		GLFW.glfwGetWindowSize(window, intBuffer, null);
+		windowWidth = intBuffer.get(0);
+		GLFW.glfwGetWindowSize(window, null, intBuffer);
+		windowHeight = intBuffer.get(0);
+	}
+
+	private void updateFramebufferSize() {
+		GLFW.glfwGetFramebufferSize(window, intBuffer, null);
+		int width = intBuffer.get(0);
 		GLFW.glfwGetFramebufferSize(window, null, intBuffer);
-		return intBuffer.get(0);
+		setFramebufferSize(width, intBuffer.get(0));
+	}
+
+	private void setFramebufferSize(int width, int height) {
+		if (width == framebufferWidth && height == framebufferHeight)
+			return;
+		framebufferWidth = width;
+		framebufferHeight = height;
+		for (ResizeListener listener : resizeListeners)
+			listener.framebufferResized(width, height);
 	}
 
 	private void initCallbacks() {
@@ -200,7 +276,7 @@ public class Window {
 			public void invoke(long window, int codepoint, int mods) {
 				try {
 					inputData.setMods(mods);
-					CharEvent event = new CharEvent();
+					CharEvent event = charEvent;
 					event.character = (char) codepoint;
 					event.mods = mods;
 					distributor.charTyped(event);
@@ -226,7 +302,7 @@ public class Window {
 			@Override
 			public void invoke(long window, double xpos, double ypos) {
 				try {
-					MouseEvent event = new MouseEvent(Event.EventType.MOUSE_MOVED);
+					MouseEvent event = mouseMovedEvent;
 					event.button = -1;
 					event.x = inputData.cursorX((int) xpos);
 					event.y = inputData.cursorY(getHeight() - (int) ypos - 1);
@@ -255,7 +331,7 @@ public class Window {
 			@Override
 			public void invoke(long window, int width_, int height_) {
 				try {
-
+					setFramebufferSize(width_, height_);
 				} catch (Exception e) {
 					Logs.e(e);
 				}
@@ -267,23 +343,23 @@ public class Window {
 				try {
 					inputData.setMods(mods);
 					if (action == GLFW.GLFW_PRESS) {
-						KeyEvent event = new KeyEvent(Event.EventType.KEY_PRESSED);
+						KeyEvent event = keyPressedEvent;
 						event.key = key;
 						event.mods = mods;
 						inputData.keyPressed(key);
 						distributor.keyPressed(event);
 					} else if (action == GLFW.GLFW_REPEAT) {
-						KeyEvent event = new KeyEvent(Event.EventType.KEY_REPEATED);
+						KeyEvent event = keyRepeatedEvent;
 						event.key = key;
 						event.mods = mods;
 						inputData.keyRepeated(key);
 						distributor.keyRepeated(event);
 					} else {
-						KeyEvent event = new KeyEvent(Event.EventType.KEY_RELEASED);
+						KeyEvent event = keyReleasedEvent;
 						event.key = key;
 						event.mods = mods;
 						inputData.keyReleased(key);
-						distributor.keyRepeated(event);
+						distributor.keyReleased(event);
 					}
 				} catch (Exception e) {
 					Logs.e(e);
@@ -297,7 +373,7 @@ public class Window {
 					inputData.setMods(mods);
 
 					if (action == GLFW.GLFW_PRESS) {
-						MouseEvent event = new MouseEvent(Event.EventType.MOUSE_PRESSED);
+						MouseEvent event = mousePressedEvent;
 						event.button = button;
 						event.mods = mods;
 						event.x = inputData.getCursorX();
@@ -305,7 +381,7 @@ public class Window {
 						inputData.mousePressed(button);
 						distributor.mousePressed(event);
 					} else {
-						MouseEvent event = new MouseEvent(Event.EventType.MOUSE_RELEASED);
+						MouseEvent event = mouseReleasedEvent;
 						event.button = button;
 						event.mods = mods;
 						event.x = inputData.getCursorX();
@@ -318,6 +394,23 @@ public class Window {
 				}
 			}
 		}.set(window);
+		scrollCallback = new GLFWScrollCallback() {
+			@Override
+			public void invoke(long window, double xoffset, double yoffset) {
+				try {
+					MouseEvent event = mouseScrolledEvent;
+					event.button = -1;
+					event.x = inputData.getCursorX();
+					event.y = inputData.getCursorY();
+					event.mods = inputData.getMods();
+					event.scrollX = (float) xoffset;
+					event.scrollY = (float) yoffset;
+					distributor.mouseScrolled(event);
+				} catch (Exception e) {
+					Logs.e(e);
+				}
+			}
+		}.set(window);
 		closeCallback = new GLFWWindowCloseCallback() {
 			@Override
 			public void invoke(long window) {
@@ -372,6 +465,10 @@ public class Window {
 			@Override
 			public void invoke(long window, int width_, int height_) {
 				try {
+					windowWidth = width_;
+					windowHeight = height_;
+					//the framebuffer size callback isn't guaranteed to have been called yet
+					updateFramebufferSize();
 					if (width_ != 0 && height_ != 0) {
 						if (!isFullscreen()) {
 							width = width_;
@@ -403,6 +500,7 @@ public class Window {
 		framebufferSizeCallback.free();
 		keyCallback.free();
 		mouseButtonCallback.free();
+		scrollCallback.free();
 		closeCallback.free();
 		focusCallback.free();
 		iconifyCallback.free();
@@ -617,6 +715,8 @@ public class Window {
 
 			GLFW.glfwSwapInterval(vsync ? 1 : 0);
 		}
+		updateWindowSize();
+		updateFramebufferSize();
 
 		PostResizeEvent event = new PostResizeEvent();
 		event.width = width;
@@ -681,6 +781,14 @@ public class Window {
 		this.title = title;
 	}
 
+	/**
+	 * Get the input data
+	 * @return The input data
+	 */
+	public InputData getInputData() {
+		return inputData;
+	}
+
 	/**
 	 * Get the event distributor
 	 * @return The event distributor
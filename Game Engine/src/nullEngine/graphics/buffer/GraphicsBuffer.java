@@ -22,7 +22,7 @@ public class GraphicsBuffer extends ManagedResource {
 	/**
 	 * The lowest index that needs to be updated
 	 */
-	protected int dirtyMin = 0;
+	protected int dirtyMin = Integer.MAX_VALUE;
 	/**
 	 * The highest index that needs to be updated
 	 */
@@ -88,7 +88,8 @@ public class GraphicsBuffer extends ManagedResource {
 		} else if (dirtyMax > dirtyMin) {
 			bind();
 			GL15.nglBufferSubData(target, dirtyMin, dirtyMax - dirtyMin, MemoryUtil.memAddress(data) + dirtyMin);
-			dirtyMin = dirtyMax = 0;
+			dirtyMin = Integer.MAX_VALUE;
+			dirtyMax = 0;
 		}
 	}
 
@@ -99,7 +100,8 @@ public class GraphicsBuffer extends ManagedResource {
 		bind();
 		GL15.glBufferData(target, data, dataHint);
 		bufferSize = capacity;
-		dirtyMin = dirtyMax = 0;
+		dirtyMin = Integer.MAX_VALUE;
+		dirtyMax = 0;
 	}
 
 	/**
@@ -110,17 +112,29 @@ public class GraphicsBuffer extends ManagedResource {
 		if (data == null) {
 			data = MemoryUtil.memAlloc(newCapacity);
 		} else {
-			ByteBuffer newData = MemoryUtil.memRealloc(data, newCapacity);
-			if (data != null && MemoryUtil.memAddress(newData) != MemoryUtil.memAddress(data)) {
-				MemoryUtil.memFree(data);
-				data = newData;
-			}
+			data = MemoryUtil.memRealloc(data, newCapacity);
 		}
 		if (capacity > newCapacity)
 			bufferSize = 0;
 		capacity = newCapacity;
 	}
 
+	/**
+	 * Free the data of the buffer, the buffer can still be used afterwards
+	 */
+	public void clear() {
+		if (data != null) {
+			MemoryUtil.memFree(data);
+			data = null;
+		}
+		capacity = 0;
+		bufferSize = 0;
+		dirtyMin = Integer.MAX_VALUE;
+		dirtyMax = 0;
+		bind();
+		GL15.glBufferData(target, 0, dataHint);
+	}
+
 	/**
 	 * Set the minumum size of the buffer
 	 * @param minCapacity The minimum size
@@ -1,5 +1,6 @@
 package nullEngine.graphics.buffer;
 
+import math.Matrix4f;
 import nullEngine.util.Buffers;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL15;
@@ -40,6 +41,34 @@ public class VertexBuffer extends GraphicsBuffer {
 		dirtyMax = Math.max((offset + 1) * Sizeof.FLOAT, dirtyMax);
 	}
 
+	/**
+	 * Set a matrix as four consecutive column vectors, the layout of a mat4 vertex attribute
+	 * @param mat The matrix
+	 * @param offsetInBytes The offset
+	 */
+	public void set(Matrix4f mat, int offsetInBytes) {
+		setMinSize(offsetInBytes + 16 * Sizeof.FLOAT);
+		long address = MemoryUtil.memAddress(data) + offsetInBytes;
+		MemoryUtil.memPutFloat(address, mat.m00);
+		MemoryUtil.memPutFloat(address + 4, mat.m01);
+		MemoryUtil.memPutFloat(address + 8, mat.m02);
+		MemoryUtil.memPutFloat(address + 12, mat.m03);
+		MemoryUtil.memPutFloat(address + 16, mat.m10);
+		MemoryUtil.memPutFloat(address + 20, mat.m11);
+		MemoryUtil.memPutFloat(address + 24, mat.m12);
+		MemoryUtil.memPutFloat(address + 28, mat.m13);
+		MemoryUtil.memPutFloat(address + 32, mat.m20);
+		MemoryUtil.memPutFloat(address + 36, mat.m21);
+		MemoryUtil.memPutFloat(address + 40, mat.m22);
+		MemoryUtil.memPutFloat(address + 44, mat.m23);
+		MemoryUtil.memPutFloat(address + 48, mat.m30);
+		MemoryUtil.memPutFloat(address + 52, mat.m31);
+		MemoryUtil.memPutFloat(address + 56, mat.m32);
+		MemoryUtil.memPutFloat(address + 60, mat.m33);
+		dirtyMin = Math.min(offsetInBytes, dirtyMin);
+		dirtyMax = Math.max(offsetInBytes + 16 * Sizeof.FLOAT, dirtyMax);
+	}
+
 	/**
 	 * Set a range
 	 * @param buf The buffer
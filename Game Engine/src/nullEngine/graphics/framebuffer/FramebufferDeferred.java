@@ -129,6 +129,14 @@ public class FramebufferDeferred {
 	 * Render this framebuffer
 	 */
 	public void render() {
+		bindTextures();
+		Quad.get().render();
+	}
+
+	/**
+	 * Bind the color, position, normal and specular textures to texture units 0 to 3
+	 */
+	public void bindTextures() {
 		GL13.glActiveTexture(GL13.GL_TEXTURE0);
 		GL11.glBindTexture(GL11.GL_TEXTURE_2D, colorTextureID);
 		GL13.glActiveTexture(GL13.GL_TEXTURE1);
@@ -137,7 +145,6 @@ public class FramebufferDeferred {
 		GL11.glBindTexture(GL11.GL_TEXTURE_2D, normalTextureID);
 		GL13.glActiveTexture(GL13.GL_TEXTURE3);
 		GL11.glBindTexture(GL11.GL_TEXTURE_2D, specularTextureID);
-		Quad.get().render();
 	}
 
 	/**
@@ -0,0 +1,105 @@
+package nullEngine.graphics.model;
+
+import nullEngine.loading.Loader;
+
+/**
+ * Unit meshes that bound the area lit by a light, used to only shade the pixels a light can reach
+ */
+public class LightVolumes {
+
+	private static final int SPHERE_SLICES = 16;
+	private static final int SPHERE_STACKS = 12;
+	private static final int CONE_SEGMENTS = 16;
+
+	private static Model sphere;
+	private static Model cone;
+
+	/**
+	 * Create the light volume meshes
+	 * @param loader The loader
+	 */
+	public static void setup(Loader loader) {
+		sphere = createSphere(loader);
+		cone = createCone(loader);
+	}
+
+	/**
+	 * Get a sphere that encloses the unit sphere
+	 * @return The sphere
+	 */
+	public static Model getSphere() {
+		return sphere;
+	}
+
+	/**
+	 * Get a cone with its apex at the origin that encloses the circle of radius 1 at z = 1
+	 * @return The cone
+	 */
+	public static Model getCone() {
+		return cone;
+	}
+
+	private static Model createSphere(Loader loader) {
+		// the faces are flat so push the vertices out until the faces enclose the unit sphere
+		float scale = (float) (1 / (Math.cos(Math.PI / SPHERE_SLICES) * Math.cos(Math.PI / SPHERE_STACKS)));
+		int ring = SPHERE_SLICES + 1;
+		float[] vertices = new float[(SPHERE_STACKS + 1) * ring * 3];
+		int v = 0;
+		for (int i = 0; i <= SPHERE_STACKS; i++) {
+			double phi = Math.PI * i / SPHERE_STACKS;
+			for (int j = 0; j <= SPHERE_SLICES; j++) {
+				double theta = 2 * Math.PI * j / SPHERE_SLICES;
+				vertices[v++] = (float) (Math.sin(phi) * Math.cos(theta)) * scale;
+				vertices[v++] = (float) Math.cos(phi) * scale;
+				vertices[v++] = (float) (Math.sin(phi) * Math.sin(theta)) * scale;
+			}
+		}
+
+		int[] indices = new int[SPHERE_STACKS * SPHERE_SLICES * 6];
+		int idx = 0;
+		for (int i = 0; i < SPHERE_STACKS; i++) {
+			for (int j = 0; j < SPHERE_SLICES; j++) {
+				int a = i * ring + j;
+				int b = a + ring;
+				int c = a + 1;
+				int d = b + 1;
+				indices[idx++] = a;
+				indices[idx++] = c;
+				indices[idx++] = b;
+				indices[idx++] = c;
+				indices[idx++] = d;
+				indices[idx++] = b;
+			}
+		}
+
+		return loader.loadModel(vertices, new float[vertices.length / 3 * 2], vertices, indices);
+	}
+
+	private static Model createCone(Loader loader) {
+		float scale = (float) (1 / Math.cos(Math.PI / CONE_SEGMENTS));
+		float[] vertices = new float[(CONE_SEGMENTS + 2) * 3];
+		// vertex 0 is the apex, vertex 1 the center of the base
+		vertices[5] = 1;
+		for (int i = 0; i < CONE_SEGMENTS; i++) {
+			double theta = 2 * Math.PI * i / CONE_SEGMENTS;
+			vertices[6 + i * 3] = (float) Math.cos(theta) * scale;
+			vertices[7 + i * 3] = (float) Math.sin(theta) * scale;
+			vertices[8 + i * 3] = 1;
+		}
+
+		int[] indices = new int[CONE_SEGMENTS * 6];
+		int idx = 0;
+		for (int i = 0; i < CONE_SEGMENTS; i++) {
+			int current = 2 + i;
+			int next = 2 + (i + 1) % CONE_SEGMENTS;
+			indices[idx++] = 0;
+			indices[idx++] = next;
+			indices[idx++] = current;
+			indices[idx++] = 1;
+			indices[idx++] = current;
+			indices[idx++] = next;
+		}
+
+		return loader.loadModel(vertices, new float[vertices.length / 3 * 2], vertices, indices);
+	}
+}
@@ -6,6 +6,7 @@ import nullEngine.managing.ManagedResource;
 import nullEngine.util.logs.Logs;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
 import util.Sizeof;
 
 import java.util.ArrayList;
@@ -16,11 +17,17 @@ import java.util.Collection;
  */
 public class Model extends ManagedResource {
 
+	/**
+	 * The first attribute of the per instance model matrix, which takes four attributes
+	 */
+	public static final int INSTANCE_MATRIX_ATTRIB = 8;
+
 	private static final ArrayList<Model> models = new ArrayList<Model>();
 	private static int currentModelID = 0;
 	private int modelID;
 
 	private int vaoID;
+	private int instancedVaoID = 0;
 	private int[] vertexCounts;
 	private int[] vertexOffsets;
 	private IndexBuffer ibo;
@@ -132,6 +139,15 @@ public class Model extends ManagedResource {
 		GL11.glDrawElements(GL11.GL_TRIANGLES, vertexCounts[lod], GL11.GL_UNSIGNED_INT, vertexOffsets[lod] * Sizeof.INT);
 	}
 
+	/**
+	 * Render several instances of the model without binding the model
+	 * @param lod The level of detail
+	 * @param instances The number of instances
+	 */
+	public void lazyRenderInstanced(int lod, int instances) {
+		GL31.glDrawElementsInstanced(GL11.GL_TRIANGLES, vertexCounts[lod], GL11.GL_UNSIGNED_INT, vertexOffsets[lod] * Sizeof.INT, instances);
+	}
+
 	/**
 	 * Bind the model
 	 */
@@ -142,6 +158,27 @@ public class Model extends ManagedResource {
 			attrib.update();
 	}
 
+	/**
+	 * Bind the instanced vertex array of the model, the per instance attribute has to be bound to
+	 * {@link #INSTANCE_MATRIX_ATTRIB} afterwards
+	 */
+	public void preRenderInstanced() {
+		if (instancedVaoID == 0) {
+			instancedVaoID = GL30.glGenVertexArrays();
+			GL30.glBindVertexArray(instancedVaoID);
+			ibo.bind();
+			int attribIdx = 0;
+			for (VertexAttribPointer attrib : attribs) {
+				attribIdx = attrib.bind(attribIdx);
+			}
+		} else {
+			GL30.glBindVertexArray(instancedVaoID);
+		}
+		ibo.update();
+		for (VertexAttribPointer attrib : attribs)
+			attrib.update();
+	}
+
 	/**
 	 * Unbind the model
 	 */
@@ -183,11 +220,14 @@ public class Model extends ManagedResource {
 	@Override
 	public boolean delete() {
 		GL30.glDeleteVertexArrays(vaoID);
+		if (instancedVaoID != 0)
+			GL30.glDeleteVertexArrays(instancedVaoID);
 		models.remove(this);
 		return true;
 	}
 
 	private void recreate() {
+		instancedVaoID = 0;
 		vaoID = GL30.glGenVertexArrays();
 		GL30.glBindVertexArray(vaoID);
 
@@ -67,6 +67,14 @@ public class VertexAttribPointer extends ManagedResource {
 		this.instanced = instanced;
 	}
 
+	/**
+	 * Set the offset, takes effect the next time this attrib is bound
+	 * @param offset The offset in bytes
+	 */
+	public void setOffset(long offset) {
+		this.offset = offset;
+	}
+
 	/**
 	 * Create an attrib pointer for vec2
 	 * @param vbo The vertex buffer
@@ -6,6 +6,7 @@ import nullEngine.graphics.framebuffer.Framebuffer2D;
 import nullEngine.graphics.model.Quad;
 import nullEngine.graphics.shader.postfx.PostFXShader;
 import nullEngine.input.PostResizeEvent;
+import nullEngine.util.profiler.FrameProfiler;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
 
@@ -20,6 +21,7 @@ public abstract class PostFX implements PostFXOutput {
 	private PostFXOutput[] inputs;
 
 	private boolean renderedThisFrame = false;
+	private final String profileName = getClass().getSimpleName();
 
 	/**
 	 * The framebuffer
@@ -81,6 +83,7 @@ public abstract class PostFX implements PostFXOutput {
 			for (PostFXOutput input : inputs) {
 				input.render(viewMatrix);
 			}
+			FrameProfiler.beginGpu(profileName);
 			for (int i = 0; i < inputs.length; i++) {
 				GL13.glActiveTexture(GL13.GL_TEXTURE0 + i);
 				GL11.glBindTexture(GL11.GL_TEXTURE_2D, inputs[i].getTextureID());
@@ -90,6 +93,7 @@ public abstract class PostFX implements PostFXOutput {
 			updateUniforms(shader);
 			buffer.bind();
 			Quad.get().lazyRender(0);
+			FrameProfiler.end();
 		}
 	}
 
@@ -1,18 +1,22 @@
 package nullEngine.graphics.renderer;
 
 import com.sun.istack.internal.NotNull;
+import math.Frustum;
 import math.Matrix4f;
 import math.Vector4f;
 import nullEngine.control.Application;
 import nullEngine.control.layer.Layer;
 import nullEngine.graphics.Material;
 import nullEngine.graphics.buffer.PixelPackBuffer;
+import nullEngine.graphics.buffer.VertexBuffer;
 import nullEngine.graphics.framebuffer.Framebuffer2D;
 import nullEngine.graphics.framebuffer.Framebuffer2DHDR;
 import nullEngine.graphics.framebuffer.FramebufferDeferred;
 import nullEngine.graphics.framebuffer.FramebufferMousePick;
+import nullEngine.graphics.model.LightVolumes;
 import nullEngine.graphics.model.Model;
 import nullEngine.graphics.model.Quad;
+import nullEngine.graphics.model.VertexAttribPointer;
 import nullEngine.graphics.postfx.PostFXOutput;
 import nullEngine.graphics.postfx.TextureOutput;
 import nullEngine.graphics.shader.GammaShader;
@@ -36,11 +40,14 @@ import nullEngine.object.component.graphics.light.DirectionalLight;
 import nullEngine.object.component.graphics.light.PointLight;
 import nullEngine.object.component.graphics.light.SpotLight;
 import nullEngine.util.logs.Logs;
+import nullEngine.util.profiler.FrameProfiler;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.opengl.GL32;
 import util.BitFieldInt;
+import util.Sizeof;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -85,6 +92,18 @@ public class DeferredRenderer extends Renderer {
 
 	private boolean wireframe = false;
 
+	/**
+	 * The light level below which a pixel is left outside a light's volume
+	 */
+	public static final float LIGHT_VOLUME_CUTOFF = 1 / 256f;
+	/**
+	 * Spot lights wider than this cosine are drawn with a sphere instead of a cone
+	 */
+	private static final float MIN_CONE_CUTOFF = 0.2f;
+	private boolean lightVolumes = true;
+	private Matrix4f lightVolumeMatrix = new Matrix4f();
+	private Matrix4f lightVolumeMVP = new Matrix4f();
+
 	private PostFXOutput postFX;
 	private TextureOutput colorOutput;
 	private TextureOutput positionOutput;
@@ -96,6 +115,25 @@ public class DeferredRenderer extends Renderer {
 	private BitFieldInt flags;
 	private List<ModelComponent> orderedMousePickModels = new ArrayList<>();
 
+	private DrawCommandList drawCommands = new DrawCommandList();
+	private Matrix4f viewProjection = new Matrix4f();
+	private Frustum frustum = new Frustum();
+	private RenderStats frameStats = new RenderStats();
+	private RenderStats lastFrameStats = new RenderStats();
+
+	/**
+	 * The minimum number of draws sharing a model, level of detail and material to draw them instanced
+	 */
+	public static final int MIN_INSTANCES = 2;
+	private static final int INSTANCE_STRIDE = 16 * Sizeof.FLOAT;
+	private static final int INITIAL_INSTANCE_CAPACITY = 256;
+	private boolean instancing = true;
+	private VertexAttribPointer instanceAttrib;
+	private ModelMatrixShader boundShader;
+	private Material boundMaterial;
+	private Model boundModel;
+	private boolean boundInstanced;
+
 	/**
 	 * Create a new deferred renderer
 	 *
@@ -177,8 +215,10 @@ public class DeferredRenderer extends Renderer {
 	@Override
 	public void postRender(BitFieldInt flags) {
 		boolean rendered = false;
+		frameStats.reset();
 		if (flags.get(Layer.DEFERRED_RENDER_BIT)) {
 			rendered = true;
+			FrameProfiler.beginGpu("geometry");
 			dataBuffer.bind();
 			GL11.glEnable(GL11.GL_DEPTH_TEST);
 			GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
@@ -186,56 +226,50 @@ public class DeferredRenderer extends Renderer {
 			if (wireframe) {
 				GL11.glPolygonMode(GL11.GL_FRONT_AND_BACK, GL11.GL_LINE);
 			}
-			for (Map.Entry<Material, List<ModelComponent>> components : models.entrySet()) {
-				shader = (ModelMatrixShader) components.getKey().getShader(Material.DEFERRED_SHADER_INDEX);
-				shader.bind();
-				shader.loadMaterial(components.getKey());
-
-				for (ModelComponent component : components.getValue()) {
-					renderModel(components.getKey(), component, Layer.DEFERRED_RENDER_BIT);
-				}
-			}
+			queueModels(Material.DEFERRED_SHADER_INDEX, Layer.DEFERRED_RENDER_BIT);
+			drawQueuedModels(Layer.DEFERRED_RENDER_BIT);
 			if (wireframe) {
 				GL11.glPolygonMode(GL11.GL_FRONT_AND_BACK, GL11.GL_FILL);
 			}
 
 			GL11.glDisable(GL11.GL_DEPTH_TEST);
+			FrameProfiler.end();
 
+			FrameProfiler.beginGpu("lighting");
 			renderLight();
+			FrameProfiler.end();
 
 			Quad.get().preRender();
 
 			if (hdrBuffer != null) {
+				FrameProfiler.beginGpu("hdr");
 				renderHDR();
+				FrameProfiler.end();
 			}
 
+			FrameProfiler.begin("postfx");
 			int out = renderPostFX();
+			FrameProfiler.end();
 
+			FrameProfiler.beginGpu("output");
 			renderToTarget(out);
+			FrameProfiler.end();
 			Quad.get().postRender();
 		}
 		if (flags.get(Layer.MOUSE_PICK_RENDER_BIT)) {
 			rendered = true;
+			FrameProfiler.beginGpu("mouse pick");
 			mousePickBuffer.bind();
 			GL11.glEnable(GL11.GL_DEPTH_TEST);
 			GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
 			orderedMousePickModels = new ArrayList<>(orderedMousePickModels.size());
 
-			for (Map.Entry<Material, List<ModelComponent>> components : models.entrySet()) {
-				shader = (MousePickShader) components.getKey().getShader(Material.MOUSE_PICKING_SHADER_INDEX);
-				shader.bind();
-				shader.loadMaterial(components.getKey());
-
-				for (ModelComponent component : components.getValue()) {
-					orderedMousePickModels.add(component);
-					((MousePickShader) shader).loadIdToColor(orderedMousePickModels.size());
-					renderModel(components.getKey(), component, Layer.MOUSE_PICK_RENDER_BIT);
-				}
-
-			}
+			queueModels(Material.MOUSE_PICKING_SHADER_INDEX, Layer.MOUSE_PICK_RENDER_BIT);
+			drawQueuedModels(Layer.MOUSE_PICK_RENDER_BIT);
 
 			GL11.glDisable(GL11.GL_DEPTH_TEST);
 			mousePickBuffer.unbind();
+			FrameProfiler.end();
 		}
 
 		if (mousePickRequests.size() > 0)
@@ -244,6 +278,7 @@ public class DeferredRenderer extends Renderer {
 		if (!rendered) {
 			Logs.w("No recognised flags passed to deferred renderer");
 		}
+		lastFrameStats.set(frameStats);
 	}
 
 	private void renderLight() {
@@ -272,24 +307,136 @@ public class DeferredRenderer extends Renderer {
 		if (pointLights.size() > 0) {
 			DeferredPointLightShader.INSTANCE.bind();
 			DeferredPointLightShader.INSTANCE.loadViewMatrix(viewMatrix);
+			DeferredPointLightShader.INSTANCE.loadScreenSize(dataBuffer.getWidth(), dataBuffer.getHeight());
 			for (PointLight light : pointLights) {
 				DeferredPointLightShader.INSTANCE.loadLight(light);
-				dataBuffer.render();
+				if (lightVolumes) {
+					float range = getLightRange(light.getLightColor(), light.getSquared(), light.getLinear(), light.getConstant());
+					renderLightVolume(DeferredPointLightShader.INSTANCE, light.getObject().getRenderMatrix(), range, -1);
+				} else {
+					DeferredPointLightShader.INSTANCE.loadMVP(Matrix4f.IDENTITY);
+					dataBuffer.render();
+				}
 			}
 		}
 
 		if (spotLights.size() > 0) {
 			DeferredSpotLightShader.INSTANCE.bind();
 			DeferredSpotLightShader.INSTANCE.loadViewMatrix(viewMatrix);
+			DeferredSpotLightShader.INSTANCE.loadScreenSize(dataBuffer.getWidth(), dataBuffer.getHeight());
 			for (SpotLight light : spotLights) {
 				DeferredSpotLightShader.INSTANCE.loadLight(light);
-				dataBuffer.render();
+				if (lightVolumes) {
+					float range = getLightRange(light.getLightColor(), light.getSquared(), light.getLinear(), light.getConstant());
+					renderLightVolume(DeferredSpotLightShader.INSTANCE, light.getObject().getRenderMatrix(), range, light.getCutoff());
+				} else {
+					DeferredSpotLightShader.INSTANCE.loadMVP(Matrix4f.IDENTITY);
+					dataBuffer.render();
+				}
 			}
 		}
 
 		GL11.glDisable(GL11.GL_BLEND);
 	}
 
+	/**
+	 * Get the distance at which a light's brightest channel falls below {@link #LIGHT_VOLUME_CUTOFF}
+	 */
+	private static float getLightRange(Vector4f color, float squared, float linear, float constant) {
+		float brightness = Math.max(color.x, Math.max(color.y, color.z)) / LIGHT_VOLUME_CUTOFF;
+		if (brightness <= constant)
+			return 0;
+		if (squared > 0)
+			return (float) (-linear + Math.sqrt(linear * linear - 4 * squared * (constant - brightness))) / (2 * squared);
+		if (linear > 0)
+			return (brightness - constant) / linear;
+		return Float.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Shade the pixels inside the volume of a light, the light shader has to be bound and loaded
+	 *
+	 * @param lightShader The bound light shader
+	 * @param lightMatrix The render matrix of the light
+	 * @param range       The distance the light reaches
+	 * @param cutoff      The cosine of the spot light angle or <code>-1</code> for a point light
+	 */
+	private void renderLightVolume(Shader lightShader, Matrix4f lightMatrix, float range, float cutoff) {
+		if (range <= 0)
+			return;
+		float x = lightMatrix.m30;
+		float y = lightMatrix.m31;
+		float z = lightMatrix.m32;
+		if (Float.isInfinite(range)) {
+			lightShader.loadMVP(Matrix4f.IDENTITY);
+			dataBuffer.render();
+			return;
+		}
+		if (!frustum.intersectsSphere(x, y, z, range))
+			return;
+
+		Model volume;
+		Matrix4f volumeMatrix = lightVolumeMatrix;
+		volumeMatrix.setIdentity();
+		volumeMatrix.m30 = x;
+		volumeMatrix.m31 = y;
+		volumeMatrix.m32 = z;
+		if (cutoff > MIN_CONE_CUTOFF) {
+			// same axis the spot light shader lights along
+			float ax = lightMatrix.m02;
+			float ay = lightMatrix.m12;
+			float az = lightMatrix.m22;
+			float len = (float) Math.sqrt(ax * ax + ay * ay + az * az);
+			ax /= len;
+			ay /= len;
+			az /= len;
+			// any vector not parallel to the axis gives the two sides of the cone
+			float ux, uy, uz;
+			if (Math.abs(ax) < 0.9f) {
+				ux = 0;
+				uy = az;
+				uz = -ay;
+			} else {
+				ux = -az;
+				uy = 0;
+				uz = ax;
+			}
+			len = (float) Math.sqrt(ux * ux + uy * uy + uz * uz);
+			ux /= len;
+			uy /= len;
+			uz /= len;
+			float vx = ay * uz - az * uy;
+			float vy = az * ux - ax * uz;
+			float vz = ax * uy - ay * ux;
+
+			float radius = range * (float) (Math.sqrt(1 - cutoff * cutoff) / cutoff);
+			volumeMatrix.m00 = ux * radius;
+			volumeMatrix.m01 = uy * radius;
+			volumeMatrix.m02 = uz * radius;
+			volumeMatrix.m10 = vx * radius;
+			volumeMatrix.m11 = vy * radius;
+			volumeMatrix.m12 = vz * radius;
+			volumeMatrix.m20 = ax * range;
+			volumeMatrix.m21 = ay * range;
+			volumeMatrix.m22 = az * range;
+			volume = LightVolumes.getCone();
+		} else {
+			volumeMatrix.m00 = range;
+			volumeMatrix.m11 = range;
+			volumeMatrix.m22 = range;
+			volume = LightVolumes.getSphere();
+		}
+
+		lightShader.loadMVP(Matrix4f.mul(viewProjection, volumeMatrix, lightVolumeMVP));
+		dataBuffer.bindTextures();
+		// only the back faces so every pixel is shaded once even when the camera is inside the volume
+		GL11.glCullFace(GL11.GL_FRONT);
+		GL11.glEnable(GL32.GL_DEPTH_CLAMP);
+		volume.render();
+		GL11.glDisable(GL32.GL_DEPTH_CLAMP);
+		GL11.glCullFace(GL11.GL_BACK);
+	}
+
 	private void renderHDR() {
 		lightBuffer.bind();
 		HDRShader.INSTANCE.bind();
@@ -325,18 +472,154 @@ public class DeferredRenderer extends Renderer {
 	}
 
 
-	private void renderModel(Material material, ModelComponent component, int renderMethod) {
+	private void queueModels(int shaderIndex, int renderMethod) {
+		drawCommands.clear();
+		frustum.set(Matrix4f.mul(projectionMatrix, viewMatrix, viewProjection));
+		for (Map.Entry<Material, List<ModelComponent>> components : models.entrySet()) {
+			Material material = components.getKey();
+			Shader materialShader = material.getShader(shaderIndex);
+			for (ModelComponent component : components.getValue()) {
+				queueModel(materialShader, material, component, renderMethod);
+			}
+		}
+		drawCommands.sort();
+	}
+
+	private void queueModel(Shader materialShader, Material material, ModelComponent component, int renderMethod) {
 		Model model = component.getModel(renderMethod);
 		if (model != null) {
-			setModelMatrix(component.getObject().getRenderMatrix());
-			Vector4f pos = viewMatrix.mul(modelMatrix, null).getPos(null);
-			float dist = pos.length();
-			float radius = modelMatrix.transform(new Vector4f(model.getRadius(), 0, 0, 0)).length();
-			if (dist - radius <= far || material.isAlwaysRender()) {
+			Matrix4f renderMatrix = component.getObject().getRenderMatrix();
+			float x = renderMatrix.m30;
+			float y = renderMatrix.m31;
+			float z = renderMatrix.m32;
+			float radius = model.getRadius() * Frustum.getMaxScale(renderMatrix);
+			if (material.isAlwaysRender() || frustum.intersectsSphere(x, y, z, radius)) {
+				float viewX = x * viewMatrix.m00 + y * viewMatrix.m10 + z * viewMatrix.m20 + viewMatrix.m30;
+				float viewY = x * viewMatrix.m01 + y * viewMatrix.m11 + z * viewMatrix.m21 + viewMatrix.m31;
+				float viewZ = x * viewMatrix.m02 + y * viewMatrix.m12 + z * viewMatrix.m22 + viewMatrix.m32;
+				float dist = (float) Math.sqrt(viewX * viewX + viewY * viewY + viewZ * viewZ);
 				int lod = component.getLod(dist, radius, renderMethod, model);
-				model.render(lod);
+				drawCommands.add(materialShader, material, model, lod, component);
+			}
+		}
+	}
+
+	private void drawQueuedModels(int renderMethod) {
+		boundShader = null;
+		boundMaterial = null;
+		boundModel = null;
+		int count = drawCommands.size();
+		boolean canInstance = instancing && count >= MIN_INSTANCES;
+		if (canInstance)
+			writeInstanceMatrices(count);
+
+		int start = 0;
+		while (start < count) {
+			Shader drawShader = drawCommands.getShader(start);
+			Material material = drawCommands.getMaterial(start);
+			Model model = drawCommands.getModel(start);
+			int lod = drawCommands.getLod(start);
+
+			int end = start + 1;
+			while (end < count && drawCommands.getModel(end) == model && drawCommands.getLod(end) == lod
+					&& drawCommands.getMaterial(end) == material && drawCommands.getShader(end) == drawShader)
+				end++;
+
+			ModelMatrixShader instancedShader = null;
+			if (canInstance && end - start >= MIN_INSTANCES)
+				instancedShader = ((ModelMatrixShader) drawShader).getInstancedShader();
+
+			if (instancedShader != null) {
+				if (bindDrawState(instancedShader, material))
+					shader.loadMVP(viewProjection);
+				if (model != boundModel || !boundInstanced) {
+					model.preRenderInstanced();
+					frameStats.vertexArrayBinds++;
+					boundModel = model;
+					boundInstanced = true;
+				}
+				instanceAttrib.setOffset((long) start * INSTANCE_STRIDE);
+				instanceAttrib.bind(Model.INSTANCE_MATRIX_ATTRIB);
+
+				if (renderMethod == Layer.MOUSE_PICK_RENDER_BIT) {
+					((MousePickShader) shader).loadIdToColor(orderedMousePickModels.size() + 1);
+					for (int i = start; i < end; i++)
+						orderedMousePickModels.add(drawCommands.getComponent(i));
+				}
+				model.lazyRenderInstanced(lod, end - start);
+				frameStats.drawCalls++;
+			} else {
+				bindDrawState((ModelMatrixShader) drawShader, material);
+				if (model != boundModel || boundInstanced) {
+					model.preRender();
+					frameStats.vertexArrayBinds++;
+					boundModel = model;
+					boundInstanced = false;
+				}
+				for (int i = start; i < end; i++) {
+					ModelComponent component = drawCommands.getComponent(i);
+					if (renderMethod == Layer.MOUSE_PICK_RENDER_BIT) {
+						orderedMousePickModels.add(component);
+						((MousePickShader) shader).loadIdToColor(orderedMousePickModels.size());
+					}
+					setModelMatrix(component.getObject().getRenderMatrix());
+					model.lazyRender(lod);
+					frameStats.drawCalls++;
+				}
 			}
+			start = end;
+		}
+		if (boundModel != null)
+			boundModel.postRender();
+		boundShader = null;
+		boundMaterial = null;
+		boundModel = null;
+		drawCommands.clear();
+	}
+
+	private boolean bindDrawState(ModelMatrixShader drawShader, Material material) {
+		boolean rebound = drawShader != boundShader;
+		if (rebound) {
+			shader = drawShader;
+			shader.bind();
+			frameStats.shaderBinds++;
+			boundShader = drawShader;
+			boundMaterial = null;
 		}
+		if (material != boundMaterial) {
+			shader.loadMaterial(material);
+			frameStats.materialBinds++;
+			boundMaterial = material;
+		}
+		return rebound;
+	}
+
+	private void writeInstanceMatrices(int count) {
+		if (instanceAttrib == null) {
+			VertexBuffer instanceBuffer = new VertexBuffer(INITIAL_INSTANCE_CAPACITY * INSTANCE_STRIDE);
+			instanceBuffer.setDataHint(GL15.GL_STREAM_DRAW);
+			instanceAttrib = VertexAttribPointer.createMat4AttribPointer(instanceBuffer);
+			instanceAttrib.setInstanced(true);
+		}
+		VertexBuffer instanceBuffer = instanceAttrib.getVertexBuffer();
+		int capacity = instanceBuffer.getCapacity();
+		if (capacity < count * INSTANCE_STRIDE) {
+			while (capacity < count * INSTANCE_STRIDE)
+				capacity *= 2;
+			instanceBuffer.setSize(capacity);
+		}
+		for (int i = 0; i < count; i++)
+			instanceBuffer.set(drawCommands.getComponent(i).getObject().getRenderMatrix(), i * INSTANCE_STRIDE);
+		instanceAttrib.update();
+	}
+
+	/**
+	 * Get the state changes made while drawing models in the last frame
+	 *
+	 * @return The stats of the last frame
+	 */
+	public RenderStats getRenderStats() {
+		return lastFrameStats;
 	}
 
 	/**
@@ -544,6 +827,7 @@ public class DeferredRenderer extends Renderer {
 	 */
 	@Override
 	public void preRender(BitFieldInt flags) {
+		FrameProfiler.begin("deferred preRender");
 		this.flags = flags;
 		if (hdr) {
 			if (hdrBuffer == null)
@@ -553,6 +837,7 @@ public class DeferredRenderer extends Renderer {
 			hdrBuffer = null;
 		}
 		componentOps.run(null, componentChangeCallback);
+		FrameProfiler.end();
 	}
 
 	/**
@@ -568,6 +853,8 @@ public class DeferredRenderer extends Renderer {
 			if (localPositionPbos[i] != null)
 				localPositionPbos[i].dispose();
 		}
+		if (instanceAttrib != null)
+			instanceAttrib.dispose();
 		dataBuffer.delete();
 		lightBuffer.delete();
 	}
@@ -658,6 +945,42 @@ public class DeferredRenderer extends Renderer {
 		this.wireframe = wireframe;
 	}
 
+	/**
+	 * Get wether point and spot lights only shade the pixels inside their light volumes
+	 *
+	 * @return Wether light volumes are enabled
+	 */
+	public boolean isLightVolumes() {
+		return lightVolumes;
+	}
+
+	/**
+	 * Set wether point and spot lights only shade the pixels inside their light volumes instead of the whole screen
+	 *
+	 * @param lightVolumes Wether light volumes are enabled
+	 */
+	public void setLightVolumes(boolean lightVolumes) {
+		this.lightVolumes = lightVolumes;
+	}
+
+	/**
+	 * Get wether draws sharing a model, level of detail and material are drawn instanced
+	 *
+	 * @return Wether instancing is enabled
+	 */
+	public boolean isInstancing() {
+		return instancing;
+	}
+
+	/**
+	 * Set wether draws sharing a model, level of detail and material are drawn instanced
+	 *
+	 * @param instancing Wether instancing is enabled
+	 */
+	public void setInstancing(boolean instancing) {
+		this.instancing = instancing;
+	}
+
 	/**
 	 * Get the color postfx output
 	 *
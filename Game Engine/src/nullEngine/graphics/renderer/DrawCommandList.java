@@ -0,0 +1,170 @@
+package nullEngine.graphics.renderer;
+
+import nullEngine.graphics.Material;
+import nullEngine.graphics.model.Model;
+import nullEngine.graphics.shader.Shader;
+import nullEngine.object.component.graphics.ModelComponent;
+import nullEngine.util.logs.Logs;
+
+import java.util.Arrays;
+
+/**
+ * A list of draws for a single frame, sorted by (shader, material, vertex array, level of detail) so that consecutive
+ * draws can skip state changes that are already in place.
+ * Each draw is stored as a 64 bit key with the sort fields in the high bits and the draw index in the low bits, so
+ * sorting is a single primitive sort with no allocation
+ */
+public class DrawCommandList {
+
+	private static final int INDEX_BITS = 20;
+	private static final int LOD_BITS = 4;
+	private static final int VAO_BITS = 16;
+	private static final int MATERIAL_BITS = 14;
+	private static final int SHADER_BITS = 10;
+
+	private static final int LOD_SHIFT = INDEX_BITS;
+	private static final int VAO_SHIFT = LOD_SHIFT + LOD_BITS;
+	private static final int MATERIAL_SHIFT = VAO_SHIFT + VAO_BITS;
+	private static final int SHADER_SHIFT = MATERIAL_SHIFT + MATERIAL_BITS;
+
+	/**
+	 * The maximum amount of draws in a single list
+	 */
+	public static final int MAX_COMMANDS = 1 << INDEX_BITS;
+
+	private long[] keys = new long[64];
+	private Shader[] shaders = new Shader[64];
+	private Material[] materials = new Material[64];
+	private Model[] models = new Model[64];
+	private ModelComponent[] components = new ModelComponent[64];
+	private int[] lods = new int[64];
+	private int size = 0;
+	private boolean overflowWarned = false;
+
+	/**
+	 * Remove all of the draws, keeps the storage for the next frame
+	 */
+	public void clear() {
+		Arrays.fill(shaders, 0, size, null);
+		Arrays.fill(materials, 0, size, null);
+		Arrays.fill(models, 0, size, null);
+		Arrays.fill(components, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Add a draw
+	 *
+	 * @param shader    The shader to draw with
+	 * @param material  The material to draw with
+	 * @param model     The model to draw
+	 * @param lod       The level of detail to draw
+	 * @param component The component being drawn
+	 */
+	public void add(Shader shader, Material material, Model model, int lod, ModelComponent component) {
+		if (size == MAX_COMMANDS) {
+			if (!overflowWarned) {
+				Logs.w("Too many draws in a single frame, only the first " + MAX_COMMANDS + " are drawn");
+				overflowWarned = true;
+			}
+			return;
+		}
+		if (size == keys.length)
+			grow();
+
+		keys[size] = key(shader.getShaderID(), material.getMaterialID(), model.getVaoID(), lod) | size;
+		shaders[size] = shader;
+		materials[size] = material;
+		models[size] = model;
+		lods[size] = lod;
+		components[size] = component;
+		size++;
+	}
+
+	/**
+	 * Sort the draws so that draws sharing state are next to each other
+	 */
+	public void sort() {
+		Arrays.sort(keys, 0, size);
+	}
+
+	/**
+	 * Get the amount of draws
+	 *
+	 * @return The amount of draws
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the shader of a draw
+	 *
+	 * @param i The position of the draw in sorted order
+	 * @return The shader
+	 */
+	public Shader getShader(int i) {
+		return shaders[index(i)];
+	}
+
+	/**
+	 * Get the material of a draw
+	 *
+	 * @param i The position of the draw in sorted order
+	 * @return The material
+	 */
+	public Material getMaterial(int i) {
+		return materials[index(i)];
+	}
+
+	/**
+	 * Get the model of a draw
+	 *
+	 * @param i The position of the draw in sorted order
+	 * @return The model
+	 */
+	public Model getModel(int i) {
+		return models[index(i)];
+	}
+
+	/**
+	 * Get the level of detail of a draw
+	 *
+	 * @param i The position of the draw in sorted order
+	 * @return The level of detail
+	 */
+	public int getLod(int i) {
+		return lods[index(i)];
+	}
+
+	/**
+	 * Get the component of a draw
+	 *
+	 * @param i The position of the draw in sorted order
+	 * @return The component
+	 */
+	public ModelComponent getComponent(int i) {
+		return components[index(i)];
+	}
+
+	private int index(int i) {
+		return (int) (keys[i] & (MAX_COMMANDS - 1));
+	}
+
+	private static long key(int shader, int material, int vao, int lod) {
+		return ((long) (shader & ((1 << SHADER_BITS) - 1)) << SHADER_SHIFT)
+				| ((long) (material & ((1 << MATERIAL_BITS) - 1)) << MATERIAL_SHIFT)
+				| ((long) (vao & ((1 << VAO_BITS) - 1)) << VAO_SHIFT)
+				| ((long) Math.min(lod, (1 << LOD_BITS) - 1) << LOD_SHIFT);
+	}
+
+	private void grow() {
+		int capacity = Math.min(keys.length * 2, MAX_COMMANDS);
+		keys = Arrays.copyOf(keys, capacity);
+		shaders = Arrays.copyOf(shaders, capacity);
+		materials = Arrays.copyOf(materials, capacity);
+		models = Arrays.copyOf(models, capacity);
+		components = Arrays.copyOf(components, capacity);
+		lods = Arrays.copyOf(lods, capacity);
+	}
+}
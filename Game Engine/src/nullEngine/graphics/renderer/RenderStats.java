@@ -0,0 +1,51 @@
+package nullEngine.graphics.renderer;
+
+/**
+ * Counts of the state changes made while drawing a frame
+ */
+public class RenderStats {
+
+	/**
+	 * The amount of shader binds
+	 */
+	public int shaderBinds;
+	/**
+	 * The amount of material uploads
+	 */
+	public int materialBinds;
+	/**
+	 * The amount of vertex array binds
+	 */
+	public int vertexArrayBinds;
+	/**
+	 * The amount of draw calls
+	 */
+	public int drawCalls;
+
+	/**
+	 * Set all of the counts to 0
+	 */
+	public void reset() {
+		shaderBinds = 0;
+		materialBinds = 0;
+		vertexArrayBinds = 0;
+		drawCalls = 0;
+	}
+
+	/**
+	 * Copy the counts from other stats
+	 *
+	 * @param stats The stats to copy
+	 */
+	public void set(RenderStats stats) {
+		shaderBinds = stats.shaderBinds;
+		materialBinds = stats.materialBinds;
+		vertexArrayBinds = stats.vertexArrayBinds;
+		drawCalls = stats.drawCalls;
+	}
+
+	@Override
+	public String toString() {
+		return "RenderStats(shaders: " + shaderBinds + ", materials: " + materialBinds + ", vertex arrays: " + vertexArrayBinds + ", draws: " + drawCalls + ")";
+	}
+}
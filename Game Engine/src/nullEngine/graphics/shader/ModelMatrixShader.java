@@ -1,5 +1,6 @@
 package nullEngine.graphics.shader;
 
+import com.sun.istack.internal.Nullable;
 import math.Matrix4f;
 
 /**
@@ -33,4 +34,13 @@ public abstract class ModelMatrixShader extends Shader {
 	public void loadModelMatrix(Matrix4f modelMatrix) {
 		loadMat4(location_modelMatrix, modelMatrix);
 	}
+
+	/**
+	 * Get the shader that draws the same as this shader but reads the model matrix from a per instance attribute
+	 * @return The instanced shader or <code>null</code> if this shader can't be instanced
+	 */
+	@Nullable
+	public ModelMatrixShader getInstancedShader() {
+		return null;
+	}
 }
@@ -0,0 +1,213 @@
+package nullEngine.graphics.shader;
+
+import nullEngine.util.logs.Logs;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL41;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Stores linked shader programs on disk so they don't have to be compiled again on the next start, programs are keyed
+ * by a hash of their expanded source and the driver so a changed shader or driver update compiles them again
+ */
+public class ProgramBinaryCache {
+
+	private static File cacheFolder = new File("cache/shaders");
+	private static boolean enabled = true;
+	private static Boolean supported;
+	private static String driver;
+
+	/**
+	 * Get a key for a program
+	 *
+	 * @param parts Everything that affects the compiled program, like the expanded sources and bound attributes
+	 * @return The key or <code>null</code> if the cache is disabled or not supported
+	 */
+	public static String getKey(String... parts) {
+		if (!enabled || !isSupported())
+			return null;
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(driver.getBytes(StandardCharsets.UTF_8));
+			for (String part : parts) {
+				digest.update((byte) 0);
+				if (part != null)
+					digest.update(part.getBytes(StandardCharsets.UTF_8));
+			}
+			StringBuilder key = new StringBuilder();
+			for (byte b : digest.digest())
+				key.append(String.format("%02x", b));
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			Logs.e(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Load a cached program
+	 *
+	 * @param program The program to load the binary into
+	 * @param key     The key of the program or <code>null</code>
+	 * @return <code>true</code> if the program was loaded and linked successfully
+	 */
+	public static boolean load(int program, String key) {
+		if (key == null)
+			return false;
+		File file = getFile(key);
+		if (!file.isFile())
+			return false;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			// too short to hold the format, treat it like a miss
+			if (size < 4 || size > Integer.MAX_VALUE) {
+				Logs.w("Cached shader program " + file + " is malformed");
+			} else {
+				ByteBuffer buf = BufferUtils.createByteBuffer((int) size);
+				while (buf.hasRemaining() && channel.read(buf) > 0) ;
+				buf.flip();
+				int format = buf.order(ByteOrder.LITTLE_ENDIAN).getInt();
+				GL41.glProgramBinary(program, format, buf.slice());
+				if (GL20.glGetProgrami(program, GL20.GL_LINK_STATUS) == GL11.GL_TRUE)
+					return true;
+			}
+		} catch (IOException | RuntimeException e) {
+			Logs.w("Failed to read cached shader program " + file + ": " + e);
+		}
+
+		// the driver rejected it or the file is malformed, it will be compiled and saved again
+		file.delete();
+		return false;
+	}
+
+	/**
+	 * Save a linked program, the program should have been linked with
+	 * {@link GL41#GL_PROGRAM_BINARY_RETRIEVABLE_HINT} set
+	 *
+	 * @param program The program
+	 * @param key     The key of the program or <code>null</code>
+	 */
+	public static void save(int program, String key) {
+		if (key == null)
+			return;
+		int length = GL20.glGetProgrami(program, GL41.GL_PROGRAM_BINARY_LENGTH);
+		if (length <= 0)
+			return;
+
+		ByteBuffer buf = BufferUtils.createByteBuffer(length + 4).order(ByteOrder.LITTLE_ENDIAN);
+		IntBuffer lengthBuf = BufferUtils.createIntBuffer(1);
+		IntBuffer formatBuf = BufferUtils.createIntBuffer(1);
+		buf.position(4);
+		GL41.glGetProgramBinary(program, lengthBuf, formatBuf, buf);
+		buf.putInt(0, formatBuf.get(0));
+		buf.position(0).limit(lengthBuf.get(0) + 4);
+
+		File file = getFile(key);
+		try {
+			if (!cacheFolder.isDirectory())
+				Files.createDirectories(cacheFolder.toPath());
+			// write to a temporary file first so a crash can't leave half a binary behind
+			File temp = new File(file.getPath() + ".tmp");
+			try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				while (buf.hasRemaining())
+					channel.write(buf);
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Logs.w("Failed to cache shader program " + file + ": " + e);
+		}
+	}
+
+	/**
+	 * Set wether programs should be hinted as retrievable before they are linked
+	 *
+	 * @param program The program
+	 * @param key     The key of the program or <code>null</code>
+	 */
+	public static void prepare(int program, String key) {
+		if (key != null)
+			GL41.glProgramParameteri(program, GL41.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11.GL_TRUE);
+	}
+
+	/**
+	 * Get wether the driver can save and load program binaries, must be called with a context current
+	 *
+	 * @return <code>true</code> if program binaries are supported
+	 */
+	public static boolean isSupported() {
+		if (supported == null) {
+			GLCapabilities capabilities = GL.getCapabilities();
+			supported = (capabilities.OpenGL41 || capabilities.GL_ARB_get_program_binary)
+					&& GL11.glGetInteger(GL41.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+			driver = GL11.glGetString(GL11.GL_VENDOR) + "\n" + GL11.glGetString(GL11.GL_RENDERER) + "\n" + GL11.glGetString(GL11.GL_VERSION);
+		}
+		return supported;
+	}
+
+	/**
+	 * Delete every cached program
+	 */
+	public static void clear() {
+		File[] files = cacheFolder.listFiles();
+		if (files != null)
+			for (File file : files)
+				if (file.getName().endsWith(".bin"))
+					file.delete();
+	}
+
+	private static File getFile(String key) {
+		return new File(cacheFolder, key + ".bin");
+	}
+
+	/**
+	 * Set the folder cached programs are stored in
+	 *
+	 * @param cacheFolder The folder
+	 */
+	public static void setCacheFolder(String cacheFolder) {
+		ProgramBinaryCache.cacheFolder = new File(cacheFolder);
+	}
+
+	/**
+	 * Get the folder cached programs are stored in
+	 *
+	 * @return The folder
+	 */
+	public static File getCacheFolder() {
+		return cacheFolder;
+	}
+
+	/**
+	 * Set wether compiled programs should be cached
+	 *
+	 * @param enabled Wether the cache is used
+	 */
+	public static void setEnabled(boolean enabled) {
+		ProgramBinaryCache.enabled = enabled;
+	}
+
+	/**
+	 * Get wether compiled programs are cached
+	 *
+	 * @return Wether the cache is used
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+}
@@ -14,9 +14,10 @@ import org.lwjgl.opengl.GL32;
 
 import java.io.FileNotFoundException;
 import java.nio.FloatBuffer;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,23 +27,39 @@ import java.util.regex.Pattern;
 public abstract class Shader {
 
 	private static Shader current = null;
+	private static int nextShaderID = 0;
+
+	// expanded sources are the same for every shader that includes them so they are only read and scanned once
+	private static final Map<String, String> longSources = new ConcurrentHashMap<>();
+	private static final Map<String, String> sources = new ConcurrentHashMap<>();
+	private static final Map<String, String> blockIncludes = new ConcurrentHashMap<>();
 
 	private static final Pattern GLOBAL_INCLUDE_PATTERN = Pattern.compile("\\s*#include\\s*\"(.*?)\"\\s*");
 	private static final Pattern LOCAL_INCLUDE_PATTERN = Pattern.compile("\\s*#include\\s*<(.*?)>\\s*");
-	private HashMap<String, Integer> userFloats = new HashMap<>();
-	private HashMap<String, Integer> userVectors = new HashMap<>();
-	private HashMap<String, Integer> userTextures = new HashMap<>();
+	// material parameters as material slots and uniform locations, the last values are kept so unchanged uniforms
+	// aren't uploaded again when the next material is bound
+	private int[] userFloatSlots = new int[0];
+	private int[] userFloatLocations = new int[0];
+	private float[] userFloatValues = new float[0];
+	private int[] userVectorSlots = new int[0];
+	private int[] userVectorLocations = new int[0];
+	private float[] userVectorValues = new float[0];
+	private int[] userTextureSlots = new int[0];
+	private int[] userTextureLocations = new int[0];
+	private boolean userTexturesLoaded = false;
 
 	private int program;
+	// stay 0 and -1 when the program was loaded from the binary cache
 	private int vertexShader;
 	private int fragmentShader;
 	private int geometryShader = -1;
 	private int systemTextures = 0;
 
 	private int location_mvp;
+	private final int shaderID = getNextShaderID();
 
 
-	private static final FloatBuffer matrixbuffer = BufferUtils.createFloatBuffer(16);
+	private final FloatBuffer matrixbuffer = BufferUtils.createFloatBuffer(16);
 
 	/**
 	 * Get the currently bound shader
@@ -86,30 +103,41 @@ public abstract class Shader {
 		if (geometrySrc != null)
 			geometrySrc = prefix + geometrySrc;
 
-		vertexShader = loadShader(vertex, vertexSrc, GL20.GL_VERTEX_SHADER);
-		fragmentShader = loadShader(fragment, fragmentSrc, GL20.GL_FRAGMENT_SHADER);
-		if (geometrySrc != null)
-			geometryShader = loadShader(geometry, geometrySrc, GL32.GL_GEOMETRY_SHADER);
-
 		program = GL20.glCreateProgram();
-		GL20.glAttachShader(program, vertexShader);
-		GL20.glAttachShader(program, fragmentShader);
-		if (geometryShader != -1)
-			GL20.glAttachShader(program, geometryShader);
+		String key = ProgramBinaryCache.getKey(getClass().getName(), vertexSrc, fragmentSrc, geometrySrc);
+		if (!ProgramBinaryCache.load(program, key)) {
+			if (key != null) {
+				// a rejected binary can leave the program in an undefined state so start with a fresh one
+				GL20.glDeleteProgram(program);
+				program = GL20.glCreateProgram();
+			}
 
-		bindAttributes();
+			vertexShader = loadShader(vertex, vertexSrc, GL20.GL_VERTEX_SHADER);
+			fragmentShader = loadShader(fragment, fragmentSrc, GL20.GL_FRAGMENT_SHADER);
+			if (geometrySrc != null)
+				geometryShader = loadShader(geometry, geometrySrc, GL32.GL_GEOMETRY_SHADER);
 
-		GL20.glLinkProgram(program);
-		if (GL20.glGetProgrami(program, GL20.GL_LINK_STATUS) == GL11.GL_FALSE) {
-			int length = GL20.glGetProgrami(program, GL20.GL_INFO_LOG_LENGTH);
-			String names = geometryShader == -1 ? vertex + " and " + fragment : vertex + ", " + geometry + " and " + fragment;
-			Logs.f("Failed to link " + names, new ShaderException(GL20.glGetProgramInfoLog(program, length)));
+			GL20.glAttachShader(program, vertexShader);
+			GL20.glAttachShader(program, fragmentShader);
+			if (geometryShader != -1)
+				GL20.glAttachShader(program, geometryShader);
+
+			bindAttributes();
+
+			ProgramBinaryCache.prepare(program, key);
+			GL20.glLinkProgram(program);
+			if (GL20.glGetProgrami(program, GL20.GL_LINK_STATUS) == GL11.GL_FALSE) {
+				int length = GL20.glGetProgrami(program, GL20.GL_INFO_LOG_LENGTH);
+				String names = geometryShader == -1 ? vertex + " and " + fragment : vertex + ", " + geometry + " and " + fragment;
+				Logs.f("Failed to link " + names, new ShaderException(GL20.glGetProgramInfoLog(program, length)));
+			}
+			ProgramBinaryCache.save(program, key);
 		}
 
 		GL20.glValidateProgram(program);
 		if (GL20.glGetProgrami(program, GL20.GL_VALIDATE_STATUS) == GL11.GL_FALSE) {
 			int length = GL20.glGetProgrami(program, GL20.GL_INFO_LOG_LENGTH);
-			String names = geometryShader == -1 ? vertex + " and " + fragment : vertex + ", " + geometry + " and " + fragment;
+			String names = geometrySrc == null ? vertex + " and " + fragment : vertex + ", " + geometry + " and " + fragment;
 			Logs.f("Failed to validate " + names, new ShaderException(GL20.glGetProgramInfoLog(program, length)));
 		}
 
@@ -164,6 +192,7 @@ public abstract class Shader {
 	 */
 	protected void setSystemTextures(int systemTextures) {
 		this.systemTextures = systemTextures;
+		userTexturesLoaded = false;
 	}
 
 	/**
@@ -172,7 +201,13 @@ public abstract class Shader {
 	 * @param name The variable name
 	 */
 	protected void addUserFloat(String name) {
-		userFloats.put(name, getUniformLocation(name));
+		int i = userFloatSlots.length;
+		userFloatSlots = Arrays.copyOf(userFloatSlots, i + 1);
+		userFloatLocations = Arrays.copyOf(userFloatLocations, i + 1);
+		userFloatValues = Arrays.copyOf(userFloatValues, i + 1);
+		userFloatSlots[i] = Material.getParameterSlot(name);
+		userFloatLocations[i] = getUniformLocation(name);
+		userFloatValues[i] = Float.NaN;
 	}
 
 	/**
@@ -181,7 +216,13 @@ public abstract class Shader {
 	 * @param name The variable name
 	 */
 	protected void addUserVector(String name) {
-		userVectors.put(name, getUniformLocation(name));
+		int i = userVectorSlots.length;
+		userVectorSlots = Arrays.copyOf(userVectorSlots, i + 1);
+		userVectorLocations = Arrays.copyOf(userVectorLocations, i + 1);
+		userVectorValues = Arrays.copyOf(userVectorValues, (i + 1) * 4);
+		userVectorSlots[i] = Material.getParameterSlot(name);
+		userVectorLocations[i] = getUniformLocation(name);
+		Arrays.fill(userVectorValues, i * 4, i * 4 + 4, Float.NaN);
 	}
 
 	/**
@@ -190,26 +231,49 @@ public abstract class Shader {
 	 * @param name The variable name
 	 */
 	protected void addUserTexture(String name) {
-		userTextures.put(name, getUniformLocation(name));
+		int i = userTextureSlots.length;
+		userTextureSlots = Arrays.copyOf(userTextureSlots, i + 1);
+		userTextureLocations = Arrays.copyOf(userTextureLocations, i + 1);
+		userTextureSlots[i] = Material.getParameterSlot(name);
+		userTextureLocations[i] = getUniformLocation(name);
+		userTexturesLoaded = false;
 	}
 
 	/**
-	 * Bind a material
+	 * Bind a material, this shader must be bound
 	 *
 	 * @param material The material
 	 */
 	public void loadMaterial(Material material) {
-		for (Map.Entry<String, Integer> f : userFloats.entrySet())
-			loadFloat(f.getValue(), material.getFloat(f.getKey()));
+		for (int i = 0; i < userFloatSlots.length; i++) {
+			float value = material.getFloat(userFloatSlots[i]);
+			// compares the bits so NaN, the initial value, never matches
+			if (Float.floatToRawIntBits(value) != Float.floatToRawIntBits(userFloatValues[i])) {
+				userFloatValues[i] = value;
+				loadFloat(userFloatLocations[i], value);
+			}
+		}
 
-		for (Map.Entry<String, Integer> v : userVectors.entrySet())
-			loadVec4(v.getValue(), material.getVector(v.getKey()));
+		for (int i = 0; i < userVectorSlots.length; i++) {
+			Vector4f vec = material.getVector(userVectorSlots[i]);
+			int j = i * 4;
+			if (vec.x != userVectorValues[j] || vec.y != userVectorValues[j + 1] || vec.z != userVectorValues[j + 2] || vec.w != userVectorValues[j + 3]) {
+				userVectorValues[j] = vec.x;
+				userVectorValues[j + 1] = vec.y;
+				userVectorValues[j + 2] = vec.z;
+				userVectorValues[j + 3] = vec.w;
+				loadVec4(userVectorLocations[i], vec);
+			}
+		}
 
-		int textueLocation = systemTextures;
-		for (Map.Entry<String, Integer> texture : userTextures.entrySet()) {
-			loadInt(texture.getValue(), textueLocation);
-			material.getTexture(texture.getKey()).bind(textueLocation++);
+		// the sampler units never change so they only have to be set once
+		if (!userTexturesLoaded) {
+			for (int i = 0; i < userTextureLocations.length; i++)
+				loadInt(userTextureLocations[i], systemTextures + i);
+			userTexturesLoaded = true;
 		}
+		for (int i = 0; i < userTextureSlots.length; i++)
+			material.getTexture(userTextureSlots[i]).bind(systemTextures + i);
 	}
 
 	/**
@@ -304,10 +368,9 @@ public abstract class Shader {
 	 * @param mat      The value
 	 */
 	public void loadMat4(int location, Matrix4f mat) {
-		synchronized (matrixbuffer) {
-			mat.toFloatBuffer(matrixbuffer);
-			GL20.glUniformMatrix4fv(location, true, matrixbuffer);
-		}
+		// only used by the thread that owns the context so it doesn't have to be synchronized
+		mat.toFloatBuffer(matrixbuffer);
+		GL20.glUniformMatrix4fv(location, true, matrixbuffer);
 	}
 
 	/**
@@ -340,16 +403,35 @@ public abstract class Shader {
 	 * Delete this shader
 	 */
 	public void delete() {
-		GL20.glDetachShader(program, vertexShader);
-		GL20.glDetachShader(program, fragmentShader);
+		if (vertexShader != 0) {
+			GL20.glDetachShader(program, vertexShader);
+			GL20.glDetachShader(program, fragmentShader);
 
-		GL20.glDeleteShader(vertexShader);
-		GL20.glDeleteShader(fragmentShader);
+			GL20.glDeleteShader(vertexShader);
+			GL20.glDeleteShader(fragmentShader);
+		}
+		if (geometryShader != -1) {
+			GL20.glDetachShader(program, geometryShader);
+			GL20.glDeleteShader(geometryShader);
+		}
 
 		GL20.glDeleteProgram(program);
 	}
 
+	/**
+	 * Forget the cached shader sources, call this when shader files change while the engine is running
+	 */
+	public static void clearSourceCache() {
+		longSources.clear();
+		sources.clear();
+		blockIncludes.clear();
+	}
+
 	private static String loadShaderSource(String name) {
+		// not computeIfAbsent, includes load recursively
+		String cached = sources.get(name);
+		if (cached != null)
+			return cached;
 		try {
 			StringBuilder src = new StringBuilder();
 
@@ -377,20 +459,32 @@ public abstract class Shader {
 			}
 			in.close();
 
-			return src.toString();
+			String result = src.toString();
+			sources.put(name, result);
+			return result;
 		} catch (FileNotFoundException e) {
 			Logs.f(e);
 			return null;
 		}
 	}
 
+	private static String getBlockInclude(String include, String block, String file) {
+		String key = block + ":" + file;
+		String cached = blockIncludes.get(key);
+		if (cached != null)
+			return cached;
+		String src = createShaderSource(include, getBlock(include, block, new Scanner(loadShaderSource(file))));
+		if (src != null)
+			blockIncludes.put(key, src);
+		return src;
+	}
+
 	private static String getGlobalInclude(String name, String include) {
 		Logs.d("including " + include + " in " + name);
 		if (include.contains(":")) {
 			String block = include.substring(0, include.indexOf(":"));
 			String file = include.substring(include.indexOf(":") + 1);
-			String src = loadShaderSource(file);
-			return createShaderSource(include, getBlock(include, block, new Scanner(src)));
+			return getBlockInclude(include, block, file);
 		} else {
 			return loadShaderSource(include);
 		}
@@ -401,8 +495,7 @@ public abstract class Shader {
 		if (include.contains(":")) {
 			String block = include.substring(0, include.indexOf(":"));
 			String file = name.substring(0, name.lastIndexOf("/") + 1) + include.substring(include.indexOf(":") + 1);
-			String src = loadShaderSource(file);
-			return createShaderSource(include, getBlock(include, block, new Scanner(src)));
+			return getBlockInclude(include, block, file);
 		} else {
 			include = name.substring(0, name.lastIndexOf("/") + 1) + include;
 			return loadShaderSource(include);
@@ -412,6 +505,9 @@ public abstract class Shader {
 	private static String loadLongShaderSource(String name) {
 		//res/shaders/default/deferred/deferred-basic.ns
 		//res/shaders/default/deferred/deferred-basic.ns
+		String cached = longSources.get(name);
+		if (cached != null)
+			return cached;
 		try {
 			StringBuilder src = new StringBuilder();
 
@@ -427,7 +523,9 @@ public abstract class Shader {
 			}
 			in.close();
 
-			return src.toString();
+			String result = src.toString();
+			longSources.put(name, result);
+			return result;
 		} catch (FileNotFoundException e) {
 			Logs.f(e);
 			return null;
@@ -504,6 +602,18 @@ public abstract class Shader {
 		return src.toString();
 	}
 
+	private static synchronized int getNextShaderID() {
+		return nextShaderID++;
+	}
+
+	/**
+	 * Get the unique id of this shader, used to sort draws
+	 * @return The id
+	 */
+	public int getShaderID() {
+		return shaderID;
+	}
+
 	/**
 	 * Get the program id
 	 * @return The id
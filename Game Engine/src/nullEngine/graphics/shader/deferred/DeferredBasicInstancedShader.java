@@ -0,0 +1,39 @@
+package nullEngine.graphics.shader.deferred;
+
+import nullEngine.graphics.model.Model;
+
+/**
+ * Deferred rendering basic shader that reads the model matrix from a per instance attribute
+ */
+public class DeferredBasicInstancedShader extends DeferredShader {
+
+	/**
+	 * Singleton instance
+	 */
+	public static final DeferredBasicInstancedShader INSTANCE = new DeferredBasicInstancedShader();
+
+	private DeferredBasicInstancedShader() {
+		super("default/deferred/deferred-basic-instanced");
+	}
+
+	/**
+	 * Bind the attributes
+	 */
+	@Override
+	protected void bindAttributes() {
+		super.bindAttributes();
+		bindAttribute(Model.INSTANCE_MATRIX_ATTRIB, "inModelMatrix");
+	}
+
+	/**
+	 * Get the uniform locations
+	 */
+	@Override
+	protected void getUniformLocations() {
+		super.getUniformLocations();
+		addUserTexture("diffuse");
+		addUserFloat("reflectivity");
+		addUserFloat("shineDamper");
+		addUserFloat("lightingAmount");
+	}
+}
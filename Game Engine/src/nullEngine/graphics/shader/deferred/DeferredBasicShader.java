@@ -1,5 +1,7 @@
 package nullEngine.graphics.shader.deferred;
 
+import nullEngine.graphics.shader.ModelMatrixShader;
+
 /**
  * Deferred rendering basic shader
  */
@@ -25,4 +27,13 @@ public class DeferredBasicShader extends DeferredShader {
 		addUserFloat("shineDamper");
 		addUserFloat("lightingAmount");
 	}
+
+	/**
+	 * Get the instanced variant of this shader
+	 * @return The instanced shader
+	 */
+	@Override
+	public ModelMatrixShader getInstancedShader() {
+		return DeferredBasicInstancedShader.INSTANCE;
+	}
 }
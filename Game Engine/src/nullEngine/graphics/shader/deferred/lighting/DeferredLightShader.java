@@ -10,6 +10,7 @@ public class DeferredLightShader extends Shader {
 	private int location_positions;
 	private int location_normals;
 	private int location_specular;
+	private int location_screenSize;
 
 	/**
 	 * Create a new deferred lighting shader
@@ -38,6 +39,7 @@ public class DeferredLightShader extends Shader {
 		location_positions = getUniformLocation("positions");
 		location_normals = getUniformLocation("normals");
 		location_specular = getUniformLocation("specular");
+		location_screenSize = getUniformLocation("screenSize");
 		setSystemTextures(4);
 	}
 
@@ -52,4 +54,13 @@ public class DeferredLightShader extends Shader {
 		loadInt(location_normals, 2);
 		loadInt(location_specular, 3);
 	}
+
+	/**
+	 * Load the size of the lighting framebuffer, used to find the pixel being lit when drawing light volumes
+	 * @param width The width
+	 * @param height The height
+	 */
+	public void loadScreenSize(int width, int height) {
+		loadVec2(location_screenSize, width, height);
+	}
 }
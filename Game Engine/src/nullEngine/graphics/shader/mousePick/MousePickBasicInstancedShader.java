@@ -0,0 +1,47 @@
+package nullEngine.graphics.shader.mousePick;
+
+import nullEngine.graphics.model.Model;
+
+/**
+ * Mouse picking basic shader that reads the model matrix from a per instance attribute
+ */
+public class MousePickBasicInstancedShader extends MousePickShader {
+
+	/**
+	 * Singleton instance
+	 */
+	public static final MousePickBasicInstancedShader INSTANCE = new MousePickBasicInstancedShader();
+
+	private int location_baseId;
+
+	private MousePickBasicInstancedShader() {
+		super("default/mousePick/mousePick-basic-instanced");
+	}
+
+	/**
+	 * Bind the attributes
+	 */
+	@Override
+	protected void bindAttributes() {
+		super.bindAttributes();
+		bindAttribute(Model.INSTANCE_MATRIX_ATTRIB, "inModelMatrix");
+	}
+
+	/**
+	 * Get the uniform locations
+	 */
+	@Override
+	protected void getUniformLocations() {
+		super.getUniformLocations();
+		location_baseId = getUniformLocation("baseId");
+	}
+
+	/**
+	 * Load the id of the first instance, the instance index is added to it in the shader
+	 * @param id The id
+	 */
+	@Override
+	public void loadIdToColor(int id) {
+		loadInt(location_baseId, id);
+	}
+}
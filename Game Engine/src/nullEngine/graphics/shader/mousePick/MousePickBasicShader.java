@@ -1,5 +1,7 @@
 package nullEngine.graphics.shader.mousePick;
 
+import nullEngine.graphics.shader.ModelMatrixShader;
+
 /**
  * Mouse picking basic shader
  */
@@ -13,4 +15,13 @@ public class MousePickBasicShader extends MousePickShader {
 	private MousePickBasicShader() {
 		super("default/mousePick/mousePick-basic");
 	}
+
+	/**
+	 * Get the instanced variant of this shader
+	 * @return The instanced shader
+	 */
+	@Override
+	public ModelMatrixShader getInstancedShader() {
+		return MousePickBasicInstancedShader.INSTANCE;
+	}
 }
@@ -8,7 +8,7 @@ import org.lwjgl.opengl.GL13;
  * A 2D OpenGL texture
  */
 public class Texture2D {
-	private final TextureResouce resource;
+	private TextureResouce resource;
 
 	/**
 	 * Create a new texture
@@ -18,6 +18,16 @@ public class Texture2D {
 		this.resource = resource;
 	}
 
+	/**
+	 * Replace the texture this refers to, used to swap a placeholder for the loaded texture
+	 * @param resource The new texture resource, should already have a reference for this texture
+	 */
+	public void setResource(TextureResouce resource) {
+		TextureResouce old = this.resource;
+		this.resource = resource;
+		old.dispose();
+	}
+
 	/**
 	 * Bind the texture to texture unit 0
 	 */
@@ -22,4 +22,14 @@ public class CharEvent implements Event {
 	public EventType getType() {
 		return EventType.CHAR_TYPED;
 	}
+
+	/**
+	 * Copy all values from another char event
+	 *
+	 * @param event The event to copy
+	 */
+	void set(CharEvent event) {
+		character = event.character;
+		mods = event.mods;
+	}
 }
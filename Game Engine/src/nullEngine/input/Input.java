@@ -151,6 +151,15 @@ public class Input {
 		Input.inputData = inputData;
 	}
 
+	/**
+	 * Get the input snapshot of the current tick
+	 *
+	 * @return The snapshot
+	 */
+	public static InputSnapshot getSnapshot() {
+		return inputData.getSnapshot();
+	}
+
 	/**
 	 * Get wether a key is pressed
 	 *
@@ -158,7 +167,27 @@ public class Input {
 	 * @return Wether the key is pressed
 	 */
 	public static boolean keyPressed(int key) {
-		return inputData.getKey(key);
+		return inputData.getSnapshot().isKeyDown(key);
+	}
+
+	/**
+	 * Get wether a key was pressed since the previous tick
+	 *
+	 * @param key The key
+	 * @return Wether the key was pressed this tick
+	 */
+	public static boolean keyPressedThisTick(int key) {
+		return inputData.getSnapshot().wasKeyPressed(key);
+	}
+
+	/**
+	 * Get wether a key was released since the previous tick
+	 *
+	 * @param key The key
+	 * @return Wether the key was released this tick
+	 */
+	public static boolean keyReleasedThisTick(int key) {
+		return inputData.getSnapshot().wasKeyReleased(key);
 	}
 
 	/**
@@ -168,7 +197,27 @@ public class Input {
 	 * @return Wether the button is pressed
 	 */
 	public static boolean mousePressed(int button) {
-		return inputData.getButton(button);
+		return inputData.getSnapshot().isButtonDown(button);
+	}
+
+	/**
+	 * Get wether a mouse button was pressed since the previous tick
+	 *
+	 * @param button The button
+	 * @return Wether the button was pressed this tick
+	 */
+	public static boolean mousePressedThisTick(int button) {
+		return inputData.getSnapshot().wasButtonPressed(button);
+	}
+
+	/**
+	 * Get wether a mouse button was released since the previous tick
+	 *
+	 * @param button The button
+	 * @return Wether the button was released this tick
+	 */
+	public static boolean mouseReleasedThisTick(int button) {
+		return inputData.getSnapshot().wasButtonReleased(button);
 	}
 
 	/**
@@ -192,7 +241,7 @@ public class Input {
 	 * @return The mouse x
 	 */
 	public static int getMouseX() {
-		return inputData.getCursorX();
+		return inputData.getSnapshot().getCursorX();
 	}
 
 	/**
@@ -201,7 +250,7 @@ public class Input {
 	 * @return The mouse y
 	 */
 	public static int getMouseY() {
-		return inputData.getCursorY();
+		return inputData.getSnapshot().getCursorY();
 	}
 }
 
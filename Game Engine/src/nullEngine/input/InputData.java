@@ -1,23 +1,32 @@
 package nullEngine.input;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A class that stores the data for mouse and keyboard input
+ * The setters are called from the window callbacks, the state is published once per update tick as an
+ * {@link InputSnapshot} so polling during a tick never blocks and always sees the same values
  */
 public class InputData {
 
-	private ReadWriteLock lock = new ReentrantReadWriteLock();
-	private static final int MOUSE_BUTTON_COUNT = 8;
-	private static final int KEY_COUNT = 512;
+	static final int MOUSE_BUTTON_COUNT = 8;
+	static final int KEY_COUNT = 512;
+	static final int KEY_WORDS = KEY_COUNT / 64;
 
-	private final boolean[] buttons = new boolean[MOUSE_BUTTON_COUNT];
-	private final boolean[] keys = new boolean[KEY_COUNT];
-	private int mods = 0;
+	private final AtomicLongArray keys = new AtomicLongArray(KEY_WORDS);
+	//edges since the last publish, cleared when publishing
+	private final AtomicLongArray keysPressed = new AtomicLongArray(KEY_WORDS);
+	private final AtomicLongArray keysReleased = new AtomicLongArray(KEY_WORDS);
+	private final AtomicLong buttons = new AtomicLong();
+	private final AtomicLong buttonsPressed = new AtomicLong();
+	private final AtomicLong buttonsReleased = new AtomicLong();
+	private volatile int mods = 0;
 
-	private int cursorX = 0;
-	private int cursorY = 0;
+	private volatile int cursorX = 0;
+	private volatile int cursorY = 0;
+
+	private volatile InputSnapshot snapshot = InputSnapshot.EMPTY;
 
 	/**
 	 * Set the key state to pressed
@@ -25,10 +34,10 @@ public class InputData {
 	 * @param key The key that was pressed
 	 */
 	public void keyPressed(int key) {
-		lock.writeLock().lock();
-		if (key < keys.length && key > 0)
-			keys[key] = true;
-		lock.writeLock().unlock();
+		if (key < KEY_COUNT && key > 0) {
+			setBit(keys, key);
+			setBit(keysPressed, key);
+		}
 	}
 
 	/**
@@ -37,10 +46,8 @@ public class InputData {
 	 * @param key The key that was repeated
 	 */
 	public void keyRepeated(int key) {
-		lock.writeLock().lock();
-		if (key < keys.length && key > 0)
-			keys[key] = true;
-		lock.writeLock().unlock();
+		if (key < KEY_COUNT && key > 0)
+			setBit(keys, key);
 	}
 
 	/**
@@ -49,10 +56,10 @@ public class InputData {
 	 * @param key The key that was released
 	 */
 	public void keyReleased(int key) {
-		lock.writeLock().lock();
-		if (key < keys.length && key > 0)
-			keys[key] = false;
-		lock.writeLock().unlock();
+		if (key < KEY_COUNT && key > 0) {
+			clearBit(keys, key);
+			setBit(keysReleased, key);
+		}
 	}
 
 	/**
@@ -61,9 +68,7 @@ public class InputData {
 	 * @param mods The modifiers e.g. ALT, CTRL, SHIFT
 	 */
 	public void setMods(int mods) {
-		lock.writeLock().lock();
 		this.mods = mods;
-		lock.writeLock().unlock();
 	}
 
 	/**
@@ -72,10 +77,7 @@ public class InputData {
 	 * @return The modifiers e.g. ALT, CTRL, SHIFT
 	 */
 	public int getMods() {
-		lock.readLock().lock();
-		int ret = mods;
-		lock.readLock().unlock();
-		return ret;
+		return mods;
 	}
 
 	/**
@@ -84,9 +86,7 @@ public class InputData {
 	 * @param cursorX The cursor x
 	 */
 	public void setCursorX(int cursorX) {
-		lock.writeLock().lock();
 		this.cursorX = cursorX;
-		lock.writeLock().unlock();
 	}
 
 	/**
@@ -95,71 +95,53 @@ public class InputData {
 	 * @param cursorY The cursor y
 	 */
 	public void setCursorY(int cursorY) {
-		lock.writeLock().lock();
 		this.cursorY = cursorY;
-		lock.writeLock().unlock();
 	}
 
 	/**
 	 * Set the cursor x
+	 * Only call from the thread that receives the window callbacks
 	 *
 	 * @param cursorX the cursor x
 	 * @return The movement since the last position
 	 */
 	public int cursorX(int cursorX) {
-		lock.readLock().lock();
 		int delta = cursorX - this.cursorX;
-		lock.readLock().unlock();
-		lock.writeLock().lock();
 		this.cursorX = cursorX;
-		lock.writeLock().unlock();
 		return delta;
 	}
 
 	/**
 	 * Set the cursor y
+	 * Only call from the thread that receives the window callbacks
 	 *
 	 * @param cursorY the cursor y
 	 * @return The movement since the last position
 	 */
 	public int cursorY(int cursorY) {
-		lock.readLock().lock();
 		int delta = cursorY - this.cursorY;
-		lock.readLock().unlock();
-		lock.writeLock().lock();
 		this.cursorY = cursorY;
-		lock.writeLock().unlock();
 		return delta;
 	}
 
 	/**
-	 * Get wether a mouse button is pressed
+	 * Get wether a mouse button is currently pressed, use {@link #getSnapshot()} for the state of the current tick
 	 *
 	 * @param button The button
 	 * @return Wether the button is pressed
 	 */
 	public boolean getButton(int button) {
-		boolean ret = false;
-		lock.readLock().lock();
-		if (button > 0 && button < buttons.length)
-			ret = buttons[button];
-		lock.readLock().unlock();
-		return ret;
+		return button >= 0 && button < MOUSE_BUTTON_COUNT && getBit(buttons.get(), button);
 	}
 
 	/**
-	 * Get wether a key is pressed
+	 * Get wether a key is currently pressed, use {@link #getSnapshot()} for the state of the current tick
 	 *
 	 * @param key The key
 	 * @return Wether the key is pressed
 	 */
 	public boolean getKey(int key) {
-		boolean ret = false;
-		lock.readLock().lock();
-		if (key > 0 && key < keys.length)
-			ret = keys[key];
-		lock.readLock().unlock();
-		return ret;
+		return key > 0 && key < KEY_COUNT && getBit(keys, key);
 	}
 
 	/**
@@ -186,10 +168,10 @@ public class InputData {
 	 * @param button The button that was pressed
 	 */
 	public void mousePressed(int button) {
-		lock.writeLock().lock();
-		if (button < buttons.length && button > 0)
-			buttons[button] = true;
-		lock.writeLock().unlock();
+		if (button < MOUSE_BUTTON_COUNT && button >= 0) {
+			setBit(buttons, button);
+			setBit(buttonsPressed, button);
+		}
 	}
 
 	/**
@@ -198,9 +180,66 @@ public class InputData {
 	 * @param button The button that was released
 	 */
 	public void mouseReleased(int button) {
-		lock.writeLock().lock();
-		if (button < buttons.length && button > 0)
-			buttons[button] = false;
-		lock.writeLock().unlock();
+		if (button < MOUSE_BUTTON_COUNT && button >= 0) {
+			clearBit(buttons, button);
+			setBit(buttonsReleased, button);
+		}
+	}
+
+	/**
+	 * Copy the current state into a new snapshot and clear the pressed and released edges
+	 * Call from UPDATE thread once per tick
+	 */
+	public void publish() {
+		long[] keys = new long[KEY_WORDS];
+		long[] keysPressed = new long[KEY_WORDS];
+		long[] keysReleased = new long[KEY_WORDS];
+		for (int i = 0; i < KEY_WORDS; i++) {
+			//take the edges first so a press after this is never missing from both this and the next snapshot
+			keysPressed[i] = this.keysPressed.getAndSet(i, 0);
+			keysReleased[i] = this.keysReleased.getAndSet(i, 0);
+			keys[i] = this.keys.get(i);
+		}
+		long buttonsPressed = this.buttonsPressed.getAndSet(0);
+		long buttonsReleased = this.buttonsReleased.getAndSet(0);
+		snapshot = new InputSnapshot(keys, keysPressed, keysReleased, buttons.get(), buttonsPressed, buttonsReleased,
+				mods, cursorX, cursorY, snapshot.getTick() + 1);
+	}
+
+	/**
+	 * Get the snapshot published at the start of the current tick
+	 *
+	 * @return The snapshot
+	 */
+	public InputSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	static boolean getBit(long[] bits, int index) {
+		return index >= 0 && index < bits.length * 64 && (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	static boolean getBit(long bits, int index) {
+		return index >= 0 && index < 64 && (bits & (1L << index)) != 0;
+	}
+
+	private static boolean getBit(AtomicLongArray bits, int index) {
+		return (bits.get(index >>> 6) & (1L << index)) != 0;
+	}
+
+	private static void setBit(AtomicLongArray bits, int index) {
+		bits.getAndAccumulate(index >>> 6, 1L << index, (old, mask) -> old | mask);
+	}
+
+	private static void clearBit(AtomicLongArray bits, int index) {
+		bits.getAndAccumulate(index >>> 6, ~(1L << index), (old, mask) -> old & mask);
+	}
+
+	private static void setBit(AtomicLong bits, int index) {
+		bits.getAndAccumulate(1L << index, (old, mask) -> old | mask);
+	}
+
+	private static void clearBit(AtomicLong bits, int index) {
+		bits.getAndAccumulate(~(1L << index), (old, mask) -> old & mask);
 	}
 }
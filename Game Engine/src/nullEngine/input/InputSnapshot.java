@@ -0,0 +1,133 @@
+package nullEngine.input;
+
+/**
+ * An immutable copy of the input state at the start of an update tick
+ */
+public final class InputSnapshot {
+
+	/**
+	 * The snapshot used before the first tick, nothing is pressed
+	 */
+	public static final InputSnapshot EMPTY = new InputSnapshot(new long[InputData.KEY_WORDS], new long[InputData.KEY_WORDS], new long[InputData.KEY_WORDS], 0, 0, 0, 0, 0, 0, 0);
+
+	private final long[] keys;
+	private final long[] keysPressed;
+	private final long[] keysReleased;
+	private final long buttons;
+	private final long buttonsPressed;
+	private final long buttonsReleased;
+	private final int mods;
+	private final int cursorX;
+	private final int cursorY;
+	private final long tick;
+
+	InputSnapshot(long[] keys, long[] keysPressed, long[] keysReleased, long buttons, long buttonsPressed, long buttonsReleased,
+	              int mods, int cursorX, int cursorY, long tick) {
+		this.keys = keys;
+		this.keysPressed = keysPressed;
+		this.keysReleased = keysReleased;
+		this.buttons = buttons;
+		this.buttonsPressed = buttonsPressed;
+		this.buttonsReleased = buttonsReleased;
+		this.mods = mods;
+		this.cursorX = cursorX;
+		this.cursorY = cursorY;
+		this.tick = tick;
+	}
+
+	/**
+	 * Get wether a key is down
+	 *
+	 * @param key The key
+	 * @return Wether the key is down
+	 */
+	public boolean isKeyDown(int key) {
+		return InputData.getBit(keys, key);
+	}
+
+	/**
+	 * Get wether a key was pressed since the previous tick
+	 *
+	 * @param key The key
+	 * @return Wether the key was pressed
+	 */
+	public boolean wasKeyPressed(int key) {
+		return InputData.getBit(keysPressed, key);
+	}
+
+	/**
+	 * Get wether a key was released since the previous tick
+	 *
+	 * @param key The key
+	 * @return Wether the key was released
+	 */
+	public boolean wasKeyReleased(int key) {
+		return InputData.getBit(keysReleased, key);
+	}
+
+	/**
+	 * Get wether a mouse button is down
+	 *
+	 * @param button The button
+	 * @return Wether the button is down
+	 */
+	public boolean isButtonDown(int button) {
+		return InputData.getBit(buttons, button);
+	}
+
+	/**
+	 * Get wether a mouse button was pressed since the previous tick
+	 *
+	 * @param button The button
+	 * @return Wether the button was pressed
+	 */
+	public boolean wasButtonPressed(int button) {
+		return InputData.getBit(buttonsPressed, button);
+	}
+
+	/**
+	 * Get wether a mouse button was released since the previous tick
+	 *
+	 * @param button The button
+	 * @return Wether the button was released
+	 */
+	public boolean wasButtonReleased(int button) {
+		return InputData.getBit(buttonsReleased, button);
+	}
+
+	/**
+	 * Get the modifiers
+	 *
+	 * @return The modifiers e.g. ALT, CTRL, SHIFT
+	 */
+	public int getMods() {
+		return mods;
+	}
+
+	/**
+	 * Get the cursor x
+	 *
+	 * @return The cursor x
+	 */
+	public int getCursorX() {
+		return cursorX;
+	}
+
+	/**
+	 * Get the cursor y
+	 *
+	 * @return The cursor y
+	 */
+	public int getCursorY() {
+		return cursorY;
+	}
+
+	/**
+	 * Get the number of the tick this snapshot was published in
+	 *
+	 * @return The tick number, <code>0</code> for the empty snapshot
+	 */
+	public long getTick() {
+		return tick;
+	}
+}
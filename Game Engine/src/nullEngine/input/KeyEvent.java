@@ -34,5 +34,14 @@ public class KeyEvent implements Event {
 		return type;
 	}
 
-
+	/**
+	 * Copy all values from another key event, including the type
+	 *
+	 * @param event The event to copy
+	 */
+	void set(KeyEvent event) {
+		type = event.type;
+		key = event.key;
+		mods = event.mods;
+	}
 }
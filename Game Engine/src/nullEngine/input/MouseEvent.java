@@ -20,6 +20,14 @@ public class MouseEvent implements Event {
 	 * The modifiers e.g. ALT, CTRL, SHIFT
 	 */
 	public int mods;
+	/**
+	 * The horizontal scroll offset, only used by MOUSE_SCROLLED
+	 */
+	public float scrollX;
+	/**
+	 * The vertical scroll offset, only used by MOUSE_SCROLLED
+	 */
+	public float scrollY;
 	private EventType type;
 
 	/**
@@ -40,4 +48,19 @@ public class MouseEvent implements Event {
 	public EventType getType() {
 		return type;
 	}
+
+	/**
+	 * Copy all values from another mouse event, including the type
+	 *
+	 * @param event The event to copy
+	 */
+	void set(MouseEvent event) {
+		type = event.type;
+		button = event.button;
+		x = event.x;
+		y = event.y;
+		mods = event.mods;
+		scrollX = event.scrollX;
+		scrollY = event.scrollY;
+	}
 }
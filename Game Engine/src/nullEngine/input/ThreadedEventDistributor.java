@@ -2,23 +2,77 @@ package nullEngine.input;
 
 import nullEngine.util.logs.Logs;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayDeque;
 
 /**
  * Distributes events to the assigned event listener, ensures the events are passed from the correct thread
+ * Events are stored in a fixed size ring buffer, key, mouse and char events are copied into reusable events so no
+ * events are allocated while queueing. The events passed to the listener are only valid until the listener returns
+ * When the buffer is full events are copied into a backlog until there is space again, mouse moved and mouse scrolled
+ * events are merged into the last backlogged event and key repeated events are dropped so no presses or releases are lost
  */
 public class ThreadedEventDistributor extends EventDistributor {
-	private volatile BlockingQueue<Event> eventQueue = new LinkedBlockingQueue<>();
+	/**
+	 * The default amount of events that can be queued
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final Slot[] slots;
+	private final int mask;
+	private final Object producerLock = new Object();
+	//head is only written by the UPDATE thread, tail only while holding the producer lock
+	private volatile long head = 0;
+	private volatile long tail = 0;
+	private boolean overflowed = false;
+	//only used while holding the producer lock
+	private final ArrayDeque<Event> backlog = new ArrayDeque<>();
+	private volatile boolean backlogged = false;
+	private volatile boolean coalescing = true;
+
+	/**
+	 * Create a new threaded event distributor with the default capacity
+	 */
+	public ThreadedEventDistributor() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new threaded event distributor
+	 *
+	 * @param capacity The amount of events that can be queued, rounded up to a power of two
+	 */
+	public ThreadedEventDistributor(int capacity) {
+		if (capacity < 2)
+			capacity = 2;
+		int size = Integer.highestOneBit(capacity - 1) << 1;
+		slots = new Slot[size];
+		for (int i = 0; i < size; i++)
+			slots[i] = new Slot();
+		mask = size - 1;
+	}
 
 	/**
 	 * Pass the queued events to the listener
 	 * Call from UPDATE thread
 	 */
 	public void passEvents() {
-		Event event;
-		while ((event = eventQueue.poll()) != null) {
-			passEvent(event);
+		long h = head;
+		//events queued while passing are left for the next call
+		long t = tail;
+		while (h < t) {
+			Slot slot = slots[(int) h & mask];
+			try {
+				if (!(coalescing && h + 1 < t && coalesce(slot.event, slots[(int) (h + 1) & mask].event)))
+					passEvent(slot.event);
+			} finally {
+				slot.event = null;
+				head = ++h;
+			}
+		}
+		if (backlogged) {
+			synchronized (producerLock) {
+				drainBacklog();
+			}
 		}
 	}
 
@@ -28,11 +82,138 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 * @param event The event
 	 */
 	public void queueEvent(Event event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
+		offer(event);
+	}
+
+	/**
+	 * Set wether consecutive mouse moved and mouse scrolled events should be merged into one event when passing them
+	 * Merged mouse moved events have the sum of the movements, merged scroll events have the sum of the offsets
+	 *
+	 * @param coalescing Wether to merge events
+	 */
+	public void setCoalescing(boolean coalescing) {
+		this.coalescing = coalescing;
+	}
+
+	/**
+	 * Get wether consecutive mouse moved and mouse scrolled events are merged
+	 *
+	 * @return Wether events are merged
+	 */
+	public boolean isCoalescing() {
+		return coalescing;
+	}
+
+	/**
+	 * Get the amount of events that can be queued
+	 *
+	 * @return The capacity
+	 */
+	public int getCapacity() {
+		return slots.length;
+	}
+
+	private static boolean coalesce(Event event, Event next) {
+		if (event.getType() != next.getType())
+			return false;
+		switch (event.getType()) {
+			case MOUSE_MOVED:
+				((MouseEvent) next).x += ((MouseEvent) event).x;
+				((MouseEvent) next).y += ((MouseEvent) event).y;
+				return true;
+			case MOUSE_SCROLLED:
+				((MouseEvent) next).scrollX += ((MouseEvent) event).scrollX;
+				((MouseEvent) next).scrollY += ((MouseEvent) event).scrollY;
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private void offer(Event event) {
+		synchronized (producerLock) {
+			if (backlogged)
+				drainBacklog();
+			if (backlogged || tail - head >= slots.length) {
+				if (!overflowed)
+					Logs.w("Event queue full, backlogging events");
+				overflowed = true;
+				addToBacklog(event);
+				return;
+			}
+			overflowed = false;
+			publish(event);
+		}
+	}
+
+	//call while holding the producer lock
+	private void publish(Event event) {
+		long t = tail;
+		Slot slot = slots[(int) t & mask];
+		switch (event.getType()) {
+			case KEY_REPEATED:
+			case KEY_PRESSED:
+			case KEY_RELEASED:
+				slot.keyEvent.set((KeyEvent) event);
+				slot.event = slot.keyEvent;
+				break;
+			case MOUSE_PRESSED:
+			case MOUSE_RELEASED:
+			case MOUSE_SCROLLED:
+			case MOUSE_MOVED:
+				slot.mouseEvent.set((MouseEvent) event);
+				slot.event = slot.mouseEvent;
+				break;
+			case CHAR_TYPED:
+				slot.charEvent.set((CharEvent) event);
+				slot.event = slot.charEvent;
+				break;
+			default:
+				slot.event = event;
+				break;
 		}
+		tail = t + 1;
+	}
+
+	//call while holding the producer lock
+	private void addToBacklog(Event event) {
+		Event last = backlog.peekLast();
+		//the backlog is not published yet so moves and scrolls can be added to its last event
+		if (last != null && coalesce(event, last))
+			return;
+		switch (event.getType()) {
+			case KEY_REPEATED:
+				//the key stays down without them
+				return;
+			case KEY_PRESSED:
+			case KEY_RELEASED:
+				KeyEvent keyEvent = new KeyEvent(event.getType());
+				keyEvent.set((KeyEvent) event);
+				event = keyEvent;
+				break;
+			case MOUSE_PRESSED:
+			case MOUSE_RELEASED:
+			case MOUSE_SCROLLED:
+			case MOUSE_MOVED:
+				MouseEvent mouseEvent = new MouseEvent(event.getType());
+				mouseEvent.set((MouseEvent) event);
+				event = mouseEvent;
+				break;
+			case CHAR_TYPED:
+				CharEvent charEvent = new CharEvent();
+				charEvent.set((CharEvent) event);
+				event = charEvent;
+				break;
+		}
+		backlog.add(event);
+		backlogged = true;
+	}
+
+	//call while holding the producer lock
+	private void drainBacklog() {
+		while (!backlog.isEmpty() && tail - head < slots.length)
+			publish(backlog.poll());
+		backlogged = !backlog.isEmpty();
 	}
 
 	private void passEvent(Event event) {
@@ -88,11 +269,7 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public boolean keyRepeated(KeyEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 		return false;
 	}
 
@@ -104,11 +281,7 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public boolean keyPressed(KeyEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 		return false;
 	}
 
@@ -120,11 +293,7 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public boolean keyReleased(KeyEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 		return false;
 	}
 
@@ -136,11 +305,7 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public boolean mousePressed(MouseEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 		return false;
 	}
 
@@ -152,11 +317,7 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public boolean mouseReleased(MouseEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 		return false;
 	}
 
@@ -168,11 +329,7 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public boolean mouseScrolled(MouseEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 		return false;
 	}
 
@@ -184,11 +341,7 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public boolean mouseMoved(MouseEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 		return false;
 	}
 
@@ -200,11 +353,7 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public boolean charTyped(CharEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 		return false;
 	}
 
@@ -215,12 +364,13 @@ public class ThreadedEventDistributor extends EventDistributor {
 	 */
 	@Override
 	public void notified(NotificationEvent event) {
-		try {
-			eventQueue.put(event);
-		} catch (InterruptedException e) {
-			Logs.e(e);
-		}
+		offer(event);
 	}
 
-
+	private static class Slot {
+		private final KeyEvent keyEvent = new KeyEvent(Event.EventType.KEY_PRESSED);
+		private final MouseEvent mouseEvent = new MouseEvent(Event.EventType.MOUSE_MOVED);
+		private final CharEvent charEvent = new CharEvent();
+		private Event event;
+	}
 }
@@ -0,0 +1,53 @@
+package nullEngine.loading;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A resource that is loading in the background, the resource can be used straight away and shows a placeholder until
+ * it has loaded
+ *
+ * @param <T> The type of the resource
+ */
+public class AsyncResource<T> {
+
+	private final T resource;
+	private final CompletableFuture<T> future;
+
+	/**
+	 * Create a new async resource
+	 *
+	 * @param resource The resource, which is a placeholder until the future completes
+	 * @param future   The future that completes on the RENDER thread once the resource is loaded
+	 */
+	public AsyncResource(T resource, CompletableFuture<T> future) {
+		this.resource = resource;
+		this.future = future;
+	}
+
+	/**
+	 * Get the resource, this is the same object before and after it has loaded
+	 *
+	 * @return The resource
+	 */
+	public T getResource() {
+		return resource;
+	}
+
+	/**
+	 * Get the future that completes once the resource has loaded or completes exceptionally if loading failed
+	 *
+	 * @return The future
+	 */
+	public CompletableFuture<T> getFuture() {
+		return future;
+	}
+
+	/**
+	 * Get wether the resource has finished loading
+	 *
+	 * @return Wether the resource has finished loading
+	 */
+	public boolean isLoaded() {
+		return future.isDone() && !future.isCompletedExceptionally();
+	}
+}
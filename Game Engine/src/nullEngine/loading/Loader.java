@@ -15,10 +15,15 @@ import nullEngine.graphics.model.VertexAttribPointer;
 import nullEngine.graphics.texture.Texture2D;
 import nullEngine.loading.filesys.FileFormatException;
 import nullEngine.loading.filesys.ResourceLoader;
+import nullEngine.loading.model.ModelData;
 import nullEngine.loading.model.NLMLoader;
 import nullEngine.loading.model.OBJLoader;
+import nullEngine.loading.texture.ImageData;
 import nullEngine.loading.texture.PNGLoader;
+import nullEngine.managing.ResourceManager;
+import nullEngine.managing.TextureResouce;
 import nullEngine.object.wrapper.HeightMap;
+import nullEngine.util.Buffers;
 import nullEngine.util.logs.Logs;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.opengl.GLCapabilities;
@@ -29,6 +34,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Class for loading resouces
@@ -43,6 +52,12 @@ public class Loader {
 
 	private List<Integer> vaos = new ArrayList<>();
 
+	private static final int WORKER_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+	private ExecutorService workers;
+	private final UploadQueue uploads = new UploadQueue();
+	private long uploadBudget = 2000000;
+	private TextureResouce placeholderTexture;
+
 	/**
 	 * Create a new Loader
 	 *
@@ -139,23 +154,7 @@ public class Loader {
 		VertexBuffer texCoordVBO = VertexBuffer.create(texCoords);
 		VertexBuffer normalVBO = VertexBuffer.create(normals);
 
-		int[] vertexOffsets = new int[vertexCounts.length];
-		vertexOffsets[0] = 0;
-
-		for (int i = 1; i < vertexCounts.length; i++) {
-			vertexOffsets[i] = vertexCounts[i - 1] + vertexOffsets[i - 1];
-		}
-
-		float biggestRadius = 0;
-		for (int i = 0; i < vertices.length / 3; i++) {
-			float x = vertices[i * 3];
-			float y = vertices[i * 3 + 1];
-			float z = vertices[i * 3 + 2];
-			float radius = x * x + y * y + z * z;
-			if (radius > biggestRadius)
-				biggestRadius = radius;
-		}
-		return new Model(vao, vertexCounts, vertexOffsets, (float) Math.sqrt(biggestRadius), ibo,
+		return new Model(vao, vertexCounts, ModelData.getVertexOffsets(vertexCounts), ModelData.getRadius(vertices), ibo,
 				VertexAttribPointer.createVec3AttribPointer(vertexVBO), VertexAttribPointer.createVec2AttribPointer(texCoordVBO), VertexAttribPointer.createVec3AttribPointer(normalVBO));
 	}
 
@@ -201,14 +200,96 @@ public class Loader {
 	 * @return The model that was loaded
 	 */
 	public Model loadModel(String name) {
+		try {
+			return loadModel(loadModelData(name));
+		} catch (IOException e) {
+			Logs.f(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Load a model from decoded model data
+	 *
+	 * @param data The model data
+	 * @return The model that was created
+	 */
+	public Model loadModel(ModelData data) {
+		IndexBuffer ibo = new IndexBuffer();
+		VertexBuffer vertexVBO = new VertexBuffer();
+		VertexBuffer texCoordVBO = new VertexBuffer();
+		VertexBuffer normalVBO = new VertexBuffer();
+		uploadModelData(data, ibo, vertexVBO, texCoordVBO, normalVBO);
+		return new Model(createVAO(), data.vertexCounts, data.vertexOffsets, data.radius, ibo,
+				VertexAttribPointer.createVec3AttribPointer(vertexVBO), VertexAttribPointer.createVec2AttribPointer(texCoordVBO), VertexAttribPointer.createVec3AttribPointer(normalVBO));
+	}
+
+	private static void uploadModelData(ModelData data, IndexBuffer ibo, VertexBuffer vertexVBO, VertexBuffer texCoordVBO, VertexBuffer normalVBO) {
+		ibo.setRange(data.indices, 0, data.indices.remaining());
+		ibo.forceUpload();
+		vertexVBO.setRange(data.vertices, 0, data.vertices.remaining());
+		vertexVBO.forceUpload();
+		texCoordVBO.setRange(data.texCoords, 0, data.texCoords.remaining());
+		texCoordVBO.forceUpload();
+		normalVBO.setRange(data.normals, 0, data.normals.remaining());
+		normalVBO.forceUpload();
+	}
+
+	private static ModelData loadModelData(String name) throws IOException {
 		name = name.lastIndexOf('/') < name.lastIndexOf('.') ? name : name + ".nlm";
 		if (name.endsWith(".obj")) {
-			return OBJLoader.loadModel(this, name);
+			return OBJLoader.loadModelData(name);
 		} else if (name.endsWith(".nlm")) {
-			return NLMLoader.loadModel(this, name);
+			return NLMLoader.loadModelData(name);
 		}
-		Logs.f(new FileFormatException("Unknown model format"));
-		return null;
+		throw new FileFormatException("Unknown model format");
+	}
+
+	/**
+	 * Load a model from a file in the background, reading and decoding happen on a worker thread and the upload is
+	 * queued for the RENDER thread. Has to be called on the RENDER thread
+	 *
+	 * @param name The file to be loaded from in the folder <em>res/models</em>, see {@link #loadModel(String)}
+	 * @return The model, which draws nothing until it has loaded
+	 */
+	public AsyncResource<Model> loadModelAsync(String name) {
+		IndexBuffer ibo = new IndexBuffer();
+		VertexBuffer vertexVBO = new VertexBuffer();
+		VertexBuffer texCoordVBO = new VertexBuffer();
+		VertexBuffer normalVBO = new VertexBuffer();
+		Model model = loadModel(vertexVBO, texCoordVBO, normalVBO, ibo, 0, 0);
+		CompletableFuture<Model> future = new CompletableFuture<>();
+
+		getWorkers().execute(() -> {
+			try {
+				ModelData data = loadModelData(name);
+
+				uploads.add(() -> {
+					try {
+						uploadModelData(data, ibo, vertexVBO, texCoordVBO, normalVBO);
+						model.setVertexOffsets(data.vertexOffsets);
+						model.setVertexCounts(data.vertexCounts);
+						model.setRadius(data.radius);
+						future.complete(model);
+					} catch (Throwable e) {
+						Logs.e("Failed to upload model " + name, e);
+						// the model stays usable but draws nothing, free whatever was uploaded before the failure
+						model.setVertexOffsets(new int[] {0});
+						model.setVertexCounts(new int[] {0});
+						ibo.clear();
+						vertexVBO.clear();
+						texCoordVBO.clear();
+						normalVBO.clear();
+						future.completeExceptionally(e);
+					}
+				});
+			} catch (Throwable e) {
+				Logs.e("Failed to load model " + name, e);
+				uploads.add(() -> future.completeExceptionally(e));
+			}
+		});
+
+		return new AsyncResource<>(model, future);
 	}
 
 	/**
@@ -238,6 +319,136 @@ public class Loader {
 		return PNGLoader.loadTexture(file + ".png", lodBias, anisotropyEnabled && isAnisotropySupported(), anisotropyAmount, forceUnique);
 	}
 
+	/**
+	 * Load a PNG texture in the background, reading and decoding happen on a worker thread and the upload is queued
+	 * for the RENDER thread. Has to be called on the RENDER thread
+	 *
+	 * @param file The file without the .png extension in <em>res/textures</em> to load
+	 * @return The texture, which is a white placeholder until it has loaded
+	 */
+	public AsyncResource<Texture2D> loadTextureAsync(String file) {
+		String path = "res/textures/" + file + ".png";
+		TextureResouce cached = (TextureResouce) ResourceManager.getResource("texture:" + path);
+		if (cached != null) {
+			cached.addReference();
+			Texture2D texture = new Texture2D(cached);
+			return new AsyncResource<>(texture, CompletableFuture.completedFuture(texture));
+		}
+
+		Texture2D texture = new Texture2D((TextureResouce) getPlaceholderTexture().addReference());
+		CompletableFuture<Texture2D> future = new CompletableFuture<>();
+		float lodBias = this.lodBias;
+		boolean anisotropyEnabled = this.anisotropyEnabled && isAnisotropySupported();
+		float anisotropyAmount = this.anisotropyAmount;
+
+		getWorkers().execute(() -> {
+			try {
+				ImageData image = PNGLoader.decode(path);
+				uploads.add(() -> {
+					TextureResouce referenced = null;
+					try {
+						// another request may have uploaded the same texture while this one was decoding
+						TextureResouce resource = (TextureResouce) ResourceManager.getResource("texture:" + path);
+						if (resource == null)
+							resource = new TextureResouce(path, PNGLoader.upload(image, lodBias, anisotropyEnabled, anisotropyAmount));
+						referenced = (TextureResouce) resource.addReference();
+						texture.setResource(resource);
+						// the texture owns the reference now
+						referenced = null;
+						future.complete(texture);
+					} catch (Throwable e) {
+						Logs.e("Failed to upload texture " + path, e);
+						if (referenced != null)
+							referenced.dispose();
+						future.completeExceptionally(e);
+					}
+				});
+			} catch (Throwable e) {
+				Logs.e("Failed to load texture " + path, e);
+				uploads.add(() -> future.completeExceptionally(e));
+			}
+		});
+
+		return new AsyncResource<>(texture, future);
+	}
+
+	private TextureResouce getPlaceholderTexture() {
+		if (placeholderTexture == null) {
+			ImageData image = new ImageData();
+			image.width = 1;
+			image.height = 1;
+			image.hasAlpha = true;
+			image.pixels = Buffers.createBuffer(new byte[] {-1, -1, -1, -1});
+			placeholderTexture = new TextureResouce("placeholder", PNGLoader.upload(image, 0, false, 1));
+			placeholderTexture.addReference();
+		}
+		return placeholderTexture;
+	}
+
+	private ExecutorService getWorkers() {
+		if (workers == null) {
+			workers = Executors.newFixedThreadPool(WORKER_COUNT, new ThreadFactory() {
+				private int nextID = 0;
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "LOADER-" + nextID++);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return workers;
+	}
+
+	/**
+	 * Run queued uploads of background loads until the upload budget is used up, called once per frame on the RENDER
+	 * thread
+	 *
+	 * @return The number of uploads that were run
+	 */
+	public int processUploads() {
+		if (uploads.isEmpty())
+			return 0;
+		GL30.glBindVertexArray(0);
+		return uploads.process(uploadBudget);
+	}
+
+	/**
+	 * Set how long the RENDER thread can spend on uploads of background loads each frame
+	 *
+	 * @param seconds The time in seconds, at least one upload is run each frame regardless
+	 */
+	public void setUploadBudget(double seconds) {
+		this.uploadBudget = (long) (seconds * 1e9);
+	}
+
+	/**
+	 * Get how long the RENDER thread can spend on uploads of background loads each frame
+	 *
+	 * @return The time in seconds
+	 */
+	public double getUploadBudget() {
+		return uploadBudget / 1e9;
+	}
+
+	/**
+	 * Get the upload queue of background loads
+	 *
+	 * @return The upload queue
+	 */
+	public UploadQueue getUploadQueue() {
+		return uploads;
+	}
+
+	/**
+	 * Stop the worker threads
+	 */
+	public void cleanup() {
+		if (workers != null)
+			workers.shutdownNow();
+	}
+
 	/**
 	 * Load a font
 	 *
@@ -0,0 +1,58 @@
+package nullEngine.loading;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A queue of OpenGL uploads that are run on the RENDER thread a few at a time so loading doesn't stall a frame
+ */
+public class UploadQueue {
+
+	private final Queue<Runnable> uploads = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Queue an upload, safe to call from any thread
+	 *
+	 * @param upload The upload to run on the RENDER thread
+	 */
+	public void add(Runnable upload) {
+		uploads.add(upload);
+	}
+
+	/**
+	 * Run queued uploads until the budget is used up, at least one upload is run if any are queued
+	 *
+	 * @param budgetNanos The time to spend in nanoseconds
+	 * @return The number of uploads that were run
+	 */
+	public int process(long budgetNanos) {
+		long start = System.nanoTime();
+		int count = 0;
+		Runnable upload;
+		while ((upload = uploads.poll()) != null) {
+			upload.run();
+			count++;
+			if (System.nanoTime() - start >= budgetNanos)
+				break;
+		}
+		return count;
+	}
+
+	/**
+	 * Get wether there are no queued uploads
+	 *
+	 * @return Wether the queue is empty
+	 */
+	public boolean isEmpty() {
+		return uploads.isEmpty();
+	}
+
+	/**
+	 * Get the number of queued uploads
+	 *
+	 * @return The number of queued uploads
+	 */
+	public int size() {
+		return uploads.size();
+	}
+}
@@ -0,0 +1,106 @@
+package nullEngine.loading.filesys;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An implementation of InputStream that reads from a ByteBuffer, the buffer is duplicated so the original is never
+ * modified
+ */
+public class ByteBufferInputStream extends InputStream {
+
+	private final ByteBuffer buf;
+	private int mark;
+
+	/**
+	 * Create a new ByteBufferInputStream
+	 *
+	 * @param buf The buffer to read the bytes between the position and the limit of
+	 */
+	public ByteBufferInputStream(ByteBuffer buf) {
+		this.buf = buf.duplicate();
+		mark = this.buf.position();
+	}
+
+	/**
+	 * Read a byte
+	 *
+	 * @return The byte that was read or -1 if the end was reached
+	 */
+	@Override
+	public int read() {
+		return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+	}
+
+	/**
+	 * Read an array of bytes
+	 *
+	 * @param b   The array to read to
+	 * @param off The offset in the array to start writing to
+	 * @param len The number of bytes to read
+	 * @return The bytes that were read or -1 if the end was reached
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0)
+			return 0;
+		if (!buf.hasRemaining())
+			return -1;
+		len = Math.min(len, buf.remaining());
+		buf.get(b, off, len);
+		return len;
+	}
+
+	/**
+	 * Skip some bytes
+	 *
+	 * @param n The maximum number of bytes to skip
+	 * @return The number of bytes that were actually skipped
+	 */
+	@Override
+	public long skip(long n) {
+		if (n <= 0)
+			return 0;
+		int skipped = (int) Math.min(n, buf.remaining());
+		buf.position(buf.position() + skipped);
+		return skipped;
+	}
+
+	/**
+	 * get the number of bytes left
+	 *
+	 * @return The number of bytes left
+	 */
+	@Override
+	public int available() {
+		return buf.remaining();
+	}
+
+	/**
+	 * Set the mark
+	 *
+	 * @param readlimit Ignored
+	 */
+	@Override
+	public void mark(int readlimit) {
+		mark = buf.position();
+	}
+
+	/**
+	 * Reset the position to the mark
+	 */
+	@Override
+	public void reset() {
+		buf.position(mark);
+	}
+
+	/**
+	 * Returns <code>true</code>
+	 *
+	 * @return <code>true</code>
+	 */
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+}
@@ -1,8 +1,12 @@
 package nullEngine.loading.filesys;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 public class FileSystemLocation implements ResourceLocation {
 
@@ -16,6 +20,9 @@ public class FileSystemLocation implements ResourceLocation {
 	 */
 	@Override
 	public InputStream getResource(String name, boolean requireMark) {
+		// checking first is cheaper than the exception for resources that aren't on the file system
+		if (!new File(name).isFile())
+			return null;
 		try {
 			FileInputStream stream = new FileInputStream(name);
 			if (!stream.markSupported() && requireMark) {
@@ -29,6 +36,23 @@ public class FileSystemLocation implements ResourceLocation {
 		}
 	}
 
+	/**
+	 * Memory map a file
+	 *
+	 * @param name The name of the resource
+	 * @return The mapped file or <code>null</code> if the file doesn't exist
+	 * @throws IOException If the file couldn't be mapped
+	 */
+	@Override
+	public ByteBuffer getResourceBuffer(String name) throws IOException {
+		File file = new File(name);
+		if (!file.isFile())
+			return null;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
 	/**
 	 * Does nothing
 	 */
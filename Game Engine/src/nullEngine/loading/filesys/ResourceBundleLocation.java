@@ -1,19 +1,50 @@
 package nullEngine.loading.filesys;
 
 import nullEngine.util.logs.Logs;
-import util.StreamUtils;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
- * Loads resources from a bundle
+ * Loads resources from a <a href="../spec/Resource_Bundle_Format.html" target="_blank">bundle</a>, the bundle is
+ * memory mapped when it is on the file system and entries are returned as slices of it so any number of threads can
+ * load from it at once
  */
 public class ResourceBundleLocation implements ResourceLocation {
 
-	private InputStream is;
+	/**
+	 * The size of the version 2 header before the directory
+	 */
+	public static final int VERSION_2_HEADER_SIZE = 16;
+	/**
+	 * The size of a version 2 directory entry
+	 */
+	public static final int VERSION_2_ENTRY_SIZE = 40;
+	/**
+	 * The entry is stored as it is
+	 */
+	public static final int COMPRESSION_NONE = 0;
+	/**
+	 * The entry is compressed with deflate
+	 */
+	public static final int COMPRESSION_DEFLATE = 1;
+
+	private ByteBuffer bundle;
+	// only open when the bundle is too big to map at once, entries are then mapped one at a time
+	private FileChannel channel;
+	private int version;
+	private int fileCount;
 	private HashMap<String, Integer> fileOffsets;
 
 	/**
@@ -22,28 +53,47 @@ public class ResourceBundleLocation implements ResourceLocation {
 	 * @param name The name of the resouce bundle without the <em>.res</em> extension in the <em>res/bundles</em> folder
 	 */
 	public ResourceBundleLocation(String name) {
+		String path = "res/bundles/" + name + ".res";
 		try {
-			is = ResourceLoader.getResource("res/bundles/" + name + ".res", true);
-
-			is.mark(is.available());
-
-			int version = is.read();
-			if (version != 1)
-				throw new IOException("Unsupported bundle file version");
-
-			int fileCount = StreamUtils.readInt(is);
-
-			fileOffsets = new HashMap<>(fileCount);
+			File file = new File(path);
+			if (file.isFile() && file.length() > Integer.MAX_VALUE) {
+				channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, VERSION_2_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+				if ((header.get(0) & 0xFF) != 2)
+					throw new FileFormatException("Unsupported bundle file version");
+				bundle = channel.map(FileChannel.MapMode.READ_ONLY, 0, header.getLong(8));
+			} else {
+				bundle = ResourceLoader.getResourceBuffer(path);
+			}
 
-			for (int i = 0; i < fileCount; i++) {
-				String file = StreamUtils.readString(is);
-				fileOffsets.put(file, StreamUtils.readInt(is));
+			version = bundle.get(0) & 0xFF;
+			if (version == 1) {
+				readVersion1Directory();
+			} else if (version == 2) {
+				bundle.order(ByteOrder.LITTLE_ENDIAN);
+				fileCount = bundle.getInt(4);
+			} else {
+				throw new FileFormatException("Unsupported bundle file version");
 			}
 		} catch (IOException e) {
 			Logs.f(e);
 		}
 	}
 
+	private void readVersion1Directory() throws IOException {
+		ByteBuffer buf = bundle.duplicate().order(ByteOrder.BIG_ENDIAN);
+		buf.position(1);
+		fileCount = buf.getInt();
+		fileOffsets = new HashMap<>(fileCount);
+
+		byte[] nameBytes = new byte[0x10000];
+		for (int i = 0; i < fileCount; i++) {
+			int length = buf.getShort() & 0xFFFF;
+			buf.get(nameBytes, 0, length);
+			fileOffsets.put(new String(nameBytes, 0, length, StandardCharsets.UTF_8), buf.getInt());
+		}
+	}
+
 	/**
 	 * Attempt to get a resouce in the resource bundle
 	 *
@@ -54,20 +104,173 @@ public class ResourceBundleLocation implements ResourceLocation {
 	 */
 	@Override
 	public InputStream getResource(String name, boolean requireMark) {
-		if (fileOffsets.containsKey(name)) {
-			try {
-				is.reset();
-				is.skip(fileOffsets.get(name));
-				int len = StreamUtils.readInt(is);
-				byte[] buf = new byte[len];
+		try {
+			ByteBuffer buf = getResourceBuffer(name);
+			if (buf != null)
+				return new ByteBufferInputStream(buf);
+		} catch (IOException e) {
+			Logs.e(e);
+		}
+		return null;
+	}
+
+	/**
+	 * Attempt to get a resource in the resource bundle, uncompressed entries are read only slices of the bundle
+	 *
+	 * @param name The name of the resource
+	 * @return The contents of the resource or <code>null</code> if the resource wasn't found
+	 * @throws IOException If the entry is corrupt
+	 */
+	@Override
+	public ByteBuffer getResourceBuffer(String name) throws IOException {
+		if (bundle == null)
+			return null;
 
-				is.read(buf);
+		if (version == 1) {
+			Integer offset = fileOffsets.get(name);
+			if (offset == null)
+				return null;
+			return slice(offset + 4, bundle.getInt(offset));
+		}
 
-				return new ByteArrayInputStream(buf);
-			} catch (IOException e) {
+		int entry = findEntry(name);
+		if (entry == -1)
+			return null;
+
+		int compression = bundle.get(entry + 10) & 0xFF;
+		long offset = bundle.getLong(entry + 16);
+		long storedLength = bundle.getLong(entry + 24);
+		long length = bundle.getLong(entry + 32);
+
+		if (compression == COMPRESSION_NONE) {
+			return slice(offset, storedLength);
+		} else if (compression == COMPRESSION_DEFLATE) {
+			return inflate(slice(offset, storedLength), (int) length);
+		} else {
+			throw new FileFormatException("Unsupported compression for " + name + ": " + compression);
+		}
+	}
+
+	// returns the offset of the directory entry or -1
+	private int findEntry(String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		int hash = hash(bytes);
+
+		int low = 0;
+		int high = fileCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int compare = Integer.compareUnsigned(getHash(mid), hash);
+			if (compare < 0) {
+				low = mid + 1;
+			} else if (compare > 0) {
+				high = mid - 1;
+			} else {
+				for (int i = mid; i >= 0 && getHash(i) == hash; i--)
+					if (nameEquals(i, bytes))
+						return getEntryOffset(i);
+				for (int i = mid + 1; i < fileCount && getHash(i) == hash; i++)
+					if (nameEquals(i, bytes))
+						return getEntryOffset(i);
+				return -1;
 			}
 		}
-		return null;
+		return -1;
+	}
+
+	private static int getEntryOffset(int index) {
+		return VERSION_2_HEADER_SIZE + index * VERSION_2_ENTRY_SIZE;
+	}
+
+	private int getHash(int index) {
+		return bundle.getInt(getEntryOffset(index));
+	}
+
+	private boolean nameEquals(int index, byte[] name) {
+		int entry = getEntryOffset(index);
+		int nameOffset = bundle.getInt(entry + 4);
+		int nameLength = bundle.getShort(entry + 8) & 0xFFFF;
+		if (nameLength != name.length)
+			return false;
+		for (int i = 0; i < nameLength; i++)
+			if (bundle.get(nameOffset + i) != name[i])
+				return false;
+		return true;
+	}
+
+	private ByteBuffer slice(long offset, long length) throws IOException {
+		if (channel != null)
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+		if (offset + length > bundle.limit())
+			throw new FileFormatException("Bundle entry is out of range");
+		ByteBuffer buf = bundle.duplicate();
+		buf.position((int) offset);
+		buf.limit((int) (offset + length));
+		return buf.slice();
+	}
+
+	private static ByteBuffer inflate(ByteBuffer compressed, int length) throws IOException {
+		byte[] input = new byte[compressed.remaining()];
+		compressed.get(input);
+		byte[] output = new byte[length];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(input);
+			int read = 0;
+			while (read < length && !inflater.finished()) {
+				int n = inflater.inflate(output, read, length - read);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new FileFormatException("Compressed bundle entry is truncated");
+				read += n;
+			}
+		} catch (DataFormatException e) {
+			throw new FileFormatException(e.getMessage());
+		} finally {
+			inflater.end();
+		}
+		ByteBuffer buf = ByteBuffer.allocateDirect(length);
+		buf.put(output).flip();
+		return buf;
+	}
+
+	/**
+	 * The hash used to sort the directory of a version 2 bundle, 32 bit FNV-1a of the UTF-8 name
+	 *
+	 * @param name The UTF-8 bytes of the name
+	 * @return The hash
+	 */
+	public static int hash(byte[] name) {
+		int hash = 0x811C9DC5;
+		for (byte b : name) {
+			hash ^= b & 0xFF;
+			hash *= 0x01000193;
+		}
+		return hash;
+	}
+
+	/**
+	 * Get the names of every file in the resource bundle
+	 *
+	 * @return The names or <code>null</code> if the bundle failed to load
+	 */
+	@Override
+	public Set<String> getResourceNames() {
+		if (bundle == null)
+			return null;
+		if (version == 1)
+			return fileOffsets.keySet();
+
+		HashSet<String> names = new HashSet<>(fileCount * 2);
+		byte[] nameBytes = new byte[0x10000];
+		for (int i = 0; i < fileCount; i++) {
+			int entry = getEntryOffset(i);
+			int nameOffset = bundle.getInt(entry + 4);
+			int nameLength = bundle.getShort(entry + 8) & 0xFFFF;
+			for (int j = 0; j < nameLength; j++)
+				nameBytes[j] = bundle.get(nameOffset + j);
+			names.add(new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8));
+		}
+		return names;
 	}
 
 	/**
@@ -75,10 +278,13 @@ public class ResourceBundleLocation implements ResourceLocation {
 	 */
 	@Override
 	public void close() {
-		try {
-			is.close();
-		} catch (IOException e) {
-			Logs.e(e);
+		bundle = null;
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				Logs.e(e);
+			}
 		}
 	}
 }
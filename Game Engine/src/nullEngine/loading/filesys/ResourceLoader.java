@@ -2,15 +2,31 @@ package nullEngine.loading.filesys;
 
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * A class that manages resource loading
+ * A class that manages resource loading, the location each resource was found in is remembered as well as the
+ * resources that weren't found anywhere so repeated lookups don't probe every location again
  */
 public class ResourceLoader {
 
-	private static final ArrayList<ResourceLocation> locations = new ArrayList<>();
+	private static final CopyOnWriteArrayList<ResourceLocation> locations = new CopyOnWriteArrayList<>();
+	private static final Map<ResourceLocation, Set<String>> indexes = new ConcurrentHashMap<>();
+	private static final Map<String, ResourceLocation> resolved = new ConcurrentHashMap<>();
+	private static final Set<String> missing = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+	private static final AtomicLong negativeHits = new AtomicLong();
 
 	/**
 	 * Load a resource from the registered resource locations
@@ -21,14 +37,77 @@ public class ResourceLoader {
 	 * @throws FileNotFoundException If the resource wasn't found or mark/reset was requested but wasn't supported in any ResourceLocation
 	 */
 	public static InputStream getResource(final String name, final boolean requireMark) throws FileNotFoundException {
+		if (missing.contains(name)) {
+			negativeHits.incrementAndGet();
+			throw new FileNotFoundException(name);
+		}
+
 		InputStream is;
-		for (ResourceLocation location : locations)
-			if ((is = location.getResource(name, requireMark)) != null)
+		ResourceLocation cached = resolved.get(name);
+		if (cached != null) {
+			if ((is = cached.getResource(name, requireMark)) != null) {
+				hits.incrementAndGet();
 				return is;
+			}
+			resolved.remove(name);
+		}
 
+		misses.incrementAndGet();
+		for (ResourceLocation location : locations) {
+			if (!mayContain(location, name))
+				continue;
+			if ((is = location.getResource(name, requireMark)) != null) {
+				resolved.put(name, location);
+				return is;
+			}
+		}
+
+		missing.add(name);
 		throw new FileNotFoundException(name);
 	}
 
+	/**
+	 * Load the whole of a resource from the registered resource locations into a direct buffer, files are memory mapped
+	 *
+	 * @param name The name of the resouce to load
+	 * @return The contents of the resource
+	 * @throws IOException If the resource wasn't found in any ResourceLocation or couldn't be read
+	 */
+	public static ByteBuffer getResourceBuffer(String name) throws IOException {
+		if (missing.contains(name)) {
+			negativeHits.incrementAndGet();
+			throw new FileNotFoundException(name);
+		}
+
+		ByteBuffer buf;
+		ResourceLocation cached = resolved.get(name);
+		if (cached != null) {
+			if ((buf = cached.getResourceBuffer(name)) != null) {
+				hits.incrementAndGet();
+				return buf;
+			}
+			resolved.remove(name);
+		}
+
+		misses.incrementAndGet();
+		for (ResourceLocation location : locations) {
+			if (!mayContain(location, name))
+				continue;
+			if ((buf = location.getResourceBuffer(name)) != null) {
+				resolved.put(name, location);
+				return buf;
+			}
+		}
+
+		missing.add(name);
+		throw new FileNotFoundException(name);
+	}
+
+	private static boolean mayContain(ResourceLocation location, String name) {
+		Set<String> names = indexes.get(location);
+		return names == null || names.contains(name);
+	}
+
 	/**
 	 * Load a resource from the registered resource locations
 	 *
@@ -41,12 +120,16 @@ public class ResourceLoader {
 	}
 
 	/**
-	 * Add a resource location
+	 * Add a resource location, if it can list its resources they are indexed so it is only asked for resources it has
 	 *
 	 * @param location The location to add
 	 */
 	public static void addResourceLocation(ResourceLocation location) {
+		Set<String> names = location.getResourceNames();
+		if (names != null)
+			indexes.put(location, new HashSet<>(names));
 		locations.add(location);
+		clearCache();
 	}
 
 	/**
@@ -57,12 +140,50 @@ public class ResourceLoader {
 	 */
 	public static boolean removeResourceLocation(ResourceLocation location) {
 		if (locations.remove(location)) {
+			indexes.remove(location);
+			clearCache();
 			location.close();
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Forget where resources were found and which weren't found, call this after resources are added to or removed
+	 * from a location while it is registered
+	 */
+	public static void clearCache() {
+		resolved.clear();
+		missing.clear();
+	}
+
+	/**
+	 * Get the number of lookups that were served by the location the resource was last found in
+	 *
+	 * @return The number of cache hits
+	 */
+	public static long getCacheHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Get the number of lookups that had to search the resource locations
+	 *
+	 * @return The number of cache misses
+	 */
+	public static long getCacheMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Get the number of lookups that failed straight away because the resource wasn't found before
+	 *
+	 * @return The number of negative cache hits
+	 */
+	public static long getNegativeCacheHits() {
+		return negativeHits.get();
+	}
+
 	/**
 	 * Set up the default resource locations
 	 */
@@ -77,5 +198,7 @@ public class ResourceLoader {
 	public static void close() {
 		locations.forEach(ResourceLocation::close);
 		locations.clear();
+		indexes.clear();
+		clearCache();
 	}
 }
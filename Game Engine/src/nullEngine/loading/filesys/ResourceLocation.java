@@ -1,6 +1,11 @@
 package nullEngine.loading.filesys;
 
+import util.StreamUtils;
+
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Set;
 
 /**
  * A location to load resources from
@@ -17,6 +22,37 @@ public interface ResourceLocation {
 	 */
 	InputStream getResource(String name, boolean requireMark);
 
+	/**
+	 * Attempt to get the whole of a resource in this location as a direct buffer, locations backed by files should
+	 * memory map them instead of copying
+	 *
+	 * @param name The name of the resource
+	 * @return The contents of the resource or <code>null</code> if the resource wasn't found
+	 * @throws IOException If the resource was found but couldn't be read
+	 */
+	default ByteBuffer getResourceBuffer(String name) throws IOException {
+		InputStream is = getResource(name, false);
+		if (is == null)
+			return null;
+		try {
+			byte[] bytes = StreamUtils.readAll(is);
+			ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+			buf.put(bytes).flip();
+			return buf;
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Get the names of every resource in this location so lookups for other names can skip it
+	 *
+	 * @return The names or <code>null</code> if this location can't list its resources
+	 */
+	default Set<String> getResourceNames() {
+		return null;
+	}
+
 	/**
 	 * Clean up after this resource location
 	 */
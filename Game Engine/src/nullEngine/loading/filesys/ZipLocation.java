@@ -6,6 +6,9 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -42,6 +45,23 @@ public class ZipLocation implements ResourceLocation {
 		return null;
 	}
 
+	/**
+	 * Get the names of every file in the zip
+	 *
+	 * @return The names
+	 */
+	@Override
+	public Set<String> getResourceNames() {
+		HashSet<String> names = new HashSet<>();
+		Enumeration<? extends ZipEntry> entries = file.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			if (!entry.isDirectory())
+				names.add(entry.getName());
+		}
+		return names;
+	}
+
 	/**
 	 * Clean up after this resource location
 	 */
@@ -0,0 +1,105 @@
+package nullEngine.loading.model;
+
+import org.lwjgl.BufferUtils;
+import util.Sizeof;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decoded model data that hasn't been uploaded yet, the buffers are direct and in native order so they can be handed
+ * to the graphics buffers as they are, they may be slices of a memory mapped file
+ */
+public class ModelData {
+	/**
+	 * The indices of every level of detail as 32 bit integers
+	 */
+	public ByteBuffer indices;
+	/**
+	 * The vertex positions as 3 floats per vertex
+	 */
+	public ByteBuffer vertices;
+	/**
+	 * The texture coordinates as 2 floats per vertex
+	 */
+	public ByteBuffer texCoords;
+	/**
+	 * The normals as 3 floats per vertex
+	 */
+	public ByteBuffer normals;
+	/**
+	 * The number of indices in each level of detail
+	 */
+	public int[] vertexCounts;
+	/**
+	 * The first index of each level of detail
+	 */
+	public int[] vertexOffsets;
+	/**
+	 * The distance from the farthest vertex to the origin
+	 */
+	public float radius;
+
+	/**
+	 * Create model data from arrays, the levels of detail are stored one after the other
+	 *
+	 * @param vertices     The vertices
+	 * @param texCoords    The texture coordinates
+	 * @param normals      The normals
+	 * @param indices      The indices
+	 * @param vertexCounts The number of indices in each level of detail
+	 * @return The model data
+	 */
+	public static ModelData create(float[] vertices, float[] texCoords, float[] normals, int[] indices, int[] vertexCounts) {
+		ModelData data = new ModelData();
+		data.indices = BufferUtils.createByteBuffer(indices.length * Sizeof.INT);
+		data.indices.asIntBuffer().put(indices);
+		data.vertices = createBuffer(vertices);
+		data.texCoords = createBuffer(texCoords);
+		data.normals = createBuffer(normals);
+		data.vertexCounts = vertexCounts;
+		data.vertexOffsets = getVertexOffsets(vertexCounts);
+		data.radius = getRadius(vertices);
+		return data;
+	}
+
+	private static ByteBuffer createBuffer(float[] arr) {
+		ByteBuffer buf = BufferUtils.createByteBuffer(arr.length * Sizeof.FLOAT);
+		buf.asFloatBuffer().put(arr);
+		return buf;
+	}
+
+	/**
+	 * Get the first index of each level of detail when they are stored one after the other
+	 *
+	 * @param vertexCounts The number of indices in each level of detail
+	 * @return The first index of each level of detail
+	 */
+	public static int[] getVertexOffsets(int[] vertexCounts) {
+		int[] vertexOffsets = new int[vertexCounts.length];
+		vertexOffsets[0] = 0;
+
+		for (int i = 1; i < vertexCounts.length; i++) {
+			vertexOffsets[i] = vertexCounts[i - 1] + vertexOffsets[i - 1];
+		}
+		return vertexOffsets;
+	}
+
+	/**
+	 * Get the distance from the farthest vertex to the origin
+	 *
+	 * @param vertices The vertices
+	 * @return The radius
+	 */
+	public static float getRadius(float[] vertices) {
+		float biggestRadius = 0;
+		for (int i = 0; i < vertices.length / 3; i++) {
+			float x = vertices[i * 3];
+			float y = vertices[i * 3 + 1];
+			float z = vertices[i * 3 + 2];
+			float radius = x * x + y * y + z * z;
+			if (radius > biggestRadius)
+				biggestRadius = radius;
+		}
+		return (float) Math.sqrt(biggestRadius);
+	}
+}
@@ -5,15 +5,22 @@ import nullEngine.loading.Loader;
 import nullEngine.loading.filesys.FileFormatException;
 import nullEngine.loading.filesys.ResourceLoader;
 import nullEngine.util.logs.Logs;
-import util.StreamUtils;
+import util.Sizeof;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * A class to load <a href="../spec/Model_Format.html" target="_blank">NLM models</a>
  */
 public class NLMLoader {
+
+	/**
+	 * The size of the version 4 header before the level of detail ranges
+	 */
+	public static final int VERSION_4_HEADER_SIZE = 32;
+
 	/**
 	 * Load an NLM model
 	 *
@@ -23,67 +30,128 @@ public class NLMLoader {
 	 */
 	public static Model loadModel(Loader loader, String name) {
 		try {
-			InputStream is = ResourceLoader.getResource("res/models/" + name);
-			int version = is.read();
-			if (version == 1) {
-				return loadVersion1(loader, is);
-			} else if (version == 2) {
-				return loadVersion2(loader, is);
-			} else if (version == 3) {
-				return loadVersion3(loader, is);
-			} else {
-				throw new FileFormatException("Invalid file version: " + version);
-			}
+			return loader.loadModel(loadModelData(name));
 		} catch (IOException e) {
 			Logs.f(e);
 			return null;
 		}
 	}
 
-	private static Model loadVersion3(Loader loader, InputStream is) throws IOException {
-		int lodCount = is.read();
+	/**
+	 * Read and decode an NLM model without uploading it, safe to call from any thread. Version 4 files that are on the
+	 * file system are memory mapped and the returned buffers are slices of the mapping
+	 *
+	 * @param name The name of the file
+	 * @return The model data
+	 * @throws IOException If the model failed to load
+	 */
+	public static ModelData loadModelData(String name) throws IOException {
+		ByteBuffer buf = ResourceLoader.getResourceBuffer("res/models/" + name);
+		buf.order(ByteOrder.BIG_ENDIAN);
+		int version = buf.get() & 0xFF;
+		if (version == 1) {
+			return loadVersion1(buf);
+		} else if (version == 2) {
+			return loadVersion2(buf);
+		} else if (version == 3) {
+			return loadVersion3(buf);
+		} else if (version == 4) {
+			return loadVersion4(buf);
+		} else {
+			throw new FileFormatException("Invalid file version: " + version);
+		}
+	}
+
+	private static ModelData loadVersion4(ByteBuffer buf) throws IOException {
+		buf.order(ByteOrder.LITTLE_ENDIAN);
+		if (buf.limit() < VERSION_4_HEADER_SIZE)
+			throw new FileFormatException("File is truncated");
+		int lodCount = buf.get(1) & 0xFF;
+		int vertexCount = buf.getInt(4);
+		int indexCount = buf.getInt(8);
+		float radius = buf.getFloat(12);
+		int indicesOffset = buf.getInt(16);
+		int verticesOffset = buf.getInt(20);
+		int texCoordsOffset = buf.getInt(24);
+		int normalsOffset = buf.getInt(28);
+
+		if (lodCount < 1 || vertexCount < 0 || indexCount < 0)
+			throw new FileFormatException("Invalid header");
+		if (buf.limit() < VERSION_4_HEADER_SIZE + lodCount * 8)
+			throw new FileFormatException("File is truncated");
+
+		ModelData data = new ModelData();
+		data.vertexCounts = new int[lodCount];
+		data.vertexOffsets = new int[lodCount];
+		for (int i = 0; i < lodCount; i++) {
+			data.vertexOffsets[i] = buf.getInt(VERSION_4_HEADER_SIZE + i * 8);
+			data.vertexCounts[i] = buf.getInt(VERSION_4_HEADER_SIZE + i * 8 + 4);
+			if (data.vertexOffsets[i] < 0 || data.vertexCounts[i] < 0 || (long) data.vertexOffsets[i] + data.vertexCounts[i] > indexCount)
+				throw new FileFormatException("Level of detail " + i + " is out of range");
+		}
+		data.radius = radius;
+
+		data.indices = slice(buf, "Indices", indicesOffset, (long) indexCount * Sizeof.INT);
+		data.vertices = slice(buf, "Vertices", verticesOffset, (long) vertexCount * 3 * Sizeof.FLOAT);
+		data.texCoords = slice(buf, "Texture coordinates", texCoordsOffset, (long) vertexCount * 2 * Sizeof.FLOAT);
+		data.normals = slice(buf, "Normals", normalsOffset, (long) vertexCount * 3 * Sizeof.FLOAT);
+
+		if (ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN || !buf.isDirect()) {
+			data.indices = toNative(data.indices);
+			data.vertices = toNative(data.vertices);
+			data.texCoords = toNative(data.texCoords);
+			data.normals = toNative(data.normals);
+		}
+		return data;
+	}
+
+	private static ByteBuffer slice(ByteBuffer buf, String section, int offset, long length) throws FileFormatException {
+		if (offset < 0 || offset + length > buf.limit())
+			throw new FileFormatException(section + " are out of range");
+		ByteBuffer dup = buf.duplicate();
+		dup.position(offset);
+		dup.limit((int) (offset + length));
+		return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static ByteBuffer toNative(ByteBuffer buf) {
+		ByteBuffer copy = ByteBuffer.allocateDirect(buf.remaining()).order(ByteOrder.nativeOrder());
+		copy.asIntBuffer().put(buf.asIntBuffer());
+		return copy;
+	}
+
+	private static ModelData loadVersion3(ByteBuffer buf) throws IOException {
+		int lodCount = buf.get() & 0xFF;
 		int[] vertexCounts = new int[lodCount];
 
 		int totalIndices = 0;
 
 		for (int i = 0; i < lodCount; i++) {
-			vertexCounts[i] = StreamUtils.readInt(is);
+			vertexCounts[i] = buf.getInt();
 			totalIndices += vertexCounts[i];
 		}
 
 		int[] indices = new int[totalIndices];
-		for (int i = 0; i < totalIndices; i++) {
-			indices[i] = StreamUtils.readInt(is);
-		}
+		buf.asIntBuffer().get(indices);
+		buf.position(buf.position() + totalIndices * Sizeof.INT);
 
-		int vertexCount = StreamUtils.readInt(is);
-		float[] vertices = new float[vertexCount * 3];
-		for (int i = 0; i < vertexCount * 3; i++) {
-			vertices[i] = Float.intBitsToFloat(StreamUtils.readInt(is));
-		}
-
-		float[] texCoords = new float[vertexCount * 2];
-		for (int i = 0; i < vertexCount * 2; i++) {
-			texCoords[i] = Float.intBitsToFloat(StreamUtils.readInt(is));
-		}
-
-		float[] normals = new float[vertexCount * 3];
-		for (int i = 0; i < vertexCount * 3; i++) {
-			normals[i] = Float.intBitsToFloat(StreamUtils.readInt(is));
-		}
+		int vertexCount = buf.getInt();
+		float[] vertices = readFloats(buf, vertexCount * 3);
+		float[] texCoords = readFloats(buf, vertexCount * 2);
+		float[] normals = readFloats(buf, vertexCount * 3);
 
-		return loader.loadModel(vertices, texCoords, normals, indices, vertexCounts);
+		return ModelData.create(vertices, texCoords, normals, indices, vertexCounts);
 	}
 
-	private static Model loadVersion2(Loader loader, InputStream is) throws IOException {
-		int lodCount = is.read();
+	private static ModelData loadVersion2(ByteBuffer buf) throws IOException {
+		int lodCount = buf.get() & 0xFF;
 		float[][] verticesTemp = new float[lodCount][];
 		float[][] texCoordsTemp = new float[lodCount][];
 		float[][] normalsTemp = new float[lodCount][];
 		int[][] indicesTemp = new int[lodCount][];
 
 		for (int i = 0; i < lodCount; i++) {
-			ModelData data = loadModelDataPre3(is);
+			ArrayData data = loadModelDataPre3(buf);
 			verticesTemp[i] = data.vertices;
 			texCoordsTemp[i] = data.texCoords;
 			normalsTemp[i] = data.normals;
@@ -107,72 +175,57 @@ public class NLMLoader {
 		int totalOffset = 0;
 		for (int i = 0; i < lodCount; i++) {
 			int len = verticesTemp[i].length / 3;
-			for (int j = 0; j < len; j++) {
-				vertices[(totalOffset + j) * 3] = verticesTemp[i][j * 3];
-				vertices[(totalOffset + j) * 3 + 1] = verticesTemp[i][j * 3 + 1];
-				vertices[(totalOffset + j) * 3 + 2] = verticesTemp[i][j * 3 + 2];
-
-				texCoords[(totalOffset + j) * 2] = texCoordsTemp[i][j * 2];
-				texCoords[(totalOffset + j) * 2 + 1] = texCoordsTemp[i][j * 2 + 1];
-
-				normals[(totalOffset + j) * 3] = normalsTemp[i][j * 3];
-				normals[(totalOffset + j) * 3 + 1] = normalsTemp[i][j * 3 + 1];
-				normals[(totalOffset + j) * 3 + 2] = normalsTemp[i][j * 3 + 2];
-			}
+			System.arraycopy(verticesTemp[i], 0, vertices, totalOffset * 3, len * 3);
+			System.arraycopy(texCoordsTemp[i], 0, texCoords, totalOffset * 2, len * 2);
+			System.arraycopy(normalsTemp[i], 0, normals, totalOffset * 3, len * 3);
 			totalOffset += len;
 		}
 
 		totalOffset = 0;
 
 		for (int[] indexArray : indicesTemp) {
-			for (int index : indexArray) {
-				indices[totalOffset++] = index;
-			}
+			System.arraycopy(indexArray, 0, indices, totalOffset, indexArray.length);
+			totalOffset += indexArray.length;
 		}
 
-		return loader.loadModel(vertices, texCoords, normals, indices, vertexCounts);
+		return ModelData.create(vertices, texCoords, normals, indices, vertexCounts);
 	}
 
-	private static Model loadVersion1(Loader loader, InputStream is) throws IOException {
-		ModelData data = loadModelDataPre3(is);
-		return loader.loadModel(data.vertices, data.texCoords, data.normals, data.indices);
+	private static ModelData loadVersion1(ByteBuffer buf) throws IOException {
+		ArrayData data = loadModelDataPre3(buf);
+		return ModelData.create(data.vertices, data.texCoords, data.normals, data.indices, new int[] {data.indices.length});
 	}
 
-	private static ModelData loadModelDataPre3(InputStream is) throws IOException {
-		ModelData data = new ModelData();
+	private static ArrayData loadModelDataPre3(ByteBuffer buf) throws IOException {
+		ArrayData data = new ArrayData();
 
-		int vertexCount = StreamUtils.readInt(is);
+		int vertexCount = buf.getInt();
 		if (vertexCount < 0)
 			throw new FileFormatException("Expected vertex count to be greater than 0");
 
-		data.vertices = new float[vertexCount * 3];
-		for (int i = 0; i < vertexCount * 3; i++) {
-			data.vertices[i] = Float.intBitsToFloat(StreamUtils.readInt(is));
-		}
+		data.vertices = readFloats(buf, vertexCount * 3);
+		data.texCoords = readFloats(buf, vertexCount * 2);
+		data.normals = readFloats(buf, vertexCount * 3);
 
-		data.texCoords = new float[vertexCount * 2];
-		for (int i = 0; i < vertexCount * 2; i++) {
-			data.texCoords[i] = Float.intBitsToFloat(StreamUtils.readInt(is));
-		}
-
-		data.normals = new float[vertexCount * 3];
-		for (int i = 0; i < vertexCount * 3; i++) {
-			data.normals[i] = Float.intBitsToFloat(StreamUtils.readInt(is));
-		}
-
-		int indexCount = StreamUtils.readInt(is);
+		int indexCount = buf.getInt();
 		if (indexCount < 0)
 			throw new FileFormatException("Expected index count to be greater than 0");
 
 		data.indices = new int[indexCount];
-		for (int i = 0; i < indexCount; i++) {
-			data.indices[i] = StreamUtils.readInt(is);
-		}
+		buf.asIntBuffer().get(data.indices);
+		buf.position(buf.position() + indexCount * Sizeof.INT);
 
 		return data;
 	}
 
-	private static class ModelData {
+	private static float[] readFloats(ByteBuffer buf, int count) {
+		float[] arr = new float[count];
+		buf.asFloatBuffer().get(arr);
+		buf.position(buf.position() + count * Sizeof.FLOAT);
+		return arr;
+	}
+
+	private static class ArrayData {
 		public float[] vertices;
 		public float[] texCoords;
 		public float[] normals;
@@ -0,0 +1,25 @@
+package nullEngine.loading.texture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decoded image data that hasn't been uploaded yet
+ */
+public class ImageData {
+	/**
+	 * The width
+	 */
+	public int width;
+	/**
+	 * The height
+	 */
+	public int height;
+	/**
+	 * Wether the pixels are RGBA instead of RGB
+	 */
+	public boolean hasAlpha;
+	/**
+	 * The pixels
+	 */
+	public ByteBuffer pixels;
+}
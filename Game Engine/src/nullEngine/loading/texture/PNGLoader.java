@@ -12,6 +12,7 @@ import org.lwjgl.opengl.GL14;
 import org.lwjgl.opengl.GL30;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 
 /**
@@ -32,43 +33,70 @@ public class PNGLoader {
 	public static Texture2D loadTexture(String file, float lodBias, boolean anisotropyEnabled, float anisotropyAmount, boolean forceUnique) throws IOException {
 		TextureResouce resource;
 		if (forceUnique || (resource = (TextureResouce) ResourceManager.getResource("texture:" + file)) == null) {
-			PNGDecoder decoder = new PNGDecoder(ResourceLoader.getResource(file));
+			int texture = upload(decode(file), lodBias, anisotropyEnabled, anisotropyAmount);
+			resource = forceUnique ? new TextureResouce(texture) : new TextureResouce(file, texture);
+		}
+		resource.addReference();
 
-			int texture = GL11.glGenTextures();
-			GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture);
+		return new Texture2D(resource);
+	}
 
-			GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR_MIPMAP_LINEAR);
-			GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-			GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
-			GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
-			GL11.glTexParameterf(GL11.GL_TEXTURE_2D, GL14.GL_TEXTURE_LOD_BIAS, Math.min(lodBias, GL11.glGetFloat(GL14.GL_MAX_TEXTURE_LOD_BIAS)));
+	/**
+	 * Read and decode a PNG file without uploading it, safe to call from any thread
+	 *
+	 * @param file The file to load
+	 * @return The decoded image
+	 * @throws IOException If the image failed to load
+	 */
+	public static ImageData decode(String file) throws IOException {
+		InputStream is = ResourceLoader.getResource(file);
+		try {
+			PNGDecoder decoder = new PNGDecoder(is);
+			ImageData image = new ImageData();
+			image.width = decoder.getWidth();
+			image.height = decoder.getHeight();
+			image.hasAlpha = decoder.hasAlpha();
+			int components = image.hasAlpha ? 4 : 3;
+			image.pixels = BufferUtils.createByteBuffer(components * image.width * image.height);
+			decoder.decode(image.pixels, image.width * components, image.hasAlpha ? PNGDecoder.Format.RGBA : PNGDecoder.Format.RGB);
+			image.pixels.flip();
+			return image;
+		} finally {
+			is.close();
+		}
+	}
 
-			if (anisotropyEnabled) {
-				GL11.glTexParameterf(GL11.GL_TEXTURE_2D, EXTTextureFilterAnisotropic.GL_TEXTURE_MAX_ANISOTROPY_EXT, Math.min(anisotropyAmount, GL11.glGetFloat(EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT)));
-			}
+	/**
+	 * Upload a decoded image to a new texture, has to be called on the RENDER thread
+	 *
+	 * @param image             The decoded image
+	 * @param lodBias           The texture level of detail bias
+	 * @param anisotropyEnabled Wether anisotropic filtering should be enabled
+	 * @param anisotropyAmount  The maximum amount of anisotropy
+	 * @return The texture id
+	 */
+	public static int upload(ImageData image, float lodBias, boolean anisotropyEnabled, float anisotropyAmount) {
+		int texture = GL11.glGenTextures();
+		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture);
 
-			if (decoder.hasAlpha()) {
-				GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, decoder.getWidth(), decoder.getHeight(), 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, (ByteBuffer) null);
-				ByteBuffer buf = BufferUtils.createByteBuffer(4 * decoder.getWidth() * decoder.getHeight());
-				decoder.decode(buf, decoder.getWidth() * 4, PNGDecoder.Format.RGBA);
-				buf.flip();
-				GL11.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, 0, 0, decoder.getWidth(), decoder.getHeight(), GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buf);
-			} else {
-				GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGB, decoder.getWidth(), decoder.getHeight(), 0, GL11.GL_RGB, GL11.GL_UNSIGNED_BYTE, (ByteBuffer) null);
-				ByteBuffer buf = BufferUtils.createByteBuffer(3 * decoder.getWidth() * decoder.getHeight());
-				decoder.decode(buf, decoder.getWidth() * 3, PNGDecoder.Format.RGB);
-				buf.flip();
-				GL11.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, 0, 0, decoder.getWidth(), decoder.getHeight(), GL11.GL_RGB, GL11.GL_UNSIGNED_BYTE, buf);
-			}
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR_MIPMAP_LINEAR);
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+		GL11.glTexParameterf(GL11.GL_TEXTURE_2D, GL14.GL_TEXTURE_LOD_BIAS, Math.min(lodBias, GL11.glGetFloat(GL14.GL_MAX_TEXTURE_LOD_BIAS)));
 
-			GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
+		if (anisotropyEnabled) {
+			GL11.glTexParameterf(GL11.GL_TEXTURE_2D, EXTTextureFilterAnisotropic.GL_TEXTURE_MAX_ANISOTROPY_EXT, Math.min(anisotropyAmount, GL11.glGetFloat(EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT)));
+		}
 
-			GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+		int format = image.hasAlpha ? GL11.GL_RGBA : GL11.GL_RGB;
+		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
+		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, format, image.width, image.height, 0, format, GL11.GL_UNSIGNED_BYTE, image.pixels);
+		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 4);
 
-			resource = forceUnique ? new TextureResouce(texture) : new TextureResouce(file, texture);
-		}
-		resource.addReference();
+		GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
 
-		return new Texture2D(resource);
+		GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+		return texture;
 	}
 }
@@ -55,6 +55,7 @@ public class GameObject implements EventListener {
 		this.renderer = renderer;
 		this.physics = physics;
 		transform.setParent(parent.getTransform());
+		renderMatrixValid = false;
 		for (GameObject object : children) {
 			object.onAdded(this, renderer, physics);
 		}
@@ -89,7 +90,7 @@ public class GameObject implements EventListener {
 		} else if (child instanceof RootObject) {
 			Logs.f(new IllegalArgumentException("Cannot add a root object"));
 		}
-		childrenOps.add(child);
+		GameObjectUpdateTask.defer(() -> childrenOps.add(child));
 	}
 
 	/**
@@ -103,7 +104,7 @@ public class GameObject implements EventListener {
 		} else if (component.getObject() != null) {
 			Logs.f(new IllegalArgumentException("GameComponent is already attached to an object"));
 		}
-		componentOps.add(component);
+		GameObjectUpdateTask.defer(() -> componentOps.add(component));
 	}
 
 	/**
@@ -162,13 +163,44 @@ public class GameObject implements EventListener {
 	 * @param delta The time since it was last updated
 	 */
 	public void update(@Nullable PhysicsEngine physics, double delta) {
+		updateComponents(delta);
+		for (GameObject child : children) {
+			child.update(physics, delta);
+		}
+	}
+
+	/**
+	 * Update this object, children are updated in parallel when there are more than <code>threshold</code> of them,
+	 * otherwise they are updated on this thread and their own children are checked in the same way.
+	 * Components in different subtrees must not modify each other, structural changes are still deferred until
+	 * {@link #postUpdate()} and are queued in the same order as a sequential update would queue them
+	 * <strong>Must be called from inside a ForkJoinPool</strong>
+	 *
+	 * @param physics   The physics engine
+	 * @param delta     The time since it was last updated
+	 * @param threshold The maximum amount of children to update on a single thread
+	 * @see nullEngine.control.layer.Layer#setParallelUpdate(java.util.concurrent.ForkJoinPool, int)
+	 */
+	public void updateParallel(@Nullable PhysicsEngine physics, double delta, int threshold) {
+		updateComponents(delta);
+		if (children.size() > threshold) {
+			// resolve the cached world matrices of this object and its parents before the children read them in parallel
+			transform.getMatrix();
+			GameObjectUpdateTask task = new GameObjectUpdateTask(children, 0, children.size(), physics, delta, threshold);
+			task.invoke();
+			task.runDeferred();
+		} else {
+			for (GameObject child : children) {
+				child.updateParallel(physics, delta, threshold);
+			}
+		}
+	}
+
+	private void updateComponents(double delta) {
 		for (GameComponent component : components) {
 			if (component.isEnabled())
 				component.update(this, delta);
 		}
-		for (GameObject child : children) {
-			child.update(physics, delta);
-		}
 	}
 
 	private ListOperator.OperatorCallback<GameComponent> componentListCallback = new ListOperator.OperatorCallback<GameComponent>() {
@@ -474,6 +506,7 @@ public class GameObject implements EventListener {
 
 	public void matrixUpdated() {
 		renderMatrixValid = false;
+		transform.invalidate();
 		for (GameComponent component : components)
 			component.matrixUpdated();
 		for (GameObject child : children)
@@ -0,0 +1,100 @@
+package nullEngine.object;
+
+import nullEngine.control.physics.PhysicsEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates a range of sibling objects on a fork join pool, splitting the range in half until it is no larger than the
+ * threshold
+ *
+ * @see GameObject#updateParallel(PhysicsEngine, double, int)
+ */
+class GameObjectUpdateTask extends RecursiveAction {
+
+	private static final ThreadLocal<GameObjectUpdateTask> CURRENT = new ThreadLocal<>();
+
+	private final List<GameObject> objects;
+	private final int start;
+	private final int end;
+	private final PhysicsEngine physics;
+	private final double delta;
+	private final int threshold;
+	private List<Runnable> deferred;
+
+	/**
+	 * Create a task that updates a range of objects
+	 *
+	 * @param objects   The objects
+	 * @param start     The first object to update
+	 * @param end       The index after the last object to update
+	 * @param physics   The physics engine
+	 * @param delta     The time since update was last called
+	 * @param threshold The maximum amount of siblings to update on a single thread
+	 */
+	GameObjectUpdateTask(List<GameObject> objects, int start, int end, PhysicsEngine physics, double delta, int threshold) {
+		this.objects = objects;
+		this.start = start;
+		this.end = end;
+		this.physics = physics;
+		this.delta = delta;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Run a structural change now, or queue it on the task updating this thread so that it is applied in sibling
+	 * order once the parallel update has finished
+	 *
+	 * @param operation The change to make
+	 */
+	static void defer(Runnable operation) {
+		GameObjectUpdateTask task = CURRENT.get();
+		if (task == null) {
+			operation.run();
+		} else {
+			if (task.deferred == null)
+				task.deferred = new ArrayList<>();
+			task.deferred.add(operation);
+		}
+	}
+
+	/**
+	 * Pass the changes queued while this task ran on to {@link #defer(Runnable)}, must be called on the thread that
+	 * invoked this task
+	 */
+	void runDeferred() {
+		if (deferred != null) {
+			for (Runnable operation : deferred)
+				defer(operation);
+			deferred = null;
+		}
+	}
+
+	@Override
+	protected void compute() {
+		if (end - start > threshold) {
+			int mid = (start + end) >>> 1;
+			GameObjectUpdateTask left = new GameObjectUpdateTask(objects, start, mid, physics, delta, threshold);
+			GameObjectUpdateTask right = new GameObjectUpdateTask(objects, mid, end, physics, delta, threshold);
+			invokeAll(left, right);
+			deferred = left.deferred;
+			if (right.deferred != null) {
+				if (deferred == null)
+					deferred = right.deferred;
+				else
+					deferred.addAll(right.deferred);
+			}
+		} else {
+			GameObjectUpdateTask previous = CURRENT.get();
+			CURRENT.set(this);
+			try {
+				for (int i = start; i < end; i++)
+					objects.get(i).updateParallel(physics, delta, threshold);
+			} finally {
+				CURRENT.set(previous);
+			}
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class ListOperator<E> {
 	private Object data;
@@ -197,7 +198,7 @@ public class ListOperator<E> {
 
 	public static class ListOperatorQueue<E> {
 		private ListOperatorPool<E> pool;
-		private Queue<ListOperator<E>> queue = new ArrayDeque<>();
+		private Queue<ListOperator<E>> queue = new ConcurrentLinkedQueue<>();
 
 		public ListOperatorQueue(ListOperatorPool<E> pool) {
 			this.pool = pool;
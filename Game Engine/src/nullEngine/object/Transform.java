@@ -18,6 +18,8 @@ public class Transform {
 	private Vector4f scale = new Vector4f(1, 1, 1);
 
 	private Matrix4f matrix = new Matrix4f();
+	private Matrix4f worldMatrix = new Matrix4f();
+	private boolean worldMatrixDirty = true;
 	private GameObject object;
 
 	/**
@@ -34,6 +36,7 @@ public class Transform {
 	 */
 	public void setParent(Transform parent) {
 		this.parent = parent;
+		worldMatrixDirty = true;
 	}
 
 	/**
@@ -93,6 +96,29 @@ public class Transform {
 		updateMatrix();
 	}
 
+	/**
+	 * Set the position and rotation relative to the parent at once, the values are copied into the current position
+	 * and rotation so the matrix is only updated once
+	 *
+	 * @param x  The x position
+	 * @param y  The y position
+	 * @param z  The z position
+	 * @param rx The x component of the rotation
+	 * @param ry The y component of the rotation
+	 * @param rz The z component of the rotation
+	 * @param rw The w component of the rotation
+	 */
+	public void setPosRot(float x, float y, float z, float rx, float ry, float rz, float rw) {
+		pos.x = x;
+		pos.y = y;
+		pos.z = z;
+		rot.x = rx;
+		rot.y = ry;
+		rot.z = rz;
+		rot.w = rw;
+		updateMatrix();
+	}
+
 	/**
 	 * Increase the position relative to the parent
 	 *
@@ -124,16 +150,31 @@ public class Transform {
 	}
 
 	/**
-	 * Get the transformation matrix
+	 * Get the transformation matrix, the world matrix is cached and only recomputed when this transform or one of its
+	 * parents has changed since the last call
+	 * <strong>The returned matrix is owned by this transform and must not be modified</strong>
 	 *
 	 * @return The transformation matrix
 	 */
 	public Matrix4f getMatrix() {
-		if (parent != null && !ignoreParent)
-			return Matrix4f.mul(parent.getMatrix(), matrix, null);
+		if (parent != null && !ignoreParent) {
+			if (worldMatrixDirty) {
+				Matrix4f.mul(parent.getMatrix(), matrix, worldMatrix);
+				worldMatrixDirty = false;
+			}
+			return worldMatrix;
+		}
 		return matrix;
 	}
 
+	/**
+	 * Mark the cached world matrix as out of date, called by {@link GameObject#matrixUpdated()} when this transform
+	 * or one of its parents changes
+	 */
+	void invalidate() {
+		worldMatrixDirty = true;
+	}
+
 	/**
 	 * Get the position relative to the world
 	 *
@@ -0,0 +1,13 @@
+package nullEngine.object.component.physics;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import math.Vector4f;
+
+import javax.vecmath.Vector3f;
+
+public class BoxCollider extends Collider {
+
+	public BoxCollider(Vector4f halfExtents) {
+		setCollisionShape(new BoxShape(new Vector3f(halfExtents.x, halfExtents.y, halfExtents.z)));
+	}
+}
@@ -2,38 +2,86 @@ package nullEngine.object.component.physics;
 
 import com.bulletphysics.collision.shapes.CollisionShape;
 import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
 import com.bulletphysics.linearmath.DefaultMotionState;
 import com.bulletphysics.linearmath.MotionState;
 import com.bulletphysics.linearmath.Transform;
+import math.Quaternion;
+import math.Vector4f;
+import nullEngine.control.physics.PhysicsEngine;
 import nullEngine.graphics.renderer.Renderer;
 import nullEngine.object.GameComponent;
 import nullEngine.object.GameObject;
 
-import javax.vecmath.Matrix4f;
 import javax.vecmath.Quat4f;
 import javax.vecmath.Vector3f;
 
-//TODO
+/**
+ * A rigid body simulated by the physics engine, the body is simulated in world space so the transform of the object
+ * it is attached to ignores its parent
+ */
 public class RigidBodyComponent extends GameComponent {
 
 	private RigidBody rigidBody;
 	private MotionState motionState;
 	private Transform transform = new Transform();
-	private Matrix4f matrix = new Matrix4f();
-	private Vector3f pos = new Vector3f();
 	private Quat4f rot = new Quat4f();
 
+	/**
+	 * Create a static rigid body
+	 *
+	 * @param collider The shape of the body
+	 */
 	public RigidBodyComponent(Collider collider) {
-		MotionState motionState = new DefaultMotionState();
+		this(collider, 0);
+	}
+
+	/**
+	 * Create a rigid body
+	 *
+	 * @param collider The shape of the body
+	 * @param mass     The mass of the body, 0 for a static body
+	 */
+	public RigidBodyComponent(Collider collider, float mass) {
 		CollisionShape shape = collider.getCollisionShape();
+		Vector3f inertia = new Vector3f(0, 0, 0);
+		if (mass != 0)
+			shape.calculateLocalInertia(mass, inertia);
 
+		transform.setIdentity();
+		motionState = new DefaultMotionState(transform);
+		rigidBody = new RigidBody(new RigidBodyConstructionInfo(mass, motionState, shape, inertia));
+		rigidBody.setUserPointer(this);
+	}
 
+	/**
+	 * Setup this component, moves the body to the objects world transform before it is added to the physics engine and
+	 * stores that transform as the objects local transform as it now ignores its parent
+	 *
+	 * @param parent   This objects parent
+	 * @param renderer The renderer
+	 * @param physics  The physics engine
+	 */
+	@Override
+	public void onAdded(GameObject parent, Renderer renderer, PhysicsEngine physics) {
+		nullEngine.object.Transform objectTransform = parent.getTransform();
+		Vector4f pos = objectTransform.getWorldPos();
+		Quaternion objectRot = objectTransform.getWorldRot();
+		objectTransform.setIgnoreParent(true);
+		objectTransform.setPosRot(pos.x, pos.y, pos.z, objectRot.x, objectRot.y, objectRot.z, objectRot.w);
+		transform.setIdentity();
+		transform.origin.set(pos.x, pos.y, pos.z);
+		rot.set(objectRot.x, objectRot.y, objectRot.z, objectRot.w);
+		transform.setRotation(rot);
+		motionState.setWorldTransform(transform);
+		rigidBody.setCenterOfMassTransform(transform);
+		super.onAdded(parent, renderer, physics);
 	}
 
 	/**
 	 * Render this component
 	 *
-	 * @param object   The object this component is attached to
+	 * @param object The object this component is attached to
 	 * @see Renderer
 	 */
 	@Override
@@ -43,14 +91,27 @@ public class RigidBodyComponent extends GameComponent {
 
 	/**
 	 * Update this component
-	 *  @param object  The object this component is attached to
-	 * @param delta   The time since update was last called
+	 *
+	 * @param object The object this component is attached to
+	 * @param delta  The time since update was last called
 	 */
 	@Override
 	public void update(GameObject object, double delta) {
 
 	}
 
+	/**
+	 * Copy the simulated transform to the object, called by the physics engine after a step for active bodies only
+	 */
+	public void syncTransform() {
+		GameObject object = getObject();
+		if (object == null)
+			return;
+		motionState.getWorldTransform(transform);
+		transform.getRotation(rot);
+		object.getTransform().setPosRot(transform.origin.x, transform.origin.y, transform.origin.z, rot.x, rot.y, rot.z, rot.w);
+	}
+
 	public RigidBody getRigidBody() {
 		return rigidBody;
 	}
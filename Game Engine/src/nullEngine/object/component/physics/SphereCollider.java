@@ -0,0 +1,10 @@
+package nullEngine.object.component.physics;
+
+import com.bulletphysics.collision.shapes.SphereShape;
+
+public class SphereCollider extends Collider {
+
+	public SphereCollider(float radius) {
+		setCollisionShape(new SphereShape(radius));
+	}
+}
@@ -49,11 +49,12 @@ public class Clock {
 	 * @see #TIME_RES
 	 */
 	public boolean update() {
+		long time = getTime();
 		if (lastTime == 0)
-			lastTime = getTime();
-		if (getTime() - lastTime > 0) {
-			delta = (getTime() - lastTime) / (double) TIME_RES;
-			lastTime = getTime();
+			lastTime = time;
+		if (time - lastTime > 0) {
+			delta = (time - lastTime) / (double) TIME_RES;
+			lastTime = time;
 			totalDelta += delta;
 			timeTowardsSecond += delta;
 			return true;
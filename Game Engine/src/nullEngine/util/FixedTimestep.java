@@ -0,0 +1,89 @@
+package nullEngine.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Utility class for running updates at a fixed rate, real time is accumulated and consumed in steps of a fixed
+ * size so the update delta never changes
+ */
+public class FixedTimestep {
+
+	private final long stepNanos;
+	private final double stepSeconds;
+	private final int maxSubsteps;
+
+	private long lastTime = -1;
+	private long accumulator = 0;
+
+	/**
+	 * Create a new fixed timestep
+	 *
+	 * @param tickRate    The amount of steps per second
+	 * @param maxSubsteps The maximum amount of steps to catch up on at once, any time beyond that is dropped
+	 */
+	public FixedTimestep(double tickRate, int maxSubsteps) {
+		if (tickRate <= 0)
+			throw new IllegalArgumentException("Tick rate must be positive");
+		if (maxSubsteps < 1)
+			throw new IllegalArgumentException("Max substeps must be at least 1");
+		this.stepNanos = (long) (1000000000 / tickRate);
+		this.stepSeconds = stepNanos / 1000000000d;
+		this.maxSubsteps = maxSubsteps;
+	}
+
+	/**
+	 * Accumulate the time passed since this was last called
+	 *
+	 * @return The amount of steps that should be run now, never more than the max substeps
+	 */
+	public int advance() {
+		long time = System.nanoTime();
+		if (lastTime == -1)
+			lastTime = time;
+		accumulator += time - lastTime;
+		lastTime = time;
+
+		int steps = (int) Math.min(accumulator / stepNanos, maxSubsteps);
+		accumulator -= steps * stepNanos;
+		if (accumulator >= stepNanos)
+			accumulator %= stepNanos;
+		return steps;
+	}
+
+	/**
+	 * Park the current thread until the next step is due
+	 */
+	public void waitForNextStep() {
+		long remaining = stepNanos - accumulator - (System.nanoTime() - lastTime);
+		if (remaining > 0)
+			LockSupport.parkNanos(remaining);
+	}
+
+	/**
+	 * Get the size of a step
+	 *
+	 * @return The step size in seconds
+	 */
+	public double getStep() {
+		return stepSeconds;
+	}
+
+	/**
+	 * Get how far the time left in the accumulator is through the next step, used to interpolate between the last
+	 * two updates when rendering
+	 *
+	 * @return A value between 0 and 1
+	 */
+	public float getAlpha() {
+		return (float) ((double) accumulator / stepNanos);
+	}
+
+	/**
+	 * Get the maximum amount of steps run at once
+	 *
+	 * @return The max substeps
+	 */
+	public int getMaxSubsteps() {
+		return maxSubsteps;
+	}
+}
@@ -0,0 +1,180 @@
+package nullEngine.util.logs;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes log records on a background thread, the records are stored in a preallocated ring buffer
+ */
+class AsyncAppender implements Runnable {
+	private final LogRecord[] records;
+	private final int mask;
+	private final Logs.OverflowPolicy policy;
+	private final Thread thread;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Condition written = lock.newCondition();
+	//records between head and tail belong to the writer thread, producers only touch the slot at tail
+	private long head = 0;
+	private long tail = 0;
+	private int dropped = 0;
+	private boolean running = true;
+
+	/**
+	 * Create a new appender and start its writer thread
+	 *
+	 * @param capacity The amount of records that can be queued, rounded up to a power of two
+	 * @param policy   What to do when the queue is full
+	 */
+	AsyncAppender(int capacity, Logs.OverflowPolicy policy) {
+		if (capacity < 2)
+			capacity = 2;
+		int size = Integer.highestOneBit(capacity - 1) << 1;
+		records = new LogRecord[size];
+		for (int i = 0; i < size; i++)
+			records[i] = new LogRecord();
+		mask = size - 1;
+		this.policy = policy;
+		thread = new Thread(this, "LOGGER");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queue a record
+	 *
+	 * @return <code>false</code> if the appender has been stopped or its thread died and the record should be written
+	 * directly
+	 */
+	boolean append(int type, LogFormat format, boolean err, boolean console, String level, String message, String threadName,
+	               StackTraceElement location, long time, Throwable throwable) {
+		lock.lock();
+		try {
+			if (!running || !thread.isAlive())
+				return false;
+			while (tail - head >= records.length) {
+				//the writer thread can't wait for itself
+				if (policy == Logs.OverflowPolicy.DROP || Thread.currentThread() == thread) {
+					dropped++;
+					return true;
+				}
+				notFull.awaitUninterruptibly();
+				if (!running)
+					return false;
+			}
+			records[(int) tail & mask].set(type, format, err, console, level, message, threadName, location, time, throwable);
+			tail++;
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wait until every record queued before this call has been written
+	 */
+	void flush() {
+		if (Thread.currentThread() == thread)
+			return;
+		lock.lock();
+		try {
+			long target = tail;
+			while (head < target && thread.isAlive())
+				written.awaitNanos(TimeUnit.MILLISECONDS.toNanos(100));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Write the remaining records and stop the writer thread
+	 */
+	void stop() {
+		lock.lock();
+		try {
+			running = false;
+			notEmpty.signal();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		if (Thread.currentThread() != thread) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			writeRecords();
+		} finally {
+			//producers write directly if this thread ever stops
+			lock.lock();
+			try {
+				running = false;
+				notFull.signalAll();
+				written.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void writeRecords() {
+		while (true) {
+			long start, end;
+			int droppedRecords;
+			lock.lock();
+			try {
+				while (head == tail && running)
+					notEmpty.awaitUninterruptibly();
+				if (head == tail && dropped == 0)
+					return;
+				start = head;
+				end = tail;
+				droppedRecords = dropped;
+				dropped = 0;
+			} finally {
+				lock.unlock();
+			}
+
+			if (droppedRecords > 0) {
+				try {
+					Logs.writeDropped(droppedRecords);
+				} catch (Throwable e) {
+					Logs.writeFailed(null, e);
+				}
+			}
+			for (long i = start; i < end; i++) {
+				LogRecord record = records[(int) i & mask];
+				try {
+					Logs.write(record);
+				} catch (Throwable e) {
+					Logs.writeFailed(record, e);
+				} finally {
+					record.clear();
+				}
+			}
+			Logs.flushStreams();
+
+			lock.lock();
+			try {
+				head = end;
+				notFull.signalAll();
+				written.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
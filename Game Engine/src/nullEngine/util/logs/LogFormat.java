@@ -0,0 +1,123 @@
+package nullEngine.util.logs;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+
+/**
+ * A log format compiled into tokens so formatting a message doesn't have to search the format string
+ */
+class LogFormat {
+	private static final int LITERAL = 0;
+	private static final int TIME = 1;
+	private static final int LEVEL = 2;
+	private static final int THREAD = 3;
+	private static final int MESSAGE = 4;
+	private static final int LOCATION = 5;
+
+	private final int[] tokens;
+	private final String[] literals;
+	private final boolean containsLocation;
+
+	/**
+	 * Compile a log format
+	 *
+	 * @param format The format, see {@link Logs#setLogFormat(String)}
+	 */
+	LogFormat(String format) {
+		ArrayList<Integer> tokens = new ArrayList<>();
+		ArrayList<String> literals = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		boolean containsLocation = false;
+		for (int i = 0; i < format.length(); i++) {
+			char c = format.charAt(i);
+			int token = -1;
+			if (c == '%' && i + 1 < format.length()) {
+				switch (format.charAt(i + 1)) {
+					case 't':
+						token = TIME;
+						break;
+					case 'l':
+						token = LEVEL;
+						break;
+					case 'T':
+						token = THREAD;
+						break;
+					case 'm':
+						token = MESSAGE;
+						break;
+					case 's':
+					case 'c':
+						token = LOCATION;
+						containsLocation = true;
+						break;
+				}
+			}
+			if (token == -1) {
+				literal.append(c);
+			} else {
+				if (literal.length() > 0) {
+					tokens.add(LITERAL);
+					literals.add(literal.toString());
+					literal.setLength(0);
+				}
+				tokens.add(token);
+				literals.add(null);
+				i++;
+			}
+		}
+		if (literal.length() > 0) {
+			tokens.add(LITERAL);
+			literals.add(literal.toString());
+		}
+		this.tokens = new int[tokens.size()];
+		for (int i = 0; i < this.tokens.length; i++)
+			this.tokens[i] = tokens.get(i);
+		this.literals = literals.toArray(new String[literals.size()]);
+		this.containsLocation = containsLocation;
+	}
+
+	/**
+	 * Get wether the format contains the caller location, only then the location has to be looked up
+	 *
+	 * @return Wether the format contains the location
+	 */
+	boolean containsLocation() {
+		return containsLocation;
+	}
+
+	/**
+	 * Format a record
+	 *
+	 * @param out           The builder to append to
+	 * @param record        The record
+	 * @param startTime     The time the logs were initialized
+	 * @param timeFormatter The formatter for the time since initialization
+	 */
+	void format(StringBuilder out, LogRecord record, long startTime, DateTimeFormatter timeFormatter) {
+		for (int i = 0; i < tokens.length; i++) {
+			switch (tokens[i]) {
+				case LITERAL:
+					out.append(literals[i]);
+					break;
+				case TIME:
+					long millis = Math.floorMod(record.time - startTime, 86400000L);
+					timeFormatter.formatTo(LocalTime.ofNanoOfDay(millis * 1000000L), out);
+					break;
+				case LEVEL:
+					out.append(record.level);
+					break;
+				case THREAD:
+					out.append(record.thread);
+					break;
+				case MESSAGE:
+					out.append(record.message);
+					break;
+				case LOCATION:
+					if (record.location != null)
+						out.append(record.location);
+					break;
+			}
+		}
+	}
+}
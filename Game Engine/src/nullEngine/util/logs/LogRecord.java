@@ -0,0 +1,44 @@
+package nullEngine.util.logs;
+
+/**
+ * A reusable log message waiting to be written
+ */
+class LogRecord {
+	static final int MESSAGE = 0;
+	static final int RAW = 1;
+	static final int EXCEPTION = 2;
+
+	int type;
+	LogFormat format;
+	boolean err;
+	boolean console;
+	String level;
+	String message;
+	String thread;
+	StackTraceElement location;
+	long time;
+	Throwable throwable;
+
+	void set(int type, LogFormat format, boolean err, boolean console, String level, String message, String thread,
+	         StackTraceElement location, long time, Throwable throwable) {
+		this.type = type;
+		this.format = format;
+		this.err = err;
+		this.console = console;
+		this.level = level;
+		this.message = message;
+		this.thread = thread;
+		this.location = location;
+		this.time = time;
+		this.throwable = throwable;
+	}
+
+	void clear() {
+		format = null;
+		level = null;
+		message = null;
+		thread = null;
+		location = null;
+		throwable = null;
+	}
+}
@@ -3,15 +3,17 @@ package nullEngine.util.logs;
 import com.sun.istack.internal.NotNull;
 import nullEngine.control.Application;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.channels.FileChannel;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Utility class for logging to the console and log files
@@ -29,16 +31,26 @@ public class Logs {
 	private static File logFolder;
 	private static String recent;
 	private static String log;
-	private static PrintStream out;
-	private static String logFormat;
-	private static boolean containsClass = true;
-	private static long startTime;
-	private static boolean initialized = false;
-	private static boolean debug = false;
+	private static volatile PrintStream out;
+	private static volatile LogFormat logFormat;
+	private static volatile long startTime;
+	private static volatile boolean initialized = false;
+	private static volatile boolean debug = false;
 	static boolean warnIfUseSystemOut;
 
-	private static SimpleDateFormat fileNameFormat;
-	private static SimpleDateFormat logTimeFormat;
+	private static DateTimeFormatter fileNameFormat;
+	private static volatile DateTimeFormatter logTimeFormat;
+
+	private static boolean async = true;
+	private static int queueCapacity = 8192;
+	private static OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	private static volatile AsyncAppender appender;
+
+	//only used while holding the write lock
+	private static final Object writeLock = new Object();
+	private static final StringBuilder builder = new StringBuilder();
+	private static final LogRecord directRecord = new LogRecord();
+	private static boolean shutdownHookAdded = false;
 
 	private static Profiler builtinProfiler = new Profiler("BUILTIN");
 
@@ -78,7 +90,7 @@ public class Logs {
 
 		//set log file
 		if (createDatedFiles) {
-			log = logFolder.getAbsolutePath() + "/log-" + fileNameFormat.format(startTime) + ".txt";
+			log = logFolder.getAbsolutePath() + "/log-" + fileNameFormat.format(LocalDateTime.now()) + ".txt";
 		} else {
 			log = logFolder.getAbsolutePath() + "/log-recent.txt";
 		}
@@ -87,33 +99,120 @@ public class Logs {
 			if (!logFile.exists())
 				logFile.createNewFile();
 			//set up PrintStream
-			out = new PrintStream(log);
+			out = new PrintStream(new BufferedOutputStream(new FileOutputStream(logFile)), false);
 			initialized = true;
 		} catch (IOException e) {
 			System.err.println("An error occured while initializing the logs");
 			e.printStackTrace(oldSystemErr);
 		}
 
+		if (async && appender == null) {
+			appender = new AsyncAppender(queueCapacity, overflowPolicy);
+			if (!shutdownHookAdded) {
+				Runtime.getRuntime().addShutdownHook(new Thread(Logs::flush, "LOGGER-SHUTDOWN"));
+				shutdownHookAdded = true;
+			}
+		}
+
 		System.setOut(new OutPrintStream());
 		System.setErr(new ErrorPrintStream());
 		//print debug message
 		Logs.d("Successfully initalized logs");
 	}
 
-	private static String formatMessage(String level, Object message) {
-		String stackString = "";
-		if (containsClass) {
+	private static void log(String level, Object message, boolean err, boolean console) {
+		LogFormat format = logFormat;
+		StackTraceElement location = null;
+		if (format.containsLocation()) {
 			StackTraceElement[] stack = new Throwable().getStackTrace();
-			for (int i = 0; i < stack.length; i++) {
-				if (!stack[i].toString().contains("nullengine.util.logs"))
-					stackString = stack[i].toString();
+			for (StackTraceElement element : stack) {
+				if (!element.getClassName().startsWith("nullEngine.util.logs")) {
+					location = element;
+					break;
+				}
+			}
+		}
+		append(LogRecord.MESSAGE, format, err, console, level, String.valueOf(message), location, null);
+	}
+
+	private static void append(int type, LogFormat format, boolean err, boolean console, String level, String message,
+	                           StackTraceElement location, Throwable throwable) {
+		String thread = Thread.currentThread().getName();
+		long time = System.currentTimeMillis();
+		AsyncAppender appender = Logs.appender;
+		if (appender != null && appender.append(type, format, err, console, level, message, thread, location, time, throwable))
+			return;
+
+		synchronized (writeLock) {
+			directRecord.set(type, format, err, console, level, message, thread, location, time, throwable);
+			write(directRecord);
+			directRecord.clear();
+			flushStreams();
+		}
+	}
+
+	static void write(LogRecord record) {
+		synchronized (writeLock) {
+			PrintStream console = record.console ? (record.err ? oldSystemErr : oldSystemOut) : null;
+			PrintStream out = initialized ? Logs.out : null;
+			switch (record.type) {
+				case LogRecord.MESSAGE:
+					builder.setLength(0);
+					record.format.format(builder, record, startTime, logTimeFormat);
+					String message = builder.toString();
+					if (console != null)
+						console.print(message);
+					if (out != null)
+						out.print(message);
+					break;
+				case LogRecord.RAW:
+					if (console != null)
+						console.print(record.message);
+					if (out != null)
+						out.print(record.message);
+					break;
+				case LogRecord.EXCEPTION:
+					if (console != null)
+						record.throwable.printStackTrace(console);
+					if (out != null)
+						record.throwable.printStackTrace(out);
+					break;
 			}
 		}
-		return logFormat.replace("%l", level).
-				replace("%t", logTimeFormat.format(new Date(System.currentTimeMillis() - startTime))).
-				replace("%m", String.valueOf(message)).
-				replace("%s", stackString).
-				replace("%T", Thread.currentThread().getName());
+	}
+
+	static void writeDropped(int count) {
+		LogRecord record = new LogRecord();
+		record.set(LogRecord.MESSAGE, logFormat, true, true, "WARNING", count + " log messages were dropped because the queue was full",
+				Thread.currentThread().getName(), null, System.currentTimeMillis(), null);
+		write(record);
+	}
+
+	static void writeFailed(LogRecord record, Throwable e) {
+		synchronized (writeLock) {
+			oldSystemErr.println("Failed to write log message" + (record != null && record.message != null ? ": " + record.message : ""));
+			e.printStackTrace(oldSystemErr);
+		}
+	}
+
+	static void flushStreams() {
+		synchronized (writeLock) {
+			oldSystemOut.flush();
+			oldSystemErr.flush();
+			PrintStream out = Logs.out;
+			if (initialized && out != null)
+				out.flush();
+		}
+	}
+
+	/**
+	 * Wait until all queued messages have been written
+	 */
+	public static void flush() {
+		AsyncAppender appender = Logs.appender;
+		if (appender != null)
+			appender.flush();
+		flushStreams();
 	}
 
 	/**
@@ -122,8 +221,7 @@ public class Logs {
 	 * @param message The message that will be printed (the toString method will be called)
 	 */
 	public static void print(Object message) {
-		oldSystemOut.print(message);
-		if (initialized) out.print(message);
+		append(LogRecord.RAW, null, false, true, null, String.valueOf(message), null, null);
 	}
 
 	/**
@@ -132,9 +230,7 @@ public class Logs {
 	 * @param message The message that will be printed (the toString method will be called)
 	 */
 	public static void err(Object message) {
-		oldSystemErr.print(message);
-		if (initialized)
-			out.print(message);
+		append(LogRecord.RAW, null, true, true, null, String.valueOf(message), null, null);
 	}
 
 	/**
@@ -143,14 +239,7 @@ public class Logs {
 	 * @param message The message that will be printed
 	 */
 	public static void debug(Object message) {
-		dPrint(formatMessage("DEBUG", message));
-	}
-
-	private static void dPrint(String message) {
-		if (debug)
-			oldSystemOut.print(message);
-		if (initialized)
-			out.print(message);
+		log("DEBUG", message, false, debug);
 	}
 
 	/**
@@ -159,7 +248,7 @@ public class Logs {
 	 * @param message The message that will be printed
 	 */
 	public static void d(Object message) {
-		dPrint(formatMessage("DEBUG", message));
+		log("DEBUG", message, false, debug);
 	}
 
 	/**
@@ -168,7 +257,7 @@ public class Logs {
 	 * @param message The message that will be printed
 	 */
 	public static void info(Object message) {
-		print(formatMessage("INFO", message));
+		log("INFO", message, false, true);
 	}
 
 	/**
@@ -177,7 +266,7 @@ public class Logs {
 	 * @param message The message that will be printed
 	 */
 	public static void i(Object message) {
-		print(formatMessage("INFO", message));
+		log("INFO", message, false, true);
 	}
 
 	/**
@@ -186,7 +275,7 @@ public class Logs {
 	 * @param message The message that will be printed
 	 */
 	public static void warn(Object message) {
-		print(formatMessage("WARNING", message));
+		log("WARNING", message, false, true);
 	}
 
 	/**
@@ -195,7 +284,7 @@ public class Logs {
 	 * @param message The message that will be printed
 	 */
 	public static void w(Object message) {
-		print(formatMessage("WARNING", message));
+		log("WARNING", message, false, true);
 	}
 
 	/**
@@ -205,7 +294,7 @@ public class Logs {
 	 * @param e       The exception that will be printed
 	 */
 	public static void exception(Object message, Throwable e) {
-		err(formatMessage("EXCEPTION", message));
+		log("EXCEPTION", message, true, true);
 		exception(e);
 	}
 
@@ -216,7 +305,7 @@ public class Logs {
 	 * @param e       The exception that will be printed
 	 */
 	public static void e(Object message, Throwable e) {
-		err(formatMessage("EXCEPTION", message));
+		log("EXCEPTION", message, true, true);
 		exception(e);
 	}
 
@@ -226,8 +315,7 @@ public class Logs {
 	 * @param e The exception that will be printed
 	 */
 	public static void exception(Throwable e) {
-		e.printStackTrace(oldSystemErr);
-		if (initialized) e.printStackTrace(out);
+		append(LogRecord.EXCEPTION, null, true, true, null, null, null, e);
 	}
 
 	/**
@@ -236,8 +324,7 @@ public class Logs {
 	 * @param e The exception that will be printed
 	 */
 	public static void e(Throwable e) {
-		e.printStackTrace(oldSystemErr);
-		if (initialized) e.printStackTrace(out);
+		append(LogRecord.EXCEPTION, null, true, true, null, null, null, e);
 	}
 
 	/**
@@ -246,7 +333,7 @@ public class Logs {
 	 * @param s The message that will be printed
 	 */
 	public static void error(Object s) {
-		err(formatMessage("ERROR", s));
+		log("ERROR", s, true, true);
 	}
 
 	/**
@@ -255,11 +342,11 @@ public class Logs {
 	 * @param s The message that will be printed
 	 */
 	public static void e(Object s) {
-		err(formatMessage("ERROR", s));
+		log("ERROR", s, true, true);
 	}
 
 	static void e2(Object s) {
-		err(formatMessage("ERROR", s));
+		log("ERROR", s, true, true);
 	}
 
 	/**
@@ -269,7 +356,7 @@ public class Logs {
 	 * @param e       The exception that will be printed
 	 */
 	public static void fatal(Object message, Throwable e) {
-		err(formatMessage("FATAL", message));
+		log("FATAL", message, true, true);
 		fatal(e);
 	}
 
@@ -280,7 +367,7 @@ public class Logs {
 	 * @param e       The exception that will be printed
 	 */
 	public static void f(Object message, Throwable e) {
-		err(formatMessage("FATAL", message));
+		log("FATAL", message, true, true);
 		fatal(e);
 	}
 
@@ -290,8 +377,8 @@ public class Logs {
 	 * @param e The exception that will be printed
 	 */
 	public static void fatal(Throwable e) {
-		e.printStackTrace(oldSystemErr);
-		if (initialized) e.printStackTrace(out);
+		append(LogRecord.EXCEPTION, null, true, true, null, null, null, e);
+		flush();
 		if (application != null)
 			application.stop(e);
 	}
@@ -302,8 +389,8 @@ public class Logs {
 	 * @param e The exception that will be printed
 	 */
 	public static void f(Throwable e) {
-		e.printStackTrace(oldSystemErr);
-		if (initialized) e.printStackTrace(out);
+		append(LogRecord.EXCEPTION, null, true, true, null, null, null, e);
+		flush();
 		if (application != null)
 			application.stop(e);
 	}
@@ -312,16 +399,44 @@ public class Logs {
 	 * Set the format of all logged messages
 	 *
 	 * @param logFormat The format to use
-	 *                  <br>%c will be replaced with the location it was called from
+	 *                  <br>%c or %s will be replaced with the location it was called from, the location is only looked
+	 *                  up if the format contains it
 	 *                  <br>%t will be replaced with the time since init was called
 	 *                  <br>%T will be replaced with the thread it is called from
 	 *                  <br>%l will be replaced with the log level
 	 *                  <br>%m will be replaced with the message
-	 *                  <br>the default is [%t][%c][%T] %m\n
+	 *                  <br>the default is [%t][%l][%T] %m\r\n
 	 */
 	public static void setLogFormat(String logFormat) {
-		Logs.logFormat = logFormat;
-		containsClass = logFormat.contains("%s");
+		Logs.logFormat = new LogFormat(logFormat);
+	}
+
+	/**
+	 * Set wether messages are written on a background thread, only has an effect before init is called, default
+	 * <code>true</code>
+	 *
+	 * @param async Wether to write asynchronously
+	 */
+	public static void setAsync(boolean async) {
+		Logs.async = async;
+	}
+
+	/**
+	 * Set the amount of messages that can wait to be written, only has an effect before init is called, default 8192
+	 *
+	 * @param queueCapacity The capacity, rounded up to a power of two
+	 */
+	public static void setQueueCapacity(int queueCapacity) {
+		Logs.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Set what happens when the queue is full, only has an effect before init is called, default BLOCK
+	 *
+	 * @param overflowPolicy The policy
+	 */
+	public static void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		Logs.overflowPolicy = overflowPolicy;
 	}
 
 	/**
@@ -339,9 +454,16 @@ public class Logs {
 	public static void finish() {
 		if (initialized) {
 			Logs.d("Finishing log");
-			initialized = false;
-			out.flush();
-			out.close();
+			AsyncAppender appender = Logs.appender;
+			if (appender != null) {
+				appender.stop();
+				Logs.appender = null;
+			}
+			synchronized (writeLock) {
+				initialized = false;
+				out.flush();
+				out.close();
+			}
 
 			if (createDatedFiles) {
 				File recent = new File(logFolder.getAbsolutePath() + "/" + Logs.recent);
@@ -432,20 +554,27 @@ public class Logs {
 	/**
 	 * Set the date and time format of the log file name
 	 *
-	 * @param format the date and time format using Java's SimpleDateFormat format, default yyyy-MM-dd-HH-mm-ss
+	 * @param format the date and time format using Java's DateTimeFormatter pattern format, default yyyy-MM-dd-HH-mm-ss
 	 */
 	public static void setLogFileFormat(String format) {
-		fileNameFormat = new SimpleDateFormat(format);
+		fileNameFormat = DateTimeFormatter.ofPattern(format);
 	}
 
 	/**
 	 * Set the time format of the logs
 	 *
-	 * @param format the time format using Java's SimpleDateFormat format, default HH:mm:ss
+	 * @param format the time format using Java's DateTimeFormatter pattern format, default HH:mm:ss
+	 * @throws IllegalArgumentException If the pattern is invalid or uses fields other than time fields
 	 */
 	public static void setLogTimeFormat(String format) {
-		logTimeFormat = new SimpleDateFormat(format);
-		logTimeFormat.setTimeZone(TimeZone.getTimeZone("GMT+0"));
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
+		try {
+			//messages are formatted as a time of day, a date field would fail every message
+			formatter.format(LocalTime.MIDNIGHT);
+		} catch (DateTimeException e) {
+			throw new IllegalArgumentException("Log time format can only use time fields: " + format, e);
+		}
+		logTimeFormat = formatter;
 	}
 
 	public static void setWarnIfUseSystemOut(boolean warnIfUseSystemOut) {
@@ -474,6 +603,20 @@ public class Logs {
 		return oldSystemOut;
 	}
 
+	/**
+	 * What to do with a new message when the queue is full
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Drop the message, the amount of dropped messages is logged once there is space again
+		 */
+		DROP,
+		/**
+		 * Wait until there is space in the queue
+		 */
+		BLOCK
+	}
+
 	/**
 	 * Profiler to time sections of code
 	 */
@@ -502,7 +645,7 @@ public class Logs {
 		 */
 		public void print() {
 			if (Logs.debug)
-				Logs.print(formatMessage("PROFILER", name + " " + ((System.nanoTime() - start) / 1e9)));
+				Logs.log("PROFILER", name + " " + ((System.nanoTime() - start) / 1e9), false, true);
 		}
 
 		/**
@@ -0,0 +1,243 @@
+package nullEngine.util.profiler;
+
+import nullEngine.util.logs.Logs;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Records nested timing scopes per thread and per frame, and GPU times for scopes started with {@link #beginGpu(String)}
+ * Every thread keeps a ring of its last frames, a frame ends when {@link #endFrame()} is called on that thread
+ * The recorded frames can be written as a Chrome trace, open it in chrome://tracing
+ */
+public final class FrameProfiler {
+
+	/**
+	 * The default amount of frames kept per thread
+	 */
+	public static final int DEFAULT_FRAMES = 300;
+
+	private static final int INITIAL_SCOPES = 64;
+	//added to the thread id for the track with the GPU times of a thread
+	private static final long GPU_TRACK_OFFSET = 1000000;
+
+	private static volatile boolean enabled = false;
+	private static volatile int frames = DEFAULT_FRAMES;
+	private static final long epoch = System.nanoTime();
+
+	private static final ArrayList<ThreadProfile> profiles = new ArrayList<>();
+	//empty until a thread records its first scope
+	private static final ThreadLocal<ThreadProfile> profile = new ThreadLocal<>();
+
+	private FrameProfiler() {
+	}
+
+	private static ThreadProfile current() {
+		ThreadProfile current = profile.get();
+		if (current == null) {
+			current = new ThreadProfile(Thread.currentThread(), frames, INITIAL_SCOPES);
+			synchronized (profiles) {
+				profiles.add(current);
+			}
+			profile.set(current);
+		}
+		return current;
+	}
+
+	/**
+	 * Set wether scopes are recorded, default <code>false</code>
+	 *
+	 * @param enabled Wether to record scopes
+	 */
+	public static void setEnabled(boolean enabled) {
+		FrameProfiler.enabled = enabled;
+	}
+
+	/**
+	 * Get wether scopes are recorded
+	 *
+	 * @return Wether scopes are recorded
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Set the amount of frames kept per thread, only affects threads that haven't recorded anything yet
+	 *
+	 * @param frames The amount of frames
+	 */
+	public static void setFrames(int frames) {
+		FrameProfiler.frames = Math.max(1, frames);
+	}
+
+	/**
+	 * Get the amount of frames kept per thread
+	 *
+	 * @return The amount of frames
+	 */
+	public static int getFrames() {
+		return frames;
+	}
+
+	/**
+	 * Start a scope on the current thread, every begin has to be followed by an {@link #end()}
+	 *
+	 * @param name The name of the scope
+	 */
+	public static void begin(String name) {
+		if (enabled)
+			current().begin(name, false);
+	}
+
+	/**
+	 * Start a scope on the current thread that is also timed on the GPU
+	 * GPU scopes can't be nested, a GPU scope inside another one is only timed on the CPU
+	 * Call from a thread with an OpenGL context, without a context or timer query support it is only timed on the CPU
+	 *
+	 * @param name The name of the scope
+	 */
+	public static void beginGpu(String name) {
+		if (enabled)
+			current().begin(name, true);
+	}
+
+	/**
+	 * End the last scope started on the current thread
+	 */
+	public static void end() {
+		if (enabled)
+			current().end();
+	}
+
+	/**
+	 * End the current frame of the current thread, scopes that are still open are ended
+	 * The RENDER thread should call this after swapping buffers, other threads once per tick
+	 */
+	public static void endFrame() {
+		if (enabled)
+			current().endFrame();
+	}
+
+	/**
+	 * Delete the GPU queries of the current thread, call before its OpenGL context is destroyed
+	 * Does nothing if the current thread never recorded a scope
+	 */
+	public static void cleanup() {
+		ThreadProfile current = profile.get();
+		if (current != null)
+			current.deleteGpuTimer();
+	}
+
+	/**
+	 * Remove all recorded frames
+	 */
+	public static void clear() {
+		synchronized (profiles) {
+			for (ThreadProfile profile : profiles)
+				profile.clear();
+		}
+	}
+
+	/**
+	 * Write the recorded frames of all threads as a Chrome trace
+	 *
+	 * @param file The file to write to
+	 * @return Wether the trace was written
+	 */
+	public static boolean writeChromeTrace(File file) {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory())
+			parent.mkdirs();
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			writeChromeTrace(writer);
+			return true;
+		} catch (IOException e) {
+			Logs.e("Failed to write trace " + file, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Write the recorded frames of all threads as a Chrome trace
+	 *
+	 * @param writer The writer to write to
+	 * @throws IOException If writing failed
+	 */
+	public static void writeChromeTrace(Writer writer) throws IOException {
+		ArrayList<ThreadProfile> profiles;
+		synchronized (FrameProfiler.profiles) {
+			profiles = new ArrayList<>(FrameProfiler.profiles);
+		}
+		writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+		boolean[] first = {true};
+		for (ThreadProfile profile : profiles) {
+			writeMetadata(writer, first, profile.id, profile.name);
+			writeMetadata(writer, first, profile.id + GPU_TRACK_OFFSET, profile.name + " GPU");
+			profile.forEachFrame((profile_, frame) -> {
+				writeEvent(writer, first, "Frame " + frame.frame, "frame", profile_.id, frame.start, frame.end - frame.start);
+				for (int i = 0; i < frame.count; i++) {
+					writeEvent(writer, first, frame.names[i], "cpu", profile_.id, frame.starts[i], frame.ends[i] - frame.starts[i]);
+					//GPU times have no start time, they are shown from the CPU start of the scope
+					if (frame.gpuTimes[i] >= 0)
+						writeEvent(writer, first, frame.names[i], "gpu", profile_.id + GPU_TRACK_OFFSET, frame.starts[i], frame.gpuTimes[i]);
+				}
+			});
+		}
+		writer.write("\n]}\n");
+	}
+
+	private static void writeMetadata(Writer writer, boolean[] first, long tid, String name) throws IOException {
+		separator(writer, first);
+		writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+		writer.write(Long.toString(tid));
+		writer.write(",\"args\":{\"name\":");
+		writeString(writer, name);
+		writer.write("}}");
+	}
+
+	private static void writeEvent(Writer writer, boolean[] first, String name, String category, long tid, long start, long duration) throws IOException {
+		separator(writer, first);
+		writer.write("{\"name\":");
+		writeString(writer, name);
+		writer.write(",\"cat\":\"");
+		writer.write(category);
+		writer.write("\",\"ph\":\"X\",\"pid\":1,\"tid\":");
+		writer.write(Long.toString(tid));
+		writer.write(",\"ts\":");
+		writer.write(String.format(Locale.ROOT, "%.3f", (start - epoch) / 1e3));
+		writer.write(",\"dur\":");
+		writer.write(String.format(Locale.ROOT, "%.3f", duration / 1e3));
+		writer.write("}");
+	}
+
+	private static void separator(Writer writer, boolean[] first) throws IOException {
+		if (first[0])
+			first[0] = false;
+		else
+			writer.write(",\n");
+	}
+
+	private static void writeString(Writer writer, String string) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < 0x20) {
+				writer.write(String.format("\\u%04x", (int) c));
+			} else {
+				writer.write(c);
+			}
+		}
+		writer.write('"');
+	}
+}
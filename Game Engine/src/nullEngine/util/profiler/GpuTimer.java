@@ -0,0 +1,135 @@
+package nullEngine.util.profiler;
+
+import nullEngine.util.logs.Logs;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.util.Arrays;
+
+/**
+ * Times scopes on the GPU with GL_TIME_ELAPSED queries
+ * The queries of a frame are read back {@link #BUFFERS} - 1 frames later so reading them doesn't stall the pipeline,
+ * time elapsed queries can't be nested so only the outermost GPU scope is timed
+ */
+class GpuTimer {
+	/**
+	 * The amount of frames of queries in flight
+	 */
+	static final int BUFFERS = 2;
+
+	private final int[][] queries = new int[BUFFERS][16];
+	private final int[] created = new int[BUFFERS];
+	private final int[] used = new int[BUFFERS];
+	private final ProfilerFrame[][] frames = new ProfilerFrame[BUFFERS][16];
+	private final long[][] frameNumbers = new long[BUFFERS][16];
+	private final int[][] indices = new int[BUFFERS][16];
+	private int buffer = 0;
+	private boolean active = false;
+	private int missed = 0;
+
+	/**
+	 * Get wether the current thread has an OpenGL context that supports timer queries
+	 * Without a context or without the native libraries, e.g. in headless tools, this returns <code>false</code>
+	 *
+	 * @return Wether GPU timing is supported
+	 */
+	static boolean isSupported() {
+		GLCapabilities capabilities;
+		try {
+			capabilities = GL.getCapabilities();
+		} catch (IllegalStateException | LinkageError e) {
+			return false;
+		}
+		return capabilities != null && (capabilities.OpenGL33 || capabilities.GL_ARB_timer_query);
+	}
+
+	/**
+	 * Start timing a scope
+	 *
+	 * @param frame The frame the scope is in
+	 * @param index The index of the scope in the frame
+	 * @return <code>false</code> if another GPU scope is being timed
+	 */
+	boolean begin(ProfilerFrame frame, int index) {
+		if (active)
+			return false;
+		int[] queries = this.queries[buffer];
+		int query = used[buffer];
+		if (query == queries.length) {
+			int capacity = queries.length * 2;
+			this.queries[buffer] = queries = Arrays.copyOf(queries, capacity);
+			frames[buffer] = Arrays.copyOf(frames[buffer], capacity);
+			frameNumbers[buffer] = Arrays.copyOf(frameNumbers[buffer], capacity);
+			indices[buffer] = Arrays.copyOf(indices[buffer], capacity);
+		}
+		if (query == created[buffer]) {
+			queries[query] = GL15.glGenQueries();
+			created[buffer]++;
+		}
+		frames[buffer][query] = frame;
+		frameNumbers[buffer][query] = frame.frame;
+		indices[buffer][query] = index;
+		frame.gpuTimes[index] = ProfilerFrame.PENDING_GPU_TIME;
+		used[buffer]++;
+		GL15.glBeginQuery(GL33.GL_TIME_ELAPSED, queries[query]);
+		active = true;
+		return true;
+	}
+
+	/**
+	 * Stop timing the current scope
+	 */
+	void end() {
+		GL15.glEndQuery(GL33.GL_TIME_ELAPSED);
+		active = false;
+	}
+
+	/**
+	 * Switch to the next set of queries and read back the results of that set
+	 * Has to be called while holding the lock of the thread profile that owns the frames
+	 */
+	void endFrame() {
+		if (active)
+			end();
+		buffer = (buffer + 1) % BUFFERS;
+		int count = used[buffer];
+		if (count == 0)
+			return;
+		int[] queries = this.queries[buffer];
+		//queries finish in order so if the last one is available all of them are
+		boolean available = GL15.glGetQueryObjecti(queries[count - 1], GL15.GL_QUERY_RESULT_AVAILABLE) != 0;
+		for (int i = 0; i < count; i++) {
+			ProfilerFrame frame = frames[buffer][i];
+			//the frame may have been recycled if the ring is smaller than the amount of buffers
+			boolean valid = frame.frame == frameNumbers[buffer][i];
+			if (available) {
+				long time = GL33.glGetQueryObjecti64(queries[i], GL15.GL_QUERY_RESULT);
+				if (valid)
+					frame.gpuTimes[indices[buffer][i]] = time;
+			} else if (valid) {
+				frame.gpuTimes[indices[buffer][i]] = ProfilerFrame.NO_GPU_TIME;
+			}
+			frames[buffer][i] = null;
+		}
+		if (!available && missed++ == 0)
+			Logs.w("GPU timer query results weren't ready after " + (BUFFERS - 1) + " frames, some GPU times are missing");
+		used[buffer] = 0;
+	}
+
+	/**
+	 * Delete the query objects, call from the thread that created them
+	 */
+	void delete() {
+		if (active)
+			end();
+		for (int i = 0; i < BUFFERS; i++) {
+			for (int j = 0; j < created[i]; j++)
+				GL15.glDeleteQueries(queries[i][j]);
+			created[i] = 0;
+			used[i] = 0;
+			Arrays.fill(frames[i], null);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package nullEngine.util.profiler;
+
+import java.util.Arrays;
+
+/**
+ * The scopes recorded on one thread during one frame, reused when the frame leaves the ring
+ */
+class ProfilerFrame {
+	/**
+	 * GPU time of a scope without a GPU query
+	 */
+	static final long NO_GPU_TIME = -1;
+	/**
+	 * GPU time of a scope whose query result isn't available yet
+	 */
+	static final long PENDING_GPU_TIME = -2;
+
+	long frame;
+	long start;
+	long end;
+	int count;
+	String[] names;
+	long[] starts;
+	long[] ends;
+	int[] depths;
+	long[] gpuTimes;
+
+	ProfilerFrame(int capacity) {
+		names = new String[capacity];
+		starts = new long[capacity];
+		ends = new long[capacity];
+		depths = new int[capacity];
+		gpuTimes = new long[capacity];
+	}
+
+	void reset(long frame, long start) {
+		Arrays.fill(names, 0, count, null);
+		this.frame = frame;
+		this.start = start;
+		this.end = start;
+		count = 0;
+	}
+
+	int add(String name, long start, int depth) {
+		if (count == names.length) {
+			int capacity = names.length * 2;
+			names = Arrays.copyOf(names, capacity);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			depths = Arrays.copyOf(depths, capacity);
+			gpuTimes = Arrays.copyOf(gpuTimes, capacity);
+		}
+		names[count] = name;
+		starts[count] = start;
+		ends[count] = start;
+		depths[count] = depth;
+		gpuTimes[count] = NO_GPU_TIME;
+		return count++;
+	}
+}
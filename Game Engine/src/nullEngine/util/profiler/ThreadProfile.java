@@ -0,0 +1,120 @@
+package nullEngine.util.profiler;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The scopes recorded on one thread
+ * Scopes are only added by the owning thread, completed frames are moved into the ring while holding the lock
+ */
+class ThreadProfile {
+	final String name;
+	final long id;
+
+	private final ProfilerFrame[] ring;
+	private int ringStart = 0;
+	private int ringCount = 0;
+	private ProfilerFrame current;
+	private long frameNumber = 0;
+
+	private int[] stack = new int[32];
+	private boolean[] gpuStack = new boolean[32];
+	private int depth = 0;
+
+	private GpuTimer gpuTimer;
+	private boolean gpuChecked = false;
+
+	ThreadProfile(Thread thread, int frames, int scopes) {
+		name = thread.getName();
+		id = thread.getId();
+		ring = new ProfilerFrame[frames];
+		for (int i = 0; i < frames; i++)
+			ring[i] = new ProfilerFrame(scopes);
+		current = new ProfilerFrame(scopes);
+		current.reset(frameNumber, System.nanoTime());
+	}
+
+	void begin(String name, boolean gpu) {
+		int index = current.add(name, System.nanoTime(), depth);
+		if (depth == stack.length) {
+			stack = Arrays.copyOf(stack, depth * 2);
+			gpuStack = Arrays.copyOf(gpuStack, depth * 2);
+		}
+		stack[depth] = index;
+		gpuStack[depth] = gpu && beginGpu(index);
+		depth++;
+	}
+
+	private boolean beginGpu(int index) {
+		if (!gpuChecked) {
+			gpuChecked = true;
+			if (GpuTimer.isSupported())
+				gpuTimer = new GpuTimer();
+		}
+		return gpuTimer != null && gpuTimer.begin(current, index);
+	}
+
+	void end() {
+		//scopes opened before the profiler was enabled
+		if (depth == 0)
+			return;
+		depth--;
+		if (gpuStack[depth])
+			gpuTimer.end();
+		current.ends[stack[depth]] = System.nanoTime();
+	}
+
+	void endFrame() {
+		long now = System.nanoTime();
+		//close scopes that are still open so every recorded scope has an end
+		while (depth > 0)
+			end();
+		current.end = now;
+		synchronized (this) {
+			ProfilerFrame recycled;
+			if (ringCount == ring.length) {
+				recycled = ring[ringStart];
+				ring[ringStart] = current;
+				ringStart = (ringStart + 1) % ring.length;
+			} else {
+				int index = (ringStart + ringCount) % ring.length;
+				recycled = ring[index];
+				ring[index] = current;
+				ringCount++;
+			}
+			current = recycled;
+			current.reset(++frameNumber, now);
+			if (gpuTimer != null)
+				gpuTimer.endFrame();
+		}
+	}
+
+	/**
+	 * Delete the GPU queries, call from the owning thread
+	 */
+	synchronized void deleteGpuTimer() {
+		if (gpuTimer != null) {
+			gpuTimer.delete();
+			gpuTimer = null;
+		}
+		gpuChecked = false;
+		Arrays.fill(gpuStack, false);
+	}
+
+	synchronized void clear() {
+		ringStart = 0;
+		ringCount = 0;
+	}
+
+	/**
+	 * Call a visitor for every completed frame, oldest first
+	 */
+	synchronized void forEachFrame(FrameVisitor visitor) throws IOException {
+		for (int i = 0; i < ringCount; i++)
+			visitor.visit(this, ring[(ringStart + i) % ring.length]);
+	}
+
+	interface FrameVisitor {
+		void visit(ThreadProfile profile, ProfilerFrame frame) throws IOException;
+	}
+}
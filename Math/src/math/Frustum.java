@@ -0,0 +1,78 @@
+package math;
+
+/**
+ * A view frustum made of six planes, used to test if objects are visible
+ */
+public class Frustum {
+
+	/**
+	 * The planes stored as (a, b, c, d) with normals pointing into the frustum
+	 */
+	private final float[] planes = new float[24];
+
+	/**
+	 * Create a frustum from a matrix
+	 * @param viewProjection The projection matrix multiplied by the view matrix
+	 */
+	public Frustum(Matrix4f viewProjection) {
+		set(viewProjection);
+	}
+
+	/**
+	 * Create an empty frustum, call {@link #set(Matrix4f)} before use
+	 */
+	public Frustum() {
+	}
+
+	/**
+	 * Extract the planes from a matrix
+	 * @param m The projection matrix multiplied by the view matrix
+	 * @return this
+	 */
+	public Frustum set(Matrix4f m) {
+		setPlane(0, m.m03 + m.m00, m.m13 + m.m10, m.m23 + m.m20, m.m33 + m.m30);
+		setPlane(1, m.m03 - m.m00, m.m13 - m.m10, m.m23 - m.m20, m.m33 - m.m30);
+		setPlane(2, m.m03 + m.m01, m.m13 + m.m11, m.m23 + m.m21, m.m33 + m.m31);
+		setPlane(3, m.m03 - m.m01, m.m13 - m.m11, m.m23 - m.m21, m.m33 - m.m31);
+		setPlane(4, m.m03 + m.m02, m.m13 + m.m12, m.m23 + m.m22, m.m33 + m.m32);
+		setPlane(5, m.m03 - m.m02, m.m13 - m.m12, m.m23 - m.m22, m.m33 - m.m32);
+		return this;
+	}
+
+	private void setPlane(int plane, float a, float b, float c, float d) {
+		float length = (float) Math.sqrt(a * a + b * b + c * c);
+		int i = plane * 4;
+		planes[i] = a / length;
+		planes[i + 1] = b / length;
+		planes[i + 2] = c / length;
+		planes[i + 3] = d / length;
+	}
+
+	/**
+	 * Check if a sphere is at least partially inside the frustum
+	 * @param x The x of the center
+	 * @param y The y of the center
+	 * @param z The z of the center
+	 * @param radius The radius
+	 * @return <code>true</code> if any part of the sphere may be inside the frustum
+	 */
+	public boolean intersectsSphere(float x, float y, float z, float radius) {
+		for (int i = 0; i < 24; i += 4) {
+			if (planes[i] * x + planes[i + 1] * y + planes[i + 2] * z + planes[i + 3] < -radius)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the largest scale a matrix applies to any axis
+	 * @param m The matrix
+	 * @return The largest scale factor
+	 */
+	public static float getMaxScale(Matrix4f m) {
+		float x = m.m00 * m.m00 + m.m01 * m.m01 + m.m02 * m.m02;
+		float y = m.m10 * m.m10 + m.m11 * m.m11 + m.m12 * m.m12;
+		float z = m.m20 * m.m20 + m.m21 * m.m21 + m.m22 * m.m22;
+		return (float) Math.sqrt(Math.max(x, Math.max(y, z)));
+	}
+}
@@ -0,0 +1,34 @@
+package math;
+
+/**
+ * Temporary math objects confined to the calling thread, used to avoid allocating in hot code without sharing
+ * mutable state (and locks) between threads
+ * <strong>The objects are reused by every caller on the same thread, do not keep references to them</strong>
+ */
+public final class MathScratch {
+
+	private static final ThreadLocal<MathScratch> SCRATCH = ThreadLocal.withInitial(MathScratch::new);
+
+	public final Matrix4f mat0 = new Matrix4f();
+	public final Matrix4f mat1 = new Matrix4f();
+	public final Matrix4f mat2 = new Matrix4f();
+
+	public final Vector4f vec0 = new Vector4f();
+	public final Vector4f vec1 = new Vector4f();
+	public final Vector4f vec2 = new Vector4f();
+	public final Vector4f vec3 = new Vector4f();
+
+	public final Quaternion quat0 = new Quaternion();
+	public final Quaternion quat1 = new Quaternion();
+
+	private MathScratch() {
+	}
+
+	/**
+	 * Get the scratch objects for the current thread
+	 * @return The scratch objects
+	 */
+	public static MathScratch get() {
+		return SCRATCH.get();
+	}
+}
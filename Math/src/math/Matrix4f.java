@@ -15,8 +15,6 @@ public class Matrix4f implements Serializable {
 	 */
 	public static final Matrix4f IDENTITY = new Matrix4f();
 
-	private static final Matrix4f internal = new Matrix4f();
-
 	public float
 			m00 = 1, m01 = 0, m02 = 0, m03 = 0,
 			m10 = 0, m11 = 1, m12 = 0, m13 = 0,
@@ -282,23 +280,38 @@ public class Matrix4f implements Serializable {
 	}
 
 	/**
-	 * Sets a rotation matrix
+	 * Sets a rotation matrix, rotating around x then y then z
 	 * @param rot The angles to rotate by
 	 * @param dest the destination matrix
 	 * @return The destination matrix set to be a rotation matrix, if it was null it creates a new matrix
 	 */
-	public synchronized static Matrix4f setRotation(Vector4f rot, Matrix4f dest) {
+	public static Matrix4f setRotation(Vector4f rot, Matrix4f dest) {
 		if (dest == null)
 			dest = new Matrix4f();
-		else
-			dest.setIdentity();
-
-		internal.rotX(rot.x);
-		dest.mul(internal);
-		internal.rotY(rot.y);
-		dest.mul(internal);
-		internal.rotZ(rot.z);
-		dest.mul(internal);
+
+		float sx = (float) Math.sin(rot.x);
+		float cx = (float) Math.cos(rot.x);
+		float sy = (float) Math.sin(rot.y);
+		float cy = (float) Math.cos(rot.y);
+		float sz = (float) Math.sin(rot.z);
+		float cz = (float) Math.cos(rot.z);
+
+		dest.m00 = cy * cz;
+		dest.m01 = sx * sy * cz + cx * sz;
+		dest.m02 = sx * sz - cx * sy * cz;
+		dest.m03 = 0;
+		dest.m10 = -cy * sz;
+		dest.m11 = cx * cz - sx * sy * sz;
+		dest.m12 = cx * sy * sz + sx * cz;
+		dest.m13 = 0;
+		dest.m20 = sy;
+		dest.m21 = -sx * cy;
+		dest.m22 = cx * cy;
+		dest.m23 = 0;
+		dest.m30 = 0;
+		dest.m31 = 0;
+		dest.m32 = 0;
+		dest.m33 = 1;
 		return dest;
 	}
 
@@ -413,23 +426,44 @@ public class Matrix4f implements Serializable {
 	}
 
 	/**
-	 * /**
-	 * Sets a transformation matrix
+	 * Sets a transformation matrix, equivalent to translation * rotation * scale but computed directly so it
+	 * needs no temporary matrices and can be called from any thread
 	 * @param scale The amount to scale by
 	 * @param rot The quaternion to rotate by
-	 * @param dest the destination matrix
 	 * @param pos The amount to translate by
+	 * @param dest the destination matrix
 	 * @return The destination matrix set to be a transformation matrix, if it was null it creates a new matrix
 	 */
-	public static synchronized Matrix4f setTransformation(Vector4f scale, Quaternion rot, Vector4f pos, Matrix4f dest) {
+	public static Matrix4f setTransformation(Vector4f scale, Quaternion rot, Vector4f pos, Matrix4f dest) {
 		if (dest == null)
 			dest = new Matrix4f();
-		else
-			dest.setIdentity();
 
-		dest.setTranslation(pos);
-		dest.mul(rot.toRotationMatrix(internal));
-		dest.mul(internal.setScale(scale));
+		float xx = rot.x * rot.x;
+		float yy = rot.y * rot.y;
+		float zz = rot.z * rot.z;
+		float xy = rot.x * rot.y;
+		float xz = rot.x * rot.z;
+		float yz = rot.y * rot.z;
+		float wx = rot.w * rot.x;
+		float wy = rot.w * rot.y;
+		float wz = rot.w * rot.z;
+
+		dest.m00 = (1.0f - 2.0f * (yy + zz)) * scale.x;
+		dest.m01 = 2.0f * (xy + wz) * scale.x;
+		dest.m02 = 2.0f * (xz - wy) * scale.x;
+		dest.m03 = 0;
+		dest.m10 = 2.0f * (xy - wz) * scale.y;
+		dest.m11 = (1.0f - 2.0f * (xx + zz)) * scale.y;
+		dest.m12 = 2.0f * (yz + wx) * scale.y;
+		dest.m13 = 0;
+		dest.m20 = 2.0f * (xz + wy) * scale.z;
+		dest.m21 = 2.0f * (yz - wx) * scale.z;
+		dest.m22 = (1.0f - 2.0f * (xx + yy)) * scale.z;
+		dest.m23 = 0;
+		dest.m30 = pos.x;
+		dest.m31 = pos.y;
+		dest.m32 = pos.z;
+		dest.m33 = 1;
 		return dest;
 	}
 
@@ -440,7 +474,7 @@ public class Matrix4f implements Serializable {
 	 * @param pos
 	 * @return
 	 */
-	public synchronized Matrix4f setTransformation(Vector4f scale, Quaternion rot, Vector4f pos) {
+	public Matrix4f setTransformation(Vector4f scale, Quaternion rot, Vector4f pos) {
 		return setTransformation(scale, rot, pos, this);
 	}
 
@@ -496,72 +530,6 @@ public class Matrix4f implements Serializable {
 		return transform(src, this, src);
 	}
 
-	private void rotX(float angle) {
-		float s = (float) Math.sin(angle);
-		float c = (float) Math.cos(angle);
-
-		m00 = 1;
-		m01 = 0;
-		m02 = 0;
-		m03 = 0;
-		m10 = 0;
-		m11 = c;
-		m12 = s;
-		m13 = 0;
-		m20 = 0;
-		m21 = -s;
-		m22 = c;
-		m23 = 0;
-		m30 = 0;
-		m31 = 0;
-		m32 = 0;
-		m33 = 1;
-	}
-
-	private void rotY(float angle) {
-		float s = (float) Math.sin(angle);
-		float c = (float) Math.cos(angle);
-
-		m00 = c;
-		m01 = 0;
-		m02 = -s;
-		m03 = 0;
-		m10 = 0;
-		m11 = 1;
-		m12 = 0;
-		m13 = 0;
-		m20 = s;
-		m21 = 0;
-		m22 = c;
-		m23 = 0;
-		m30 = 0;
-		m31 = 0;
-		m32 = 0;
-		m33 = 1;
-	}
-
-	private void rotZ(float angle) {
-		float s = (float) Math.sin(angle);
-		float c = (float) Math.cos(angle);
-
-		m00 = c;
-		m01 = s;
-		m02 = 0;
-		m03 = 0;
-		m10 = -s;
-		m11 = c;
-		m12 = 0;
-		m13 = 0;
-		m20 = 0;
-		m21 = 0;
-		m22 = 1;
-		m23 = 0;
-		m30 = 0;
-		m31 = 0;
-		m32 = 0;
-		m33 = 1;
-	}
-
 	/**
 	 * Rigth the matrix to a FloatBuffer
 	 * @param buf the buffer to write to
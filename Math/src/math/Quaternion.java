@@ -232,7 +232,26 @@ public class Quaternion {
 	 * @return The destination matrix or if it was null a new matrix
 	 */
 	public Matrix4f toRotationMatrix(Matrix4f dest) {
-		return Matrix4f.setRotation(getRight(null), getUp(null), getForward(null), dest);
+		if (dest == null)
+			dest = new Matrix4f();
+
+		dest.m00 = 1.0f - 2.0f * (y * y + z * z);
+		dest.m01 = 2.0f * (x * y + w * z);
+		dest.m02 = 2.0f * (x * z - w * y);
+		dest.m03 = 0;
+		dest.m10 = 2.0f * (x * y - w * z);
+		dest.m11 = 1.0f - 2.0f * (x * x + z * z);
+		dest.m12 = 2.0f * (y * z + w * x);
+		dest.m13 = 0;
+		dest.m20 = 2.0f * (x * z + w * y);
+		dest.m21 = 2.0f * (y * z - w * x);
+		dest.m22 = 1.0f - 2.0f * (x * x + y * y);
+		dest.m23 = 0;
+		dest.m30 = 0;
+		dest.m31 = 0;
+		dest.m32 = 0;
+		dest.m33 = 1;
+		return dest;
 	}
 
 	/**
@@ -2,14 +2,31 @@ package bundler;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 public class Main {
-	private static final byte VERSION = 1;
-	//1 byte for version + 4 bytes for file count
-	private static final int HEADER_SIZE = 1 + 4;
+	//VERSION 1 Big endian, 32 bit offsets
+	//VERSION 2 Little endian, 64 bit offsets, directory sorted by name hash, aligned entries, optional deflate
+
+	private static final byte VERSION = 2;
+	//1 byte for version + 3 reserved + 4 bytes for file count + 8 bytes for data offset
+	private static final int HEADER_SIZE = 16;
+	private static final int ENTRY_SIZE = 40;
+	private static final int ALIGNMENT = 16;
+
+	private static final byte COMPRESSION_NONE = 0;
+	private static final byte COMPRESSION_DEFLATE = 1;
 
 	public static void main(String[] args) {
 		if (args.length < 1) {
@@ -29,46 +46,137 @@ public class Main {
 			System.exit(1);
 		}
 
+		boolean compress = false;
+		for (String arg : args) {
+			if (arg.equals("-compress"))
+				compress = true;
+		}
+
 		ArrayList<String> names = new ArrayList<String>();
 
 		getNames(file, names, "");
-		try {
-			File output = new File(args[0] + ".res");
-			if (output.exists())
-				output.delete();
-			output.createNewFile();
-			FileOutputStream out = new FileOutputStream(output);
-			out.write(VERSION);
-
-			StreamUtils.writeInt(out, names.size());
-			int offset = HEADER_SIZE;
-			for (String s : names) {
-				offset += 6 + s.length();
-			}
 
-			ArrayList<File> files = new ArrayList<File>();
-			for (String s : names) {
-				StreamUtils.writeString(out, s);
-				File f;
-				files.add(f = new File(file.getParent() + "/" + s));
-				StreamUtils.writeInt(out, offset);
-				offset += f.length() + 4;
+		Entry[] entries = new Entry[names.size()];
+		int namesSize = 0;
+		for (int i = 0; i < entries.length; i++) {
+			Entry entry = entries[i] = new Entry();
+			entry.name = names.get(i).getBytes(StandardCharsets.UTF_8);
+			entry.hash = hash(entry.name);
+			entry.file = new File(file.getParent() + "/" + names.get(i));
+			namesSize += entry.name.length;
+		}
+		// sorted by hash so the engine can binary search the directory without reading it first
+		Arrays.sort(entries, (a, b) -> {
+			int compare = Integer.compareUnsigned(a.hash, b.hash);
+			return compare != 0 ? compare : compareBytes(a.name, b.name);
+		});
+
+		File output = new File(args[0] + ".res");
+		if (output.exists())
+			output.delete();
+
+		try (FileChannel out = FileChannel.open(output.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+			long namesOffset = HEADER_SIZE + (long) entries.length * ENTRY_SIZE;
+			long dataOffset = align(namesOffset + namesSize);
+			// the directory is written once the entries are, reserve its space for now
+			out.write(ByteBuffer.allocate((int) dataOffset));
+
+			for (Entry entry : entries) {
+				pad(out);
+				entry.offset = out.position();
+				entry.length = entry.file.length();
+				entry.compression = COMPRESSION_NONE;
+
+				if (compress) {
+					Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+					try (InputStream in = new FileInputStream(entry.file)) {
+						DeflaterOutputStream deflaterOut = new DeflaterOutputStream(Channels.newOutputStream(out), deflater, 65536);
+						byte[] buf = new byte[65536];
+						int read;
+						while ((read = in.read(buf)) > 0)
+							deflaterOut.write(buf, 0, read);
+						deflaterOut.finish();
+						deflaterOut.flush();
+					} finally {
+						deflater.end();
+					}
+					if (out.position() - entry.offset < entry.length) {
+						entry.compression = COMPRESSION_DEFLATE;
+						entry.storedLength = out.position() - entry.offset;
+						continue;
+					}
+					// not worth it, store it as it is
+					out.truncate(entry.offset);
+					out.position(entry.offset);
+				}
+
+				try (FileChannel in = FileChannel.open(entry.file.toPath(), StandardOpenOption.READ)) {
+					long written = 0;
+					while (written < entry.length)
+						written += out.transferFrom(in, entry.offset + written, entry.length - written);
+				}
+				entry.storedLength = entry.length;
+				out.position(entry.offset + entry.length);
 			}
 
-			for (File f : files) {
-				StreamUtils.writeInt(out, (int) f.length());
-				FileInputStream in = new FileInputStream(f);
-				byte[] buf = new byte[(int) f.length()];
-				in.read(buf);
-				in.close();
-				out.write(buf);
+			ByteBuffer header = ByteBuffer.allocate((int) (namesOffset + namesSize)).order(ByteOrder.LITTLE_ENDIAN);
+			header.put(VERSION);
+			header.put(new byte[3]);
+			header.putInt(entries.length);
+			header.putLong(dataOffset);
+
+			int nameOffset = (int) namesOffset;
+			for (Entry entry : entries) {
+				header.putInt(entry.hash);
+				header.putInt(nameOffset);
+				header.putShort((short) entry.name.length);
+				header.put(entry.compression);
+				header.put((byte) 0);
+				header.putInt(0);
+				header.putLong(entry.offset);
+				header.putLong(entry.storedLength);
+				header.putLong(entry.length);
+				nameOffset += entry.name.length;
 			}
-			out.close();
+			for (Entry entry : entries) {
+				header.put(entry.name);
+			}
+			header.flip();
+			out.position(0);
+			while (header.hasRemaining())
+				out.write(header);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+	}
+
+	private static long align(long offset) {
+		return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
 
+	private static void pad(FileChannel out) throws IOException {
+		int padding = (int) (align(out.position()) - out.position());
+		if (padding > 0)
+			out.write(ByteBuffer.allocate(padding));
+	}
 
+	// 32 bit FNV-1a, must match ResourceBundleLocation.hash
+	private static int hash(byte[] name) {
+		int hash = 0x811C9DC5;
+		for (byte b : name) {
+			hash ^= b & 0xFF;
+			hash *= 0x01000193;
+		}
+		return hash;
+	}
+
+	private static int compareBytes(byte[] a, byte[] b) {
+		for (int i = 0; i < Math.min(a.length, b.length); i++) {
+			int compare = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (compare != 0)
+				return compare;
+		}
+		return a.length - b.length;
 	}
 
 	private static void getNames(File file, ArrayList<String> names, String path) {
@@ -80,4 +188,14 @@ public class Main {
 			names.add(path + file.getName());
 		}
 	}
+
+	private static class Entry {
+		public byte[] name;
+		public int hash;
+		public File file;
+		public byte compression;
+		public long offset;
+		public long storedLength;
+		public long length;
+	}
 }
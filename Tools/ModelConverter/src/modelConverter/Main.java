@@ -1,20 +1,28 @@
 package modelConverter;
 
 import modelConverter.obj.OBJModel;
-import util.StreamUtils;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class Main {
 
 	//VERSION 1 Multiple LOD not supported
 	//VERSION 2 Multiple LOD supported
 	//VERSION 3 Multiple LODs are interleaved
+	//VERSION 4 Little endian, sections aligned for memory mapping, header with offsets and LOD ranges
 
-	private static final byte VERSION = 3;
+	private static final byte VERSION = 4;
+	private static final int HEADER_SIZE = 32;
+	private static final int SECTION_ALIGNMENT = 16;
 
 	public static void main(String[] args) throws IOException {
 		if (args.length < 1) {
@@ -43,8 +51,10 @@ public class Main {
 					simplifier = new VoxelSimpilier();
 				else if (s.equals("octtree"))
 					simplifier = new OctTreeSimplifier();
+				else if (s.equals("qem"))
+					simplifier = new QuadricSimplifier();
 				else {
-					System.err.println("Simplifier must be one of: voxel, octtree");
+					System.err.println("Simplifier must be one of: voxel, octtree, qem");
 					System.exit(1);
 				}
 			}
@@ -84,68 +94,105 @@ public class Main {
 		File out = new File(file.getAbsolutePath().substring(0, file.getAbsolutePath().lastIndexOf('.')) + ".nlm");
 
 		OBJModel loader = new OBJModel(file, cw);
-		ArrayList<Float> positions = new ArrayList<Float>(loader.positions);
-		ArrayList<Float> texCoords = new ArrayList<Float>(loader.texCoords);
-		ArrayList<Float> normals = new ArrayList<Float>(loader.normals);
-		ArrayList<Integer> indices = new ArrayList<Integer>(loader.indices.length);
-		for (int  i : loader.indices)
-			indices.add(i);
-		int[] vertexCounts = new int[lodCount];
-		vertexCounts[0] = loader.indices.length;
-
-		double currentBias = lodBias;
-		for (int i = 1; i < lodCount; i ++) {
-			System.out.println("Simpilifying (" + ((100 / (lodCount - 1)) * (i - 1)) + "%)...");
-			int offset = positions.size() / 3;
-			OBJModel model = simplifier.simplify(currentBias, loader);
-			if (lodChain)
-				loader = model;
-			else
+		OBJModel[] lods = new OBJModel[lodCount];
+		lods[0] = loader;
+
+		if (lodChain) {
+			// every level is simplified from the one before it
+			for (int i = 1; i < lodCount; i++) {
+				System.out.println("Simpilifying (" + ((100 / (lodCount - 1)) * (i - 1)) + "%)...");
+				lods[i] = simplifier.simplify(lodBias, lods[i - 1]);
+			}
+		} else {
+			// every level is simplified from the original so they can all be done at once
+			ForkJoinPool pool = ForkJoinPool.commonPool();
+			ArrayList<ForkJoinTask<OBJModel>> tasks = new ArrayList<ForkJoinTask<OBJModel>>(lodCount);
+			double currentBias = lodBias;
+			for (int i = 1; i < lodCount; i++) {
+				double bias = currentBias;
+				Simplifier lodSimplifier = simplifier;
+				tasks.add(pool.submit(() -> lodSimplifier.simplify(bias, loader)));
 				currentBias *= lodBias;
-			positions.addAll(model.positions);
-			texCoords.addAll(model.texCoords);
-			normals.addAll(model.normals);
-			for (int j : model.indices) {
-				indices.add(j + offset);
 			}
-			vertexCounts[i] = model.indices.length;
+			for (int i = 1; i < lodCount; i++) {
+				System.out.println("Simpilifying (" + ((100 / (lodCount - 1)) * (i - 1)) + "%)...");
+				lods[i] = tasks.get(i - 1).join();
+			}
 		}
 
 		System.out.println("Simplifying (100%)...");
 		System.out.println("Simplified.");
 
+		int vertexCount = 0;
+		int indexCount = 0;
+		int[] vertexCounts = new int[lodCount];
+		for (int i = 0; i < lodCount; i++) {
+			vertexCount += lods[i].getVertexCount();
+			indexCount += lods[i].indices.length;
+			vertexCounts[i] = lods[i].indices.length;
+		}
+
 		System.out.println("Writing to file...");
 
 		if (out.exists())
 			out.delete();
 
-		FileOutputStream fos = new FileOutputStream(out);
-		fos.write(VERSION);
-		fos.write(lodCount);
-
-		for (int vertexCount : vertexCounts) {
-			StreamUtils.writeInt(fos, vertexCount);
-		}
-
-		for (int index : indices) {
-			StreamUtils.writeInt(fos, index);
-		}
-
-		StreamUtils.writeInt(fos, positions.size() / 3);
-		for (float position : positions) {
-			StreamUtils.writeInt(fos, Float.floatToIntBits(position));
+		int indicesOffset = align(HEADER_SIZE + lodCount * 8);
+		int verticesOffset = align(indicesOffset + indexCount * 4);
+		int texCoordsOffset = align(verticesOffset + vertexCount * 3 * 4);
+		int normalsOffset = align(texCoordsOffset + vertexCount * 2 * 4);
+
+		float radius = 0;
+		for (OBJModel lod : lods) {
+			for (int i = 0; i < lod.getVertexCount(); i++) {
+				float x = lod.positions[i * 3];
+				float y = lod.positions[i * 3 + 1];
+				float z = lod.positions[i * 3 + 2];
+				radius = Math.max(radius, x * x + y * y + z * z);
+			}
 		}
 
-		for (float texCoord : texCoords) {
-			StreamUtils.writeInt(fos, Float.floatToIntBits(texCoord));
+		ByteBuffer buf = ByteBuffer.allocate(normalsOffset + vertexCount * 3 * 4).order(ByteOrder.LITTLE_ENDIAN);
+		buf.put(0, VERSION);
+		buf.put(1, (byte) lodCount);
+		buf.putInt(4, vertexCount);
+		buf.putInt(8, indexCount);
+		buf.putFloat(12, (float) Math.sqrt(radius));
+		buf.putInt(16, indicesOffset);
+		buf.putInt(20, verticesOffset);
+		buf.putInt(24, texCoordsOffset);
+		buf.putInt(28, normalsOffset);
+
+		int indexOffset = 0;
+		for (int i = 0; i < lodCount; i++) {
+			buf.putInt(HEADER_SIZE + i * 8, indexOffset);
+			buf.putInt(HEADER_SIZE + i * 8 + 4, vertexCounts[i]);
+			indexOffset += vertexCounts[i];
 		}
 
-		for (float normal : normals) {
-			StreamUtils.writeInt(fos, Float.floatToIntBits(normal));
+		int vertexOffset = 0;
+		IntBuffer indices = ((ByteBuffer) buf.position(indicesOffset)).asIntBuffer();
+		FloatBuffer positions = ((ByteBuffer) buf.position(verticesOffset)).asFloatBuffer();
+		FloatBuffer texCoords = ((ByteBuffer) buf.position(texCoordsOffset)).asFloatBuffer();
+		FloatBuffer normals = ((ByteBuffer) buf.position(normalsOffset)).asFloatBuffer();
+		for (OBJModel lod : lods) {
+			for (int index : lod.indices) {
+				indices.put(index + vertexOffset);
+			}
+			positions.put(lod.positions);
+			texCoords.put(lod.texCoords);
+			normals.put(lod.normals);
+			vertexOffset += lod.getVertexCount();
 		}
 
+		FileOutputStream fos = new FileOutputStream(out);
+		fos.write(buf.array());
 		fos.close();
 
 		System.out.println("Done.");
 	}
+
+	private static int align(int offset) {
+		return (offset + SECTION_ALIGNMENT - 1) / SECTION_ALIGNMENT * SECTION_ALIGNMENT;
+	}
 }
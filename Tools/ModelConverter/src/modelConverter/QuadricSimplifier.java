@@ -0,0 +1,473 @@
+package modelConverter;
+
+import modelConverter.obj.OBJModel;
+
+import java.util.Arrays;
+
+/**
+ * Simplifies by collapsing the edge that adds the least quadric error (Garland and Heckbert) until the target vertex
+ * count is reached, open edges get an extra plane so the outline and texture seams are kept in place
+ */
+public class QuadricSimplifier implements Simplifier {
+
+	private static final double BOUNDARY_WEIGHT = 1000;
+
+	@Override
+	public OBJModel simplify(double lodBias, OBJModel model) {
+		return new Collapser(model).collapse((int) (model.getVertexCount() / lodBias));
+	}
+
+	@Override
+	public double getDefaultLodBias() {
+		return 2;
+	}
+
+	@Override
+	public boolean getDefaultShouldLodChain() {
+		return false;
+	}
+
+	private static class Collapser {
+		private final OBJModel model;
+		private final int vertexCount;
+		private final double[] positions;
+		// a symmetric 4x4 matrix per vertex stored as aa, ab, ac, ad, bb, bc, bd, cc, cd, dd
+		private final double[] quadrics;
+		private final int[] faces;
+		private final boolean[] faceRemoved;
+		private final boolean[] vertexRemoved;
+		private final int[] versions;
+		private final int[][] vertexFaces;
+		private final int[] vertexFaceCounts;
+		private final EdgeHeap heap = new EdgeHeap();
+		private final double[] target = new double[3];
+		private final double[] scratch = new double[3];
+
+		public Collapser(OBJModel model) {
+			this.model = model;
+			vertexCount = model.getVertexCount();
+			positions = new double[vertexCount * 3];
+			for (int i = 0; i < positions.length; i++) {
+				positions[i] = model.positions[i];
+			}
+			quadrics = new double[vertexCount * 10];
+			faces = model.indices.clone();
+			faceRemoved = new boolean[faces.length / 3];
+			vertexRemoved = new boolean[vertexCount];
+			versions = new int[vertexCount];
+
+			vertexFaceCounts = new int[vertexCount];
+			for (int index : faces) {
+				vertexFaceCounts[index]++;
+			}
+			vertexFaces = new int[vertexCount][];
+			for (int i = 0; i < vertexCount; i++) {
+				vertexFaces[i] = new int[Math.max(vertexFaceCounts[i], 4)];
+				vertexFaceCounts[i] = 0;
+			}
+			for (int i = 0; i < faces.length; i++) {
+				int vertex = faces[i];
+				vertexFaces[vertex][vertexFaceCounts[vertex]++] = i / 3;
+			}
+		}
+
+		public OBJModel collapse(int targetVertices) {
+			addFaceQuadrics();
+			long[] edges = getEdges();
+			addBoundaryQuadrics(edges);
+
+			long last = -1;
+			for (long edge : edges) {
+				if (edge != last)
+					push((int) (edge >>> 32), (int) edge);
+				last = edge;
+			}
+
+			int liveVertices = vertexCount;
+			while (liveVertices > targetVertices && heap.size > 0) {
+				int u = heap.us[0];
+				int v = heap.vs[0];
+				boolean stale = heap.uVersions[0] != versions[u] || heap.vVersions[0] != versions[v];
+				heap.pop();
+				if (stale || vertexRemoved[u] || vertexRemoved[v])
+					continue;
+
+				optimize(u, v, target);
+				// keep the attributes of whichever end is closest to the new position
+				if (distanceSquared(v, target) < distanceSquared(u, target)) {
+					int tmp = u;
+					u = v;
+					v = tmp;
+				}
+				if (flips(u, v, target) || flips(v, u, target))
+					continue;
+
+				collapse(u, v, target);
+				liveVertices--;
+			}
+
+			return createModel();
+		}
+
+		private void addFaceQuadrics() {
+			double[] normal = new double[4];
+			for (int f = 0; f < faceRemoved.length; f++) {
+				int i0 = faces[f * 3];
+				double area = getPlane(i0, faces[f * 3 + 1], faces[f * 3 + 2], normal);
+				if (area == 0)
+					continue;
+				addPlane(i0, normal, area);
+				addPlane(faces[f * 3 + 1], normal, area);
+				addPlane(faces[f * 3 + 2], normal, area);
+			}
+		}
+
+		// every face edge as (min << 32 | max), sorted so shared edges are next to each other
+		private long[] getEdges() {
+			long[] edges = new long[faces.length];
+			for (int f = 0; f < faceRemoved.length; f++) {
+				for (int e = 0; e < 3; e++) {
+					edges[f * 3 + e] = getEdgeKey(faces[f * 3 + e], faces[f * 3 + (e + 1) % 3]);
+				}
+			}
+			Arrays.sort(edges);
+			return edges;
+		}
+
+		private void addBoundaryQuadrics(long[] edges) {
+			double[] normal = new double[4];
+			double[] plane = new double[4];
+			for (int f = 0; f < faceRemoved.length; f++) {
+				for (int e = 0; e < 3; e++) {
+					int a = faces[f * 3 + e];
+					int b = faces[f * 3 + (e + 1) % 3];
+					long key = getEdgeKey(a, b);
+					int first = Arrays.binarySearch(edges, key);
+					if ((first > 0 && edges[first - 1] == key) || (first + 1 < edges.length && edges[first + 1] == key))
+						continue;
+
+					if (getPlane(a, b, faces[f * 3 + (e + 2) % 3], normal) == 0)
+						continue;
+					double ex = positions[b * 3] - positions[a * 3];
+					double ey = positions[b * 3 + 1] - positions[a * 3 + 1];
+					double ez = positions[b * 3 + 2] - positions[a * 3 + 2];
+					double lengthSquared = ex * ex + ey * ey + ez * ez;
+					plane[0] = ey * normal[2] - ez * normal[1];
+					plane[1] = ez * normal[0] - ex * normal[2];
+					plane[2] = ex * normal[1] - ey * normal[0];
+					double length = Math.sqrt(plane[0] * plane[0] + plane[1] * plane[1] + plane[2] * plane[2]);
+					if (length == 0)
+						continue;
+					plane[0] /= length;
+					plane[1] /= length;
+					plane[2] /= length;
+					plane[3] = -(plane[0] * positions[a * 3] + plane[1] * positions[a * 3 + 1] + plane[2] * positions[a * 3 + 2]);
+					addPlane(a, plane, BOUNDARY_WEIGHT * lengthSquared);
+					addPlane(b, plane, BOUNDARY_WEIGHT * lengthSquared);
+				}
+			}
+		}
+
+		private static long getEdgeKey(int a, int b) {
+			return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+		}
+
+		// writes the unit normal and plane distance to plane and returns the area of the face
+		private double getPlane(int i0, int i1, int i2, double[] plane) {
+			double ax = positions[i1 * 3] - positions[i0 * 3];
+			double ay = positions[i1 * 3 + 1] - positions[i0 * 3 + 1];
+			double az = positions[i1 * 3 + 2] - positions[i0 * 3 + 2];
+			double bx = positions[i2 * 3] - positions[i0 * 3];
+			double by = positions[i2 * 3 + 1] - positions[i0 * 3 + 1];
+			double bz = positions[i2 * 3 + 2] - positions[i0 * 3 + 2];
+			double nx = ay * bz - az * by;
+			double ny = az * bx - ax * bz;
+			double nz = ax * by - ay * bx;
+			double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			if (length == 0)
+				return 0;
+			plane[0] = nx / length;
+			plane[1] = ny / length;
+			plane[2] = nz / length;
+			plane[3] = -(plane[0] * positions[i0 * 3] + plane[1] * positions[i0 * 3 + 1] + plane[2] * positions[i0 * 3 + 2]);
+			return length / 2;
+		}
+
+		private void addPlane(int vertex, double[] p, double weight) {
+			int q = vertex * 10;
+			quadrics[q] += weight * p[0] * p[0];
+			quadrics[q + 1] += weight * p[0] * p[1];
+			quadrics[q + 2] += weight * p[0] * p[2];
+			quadrics[q + 3] += weight * p[0] * p[3];
+			quadrics[q + 4] += weight * p[1] * p[1];
+			quadrics[q + 5] += weight * p[1] * p[2];
+			quadrics[q + 6] += weight * p[1] * p[3];
+			quadrics[q + 7] += weight * p[2] * p[2];
+			quadrics[q + 8] += weight * p[2] * p[3];
+			quadrics[q + 9] += weight * p[3] * p[3];
+		}
+
+		private void push(int u, int v) {
+			heap.push(optimize(u, v, scratch), u, v, versions[u], versions[v]);
+		}
+
+		// finds the position with the least error for the collapsed edge and returns the error
+		private double optimize(int u, int v, double[] result) {
+			int qu = u * 10;
+			int qv = v * 10;
+			double aa = quadrics[qu] + quadrics[qv];
+			double ab = quadrics[qu + 1] + quadrics[qv + 1];
+			double ac = quadrics[qu + 2] + quadrics[qv + 2];
+			double ad = quadrics[qu + 3] + quadrics[qv + 3];
+			double bb = quadrics[qu + 4] + quadrics[qv + 4];
+			double bc = quadrics[qu + 5] + quadrics[qv + 5];
+			double bd = quadrics[qu + 6] + quadrics[qv + 6];
+			double cc = quadrics[qu + 7] + quadrics[qv + 7];
+			double cd = quadrics[qu + 8] + quadrics[qv + 8];
+			double dd = quadrics[qu + 9] + quadrics[qv + 9];
+
+			double c00 = bb * cc - bc * bc;
+			double c01 = ac * bc - ab * cc;
+			double c02 = ab * bc - ac * bb;
+			double det = aa * c00 + ab * c01 + ac * c02;
+			double scale = Math.abs(aa) + Math.abs(bb) + Math.abs(cc);
+			if (Math.abs(det) > 1e-12 * scale * scale * scale) {
+				double c11 = aa * cc - ac * ac;
+				double c12 = ab * ac - aa * bc;
+				double c22 = aa * bb - ab * ab;
+				result[0] = -(c00 * ad + c01 * bd + c02 * cd) / det;
+				result[1] = -(c01 * ad + c11 * bd + c12 * cd) / det;
+				result[2] = -(c02 * ad + c12 * bd + c22 * cd) / det;
+				return error(aa, ab, ac, ad, bb, bc, bd, cc, cd, dd, result[0], result[1], result[2]);
+			}
+
+			// the quadric can't be inverted, pick the best of the ends and the middle
+			double best = Double.MAX_VALUE;
+			for (int i = 0; i < 3; i++) {
+				double t = i * 0.5;
+				double x = positions[u * 3] + (positions[v * 3] - positions[u * 3]) * t;
+				double y = positions[u * 3 + 1] + (positions[v * 3 + 1] - positions[u * 3 + 1]) * t;
+				double z = positions[u * 3 + 2] + (positions[v * 3 + 2] - positions[u * 3 + 2]) * t;
+				double e = error(aa, ab, ac, ad, bb, bc, bd, cc, cd, dd, x, y, z);
+				if (e < best) {
+					best = e;
+					result[0] = x;
+					result[1] = y;
+					result[2] = z;
+				}
+			}
+			return best;
+		}
+
+		private static double error(double aa, double ab, double ac, double ad, double bb, double bc, double bd,
+		                            double cc, double cd, double dd, double x, double y, double z) {
+			return aa * x * x + 2 * ab * x * y + 2 * ac * x * z + 2 * ad * x + bb * y * y + 2 * bc * y * z + 2 * bd * y
+					+ cc * z * z + 2 * cd * z + dd;
+		}
+
+		private double distanceSquared(int vertex, double[] p) {
+			double dx = positions[vertex * 3] - p[0];
+			double dy = positions[vertex * 3 + 1] - p[1];
+			double dz = positions[vertex * 3 + 2] - p[2];
+			return dx * dx + dy * dy + dz * dz;
+		}
+
+		// wether moving vertex to p turns any of its faces that don't contain other over
+		private boolean flips(int vertex, int other, double[] p) {
+			for (int i = 0; i < vertexFaceCounts[vertex]; i++) {
+				int f = vertexFaces[vertex][i];
+				if (faceRemoved[f])
+					continue;
+				int i0 = faces[f * 3];
+				int i1 = faces[f * 3 + 1];
+				int i2 = faces[f * 3 + 2];
+				if (i0 == other || i1 == other || i2 == other)
+					continue;
+
+				// rotate so vertex is first
+				if (i1 == vertex) {
+					i1 = i2;
+					i2 = i0;
+				} else if (i2 == vertex) {
+					i2 = i1;
+					i1 = i0;
+				}
+
+				double ax = positions[i1 * 3] - positions[vertex * 3];
+				double ay = positions[i1 * 3 + 1] - positions[vertex * 3 + 1];
+				double az = positions[i1 * 3 + 2] - positions[vertex * 3 + 2];
+				double bx = positions[i2 * 3] - positions[vertex * 3];
+				double by = positions[i2 * 3 + 1] - positions[vertex * 3 + 1];
+				double bz = positions[i2 * 3 + 2] - positions[vertex * 3 + 2];
+				double nx = ay * bz - az * by;
+				double ny = az * bx - ax * bz;
+				double nz = ax * by - ay * bx;
+
+				ax = positions[i1 * 3] - p[0];
+				ay = positions[i1 * 3 + 1] - p[1];
+				az = positions[i1 * 3 + 2] - p[2];
+				bx = positions[i2 * 3] - p[0];
+				by = positions[i2 * 3 + 1] - p[1];
+				bz = positions[i2 * 3 + 2] - p[2];
+				double mx = ay * bz - az * by;
+				double my = az * bx - ax * bz;
+				double mz = ax * by - ay * bx;
+
+				if (nx * mx + ny * my + nz * mz <= 0)
+					return true;
+			}
+			return false;
+		}
+
+		private void collapse(int u, int v, double[] p) {
+			positions[u * 3] = p[0];
+			positions[u * 3 + 1] = p[1];
+			positions[u * 3 + 2] = p[2];
+			for (int i = 0; i < 10; i++) {
+				quadrics[u * 10 + i] += quadrics[v * 10 + i];
+			}
+			vertexRemoved[v] = true;
+			versions[u]++;
+
+			for (int i = 0; i < vertexFaceCounts[v]; i++) {
+				int f = vertexFaces[v][i];
+				if (faceRemoved[f])
+					continue;
+				if (faces[f * 3] == u || faces[f * 3 + 1] == u || faces[f * 3 + 2] == u) {
+					faceRemoved[f] = true;
+					continue;
+				}
+				for (int j = 0; j < 3; j++) {
+					if (faces[f * 3 + j] == v)
+						faces[f * 3 + j] = u;
+				}
+				addFace(u, f);
+			}
+			vertexFaces[v] = null;
+			vertexFaceCounts[v] = 0;
+
+			int count = 0;
+			int[] uFaces = vertexFaces[u];
+			for (int i = 0; i < vertexFaceCounts[u]; i++) {
+				if (!faceRemoved[uFaces[i]])
+					uFaces[count++] = uFaces[i];
+			}
+			vertexFaceCounts[u] = count;
+
+			for (int i = 0; i < count; i++) {
+				int f = uFaces[i];
+				for (int j = 0; j < 3; j++) {
+					int w = faces[f * 3 + j];
+					if (w != u)
+						push(u, w);
+				}
+			}
+		}
+
+		private void addFace(int vertex, int face) {
+			if (vertexFaceCounts[vertex] == vertexFaces[vertex].length)
+				vertexFaces[vertex] = Arrays.copyOf(vertexFaces[vertex], vertexFaces[vertex].length * 2);
+			vertexFaces[vertex][vertexFaceCounts[vertex]++] = face;
+		}
+
+		private OBJModel createModel() {
+			int[] indexMap = new int[vertexCount];
+			int liveVertices = 0;
+			for (int i = 0; i < vertexCount; i++) {
+				if (!vertexRemoved[i])
+					indexMap[i] = liveVertices++;
+			}
+
+			OBJModel result = new OBJModel();
+			result.positions = new float[liveVertices * 3];
+			result.texCoords = new float[liveVertices * 2];
+			result.normals = new float[liveVertices * 3];
+			for (int i = 0; i < vertexCount; i++) {
+				if (vertexRemoved[i])
+					continue;
+				int index = indexMap[i];
+				result.positions[index * 3] = (float) positions[i * 3];
+				result.positions[index * 3 + 1] = (float) positions[i * 3 + 1];
+				result.positions[index * 3 + 2] = (float) positions[i * 3 + 2];
+				System.arraycopy(model.texCoords, i * 2, result.texCoords, index * 2, 2);
+				System.arraycopy(model.normals, i * 3, result.normals, index * 3, 3);
+			}
+
+			int[] liveFaces = new int[faces.length];
+			int count = 0;
+			for (int f = 0; f < faceRemoved.length; f++) {
+				if (!faceRemoved[f]) {
+					System.arraycopy(faces, f * 3, liveFaces, count, 3);
+					count += 3;
+				}
+			}
+			result.indices = Triangle.remap(Arrays.copyOf(liveFaces, count), indexMap);
+			return result;
+		}
+	}
+
+	// a binary min heap of edges keyed by their collapse error
+	private static class EdgeHeap {
+		private double[] costs = new double[1024];
+		private int[] us = new int[1024];
+		private int[] vs = new int[1024];
+		private int[] uVersions = new int[1024];
+		private int[] vVersions = new int[1024];
+		private int size;
+
+		public void push(double cost, int u, int v, int uVersion, int vVersion) {
+			if (size == costs.length) {
+				costs = Arrays.copyOf(costs, size * 2);
+				us = Arrays.copyOf(us, size * 2);
+				vs = Arrays.copyOf(vs, size * 2);
+				uVersions = Arrays.copyOf(uVersions, size * 2);
+				vVersions = Arrays.copyOf(vVersions, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (costs[parent] <= cost)
+					break;
+				move(parent, i);
+				i = parent;
+			}
+			set(i, cost, u, v, uVersion, vVersion);
+		}
+
+		public void pop() {
+			size--;
+			if (size == 0)
+				return;
+			double cost = costs[size];
+			int u = us[size];
+			int v = vs[size];
+			int uVersion = uVersions[size];
+			int vVersion = vVersions[size];
+			int i = 0;
+			while (true) {
+				int child = i * 2 + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && costs[child + 1] < costs[child])
+					child++;
+				if (costs[child] >= cost)
+					break;
+				move(child, i);
+				i = child;
+			}
+			set(i, cost, u, v, uVersion, vVersion);
+		}
+
+		private void move(int from, int to) {
+			set(to, costs[from], us[from], vs[from], uVersions[from], vVersions[from]);
+		}
+
+		private void set(int i, double cost, int u, int v, int uVersion, int vVersion) {
+			costs[i] = cost;
+			us[i] = u;
+			vs[i] = v;
+			uVersions[i] = uVersion;
+			vVersions[i] = vVersion;
+		}
+	}
+}
@@ -1,14 +1,28 @@
 package modelConverter;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 public class Triangle {
 	public int i0;
 	public int i1;
 	public int i2;
 
 	public Triangle(int i0, int i1, int i2) {
-		this.i0 = i0;
-		this.i1 = i1;
-		this.i2 = i2;
+		// rotate so the smallest index is first, the winding stays the same
+		if (i1 < i0 && i1 < i2) {
+			this.i0 = i1;
+			this.i1 = i2;
+			this.i2 = i0;
+		} else if (i2 < i0 && i2 < i1) {
+			this.i0 = i2;
+			this.i1 = i0;
+			this.i2 = i1;
+		} else {
+			this.i0 = i0;
+			this.i1 = i1;
+			this.i2 = i2;
+		}
 	}
 
 	@Override
@@ -20,7 +34,27 @@ public class Triangle {
 		return false;
 	}
 
+	@Override
+	public int hashCode() {
+		return (i0 * 31 + i1) * 31 + i2;
+	}
+
 	public boolean isLine() {
 		return i0 == i1 || i1 == i2 || i0 == i2;
 	}
+
+	public static int[] remap(int[] indices, int[] indexMap) {
+		HashSet<Triangle> triangles = new HashSet<Triangle>(indices.length / 3 * 2);
+		int[] result = new int[indices.length];
+		int count = 0;
+		for (int i = 0; i < indices.length; i += 3) {
+			Triangle triangle = new Triangle(indexMap[indices[i]], indexMap[indices[i + 1]], indexMap[indices[i + 2]]);
+			if (!triangle.isLine() && triangles.add(triangle)) {
+				result[count++] = triangle.i0;
+				result[count++] = triangle.i1;
+				result[count++] = triangle.i2;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
 }
@@ -0,0 +1,31 @@
+package physicsBenchmark;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * A grid of independent box stacks, one simulation island per stack
+ */
+public class BoxStackScene extends Scene {
+
+	private static final int GRID = 10;
+	private static final int HEIGHT = 10;
+
+	@Override
+	public String getName() {
+		return "boxes";
+	}
+
+	@Override
+	public void create(DiscreteDynamicsWorld world) {
+		addGround(world);
+		BoxShape box = new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f));
+		for (int x = 0; x < GRID; x++)
+			for (int z = 0; z < GRID; z++)
+				for (int y = 0; y < HEIGHT; y++)
+					// alternate layers are offset slightly so the stacks settle instead of balancing perfectly
+					addBody(world, 1, box, x * 3 + (y % 2) * 0.05f, 0.5f + y * 1.001f, z * 3);
+	}
+}
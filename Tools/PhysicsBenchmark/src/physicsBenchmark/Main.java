@@ -0,0 +1,164 @@
+package physicsBenchmark;
+
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import nullEngine.control.physics.ParallelCollisionDispatcher;
+import nullEngine.control.physics.PhysicsEngine;
+import nullEngine.control.physics.PhysicsStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class Main {
+	//Usage: physicsBenchmark [scene...] [-steps=N] [-warmup=N] [-runs=N] [-threads=N] [-csv]
+	//Every run builds the scene from scratch, the checksum of a scene should be the same for every run and thread count
+	//After every step the manifolds created by the collision threads are checked to be either in use or in their pools,
+	//and the pools may not grow after the warmup in scenes that keep the same amount of contacts
+
+	private static final float TIME_STEP = 1 / 60f;
+	private static final String[] SCENES = {"boxes", "ragdolls", "vehicles", "sleeping", "toggle"};
+
+	public static void main(String[] args) {
+		int steps = 600;
+		int warmup = 300;
+		int runs = 3;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean csv = false;
+		ArrayList<String> names = new ArrayList<>();
+		try {
+			for (String arg : args) {
+				if (arg.startsWith("-steps="))
+					steps = Integer.parseInt(arg.substring(7));
+				else if (arg.startsWith("-warmup="))
+					warmup = Integer.parseInt(arg.substring(8));
+				else if (arg.startsWith("-runs="))
+					runs = Integer.parseInt(arg.substring(6));
+				else if (arg.startsWith("-threads="))
+					threads = Integer.parseInt(arg.substring(9));
+				else if (arg.equals("-csv"))
+					csv = true;
+				else if (arg.startsWith("-")) {
+					System.err.println("Unknown option " + arg);
+					System.exit(1);
+				} else
+					names.add(arg);
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid number: " + e.getMessage());
+			System.exit(1);
+		}
+		if (steps < 1 || warmup < 0 || runs < 0 || threads < 1) {
+			System.err.println("Steps and threads must be at least 1, warmup and runs can not be negative");
+			System.exit(1);
+		}
+
+		if (csv)
+			System.out.println("scene,run,threads,steps,mean_ms,p50_ms,p95_ms,max_ms,broadphase_ms,narrowphase_ms,islands_ms,solver_ms,integration_ms,pairs,manifolds,contacts,islands,allocated_manifolds,pooled_manifolds,checksum");
+
+		for (String name : names) {
+			if (newScene(name) == null) {
+				System.err.println("Unknown scene " + name);
+				System.exit(1);
+			}
+		}
+		if (names.isEmpty())
+			names.addAll(Arrays.asList(SCENES));
+
+		for (String name : names) {
+			// a new instance every run so no state carries over
+			for (int run = 0; run < runs; run++)
+				runScene(newScene(name), run, steps, warmup, threads, csv);
+		}
+		System.exit(0);
+	}
+
+	private static Scene newScene(String name) {
+		switch (name) {
+			case "boxes":
+				return new BoxStackScene();
+			case "ragdolls":
+				return new RagdollChainScene();
+			case "vehicles":
+				return new VehicleTerrainScene();
+			case "sleeping":
+				return new SleepingBodiesScene();
+			case "toggle":
+				return new ToggleScene();
+			default:
+				return null;
+		}
+	}
+
+	private static void runScene(Scene scene, int run, int steps, int warmup, int threads, boolean csv) {
+		PhysicsEngine physics = new PhysicsEngine(TIME_STEP, 1, threads);
+		try {
+			DiscreteDynamicsWorld world = physics.getDynamicsWorld();
+			ParallelCollisionDispatcher dispatcher = (ParallelCollisionDispatcher) world.getDispatcher();
+			scene.create(world);
+
+			for (int i = 0; i < warmup; i++) {
+				scene.update(i);
+				world.stepSimulation(TIME_STEP, 1, TIME_STEP);
+				checkManifolds(scene, dispatcher, i);
+			}
+			int warmupAllocated = dispatcher.getAllocatedManifolds();
+
+			long[] times = new long[steps];
+			PhysicsStats total = new PhysicsStats();
+			for (int i = 0; i < steps; i++) {
+				scene.update(warmup + i);
+				world.stepSimulation(TIME_STEP, 1, TIME_STEP);
+				checkManifolds(scene, dispatcher, warmup + i);
+				PhysicsStats stats = physics.getLastStepStats();
+				times[i] = stats.totalTime;
+				total.broadphaseTime += stats.broadphaseTime;
+				total.narrowphaseTime += stats.narrowphaseTime;
+				total.islandTime += stats.islandTime;
+				total.solverTime += stats.solverTime;
+				total.integrationTime += stats.integrationTime;
+				total.totalTime += stats.totalTime;
+			}
+			PhysicsStats last = physics.getLastStepStats();
+			long checksum = scene.checksum();
+			int allocated = dispatcher.getAllocatedManifolds();
+			int pooled = dispatcher.getPooledManifolds();
+			if (scene.isSteadyState() && warmup > 0 && allocated > warmupAllocated) {
+				System.err.println(scene.getName() + ": manifold pools grew from " + warmupAllocated + " to " + allocated + " after the warmup");
+				System.exit(1);
+			}
+
+			Arrays.sort(times);
+			double mean = total.totalTime / 1e6 / steps;
+			double p50 = times[steps / 2] / 1e6;
+			double p95 = times[Math.min(steps - 1, (int) (steps * 0.95))] / 1e6;
+			double max = times[steps - 1] / 1e6;
+			if (csv) {
+				System.out.println(String.format(Locale.ROOT, "%s,%d,%d,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%d,%d,%d,%d,%d,%d,%016x",
+						scene.getName(), run, threads, steps, mean, p50, p95, max,
+						total.broadphaseTime / 1e6 / steps, total.narrowphaseTime / 1e6 / steps, total.islandTime / 1e6 / steps,
+						total.solverTime / 1e6 / steps, total.integrationTime / 1e6 / steps,
+						last.pairs, last.manifolds, last.contacts, last.islands, allocated, pooled, checksum));
+			} else {
+				System.out.println(String.format(Locale.ROOT, "%-9s run %d: %.3fms/step (p50 %.3f, p95 %.3f, max %.3f) broadphase %.3f narrowphase %.3f islands %.3f solver %.3f integration %.3f | %d pairs %d manifolds %d contacts %d islands | %d manifolds allocated %d pooled | checksum %016x",
+						scene.getName(), run, mean, p50, p95, max,
+						total.broadphaseTime / 1e6 / steps, total.narrowphaseTime / 1e6 / steps, total.islandTime / 1e6 / steps,
+						total.solverTime / 1e6 / steps, total.integrationTime / 1e6 / steps,
+						last.pairs, last.manifolds, last.contacts, last.islands, allocated, pooled, checksum));
+			}
+		} finally {
+			// every run starts its own collision threads
+			physics.cleanup();
+		}
+	}
+
+	// every manifold the collision threads created has to be in use or back in a pool, otherwise it leaked
+	private static void checkManifolds(Scene scene, ParallelCollisionDispatcher dispatcher, int step) {
+		int allocated = dispatcher.getAllocatedManifolds();
+		int used = dispatcher.getUsedManifolds();
+		int pooled = dispatcher.getPooledManifolds();
+		if (allocated != used + pooled) {
+			System.err.println(String.format("%s step %d: %d manifolds allocated but %d in use and %d pooled", scene.getName(), step, allocated, used, pooled));
+			System.exit(1);
+		}
+	}
+}
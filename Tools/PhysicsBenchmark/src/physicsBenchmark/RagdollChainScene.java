@@ -0,0 +1,53 @@
+package physicsBenchmark;
+
+import com.bulletphysics.collision.shapes.CapsuleShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.dynamics.constraintsolver.ConeTwistConstraint;
+import com.bulletphysics.linearmath.Transform;
+
+/**
+ * Chains of capsules joined by cone twist constraints like the limbs of a ragdoll, dropped in a pile
+ */
+public class RagdollChainScene extends Scene {
+
+	private static final int CHAINS = 40;
+	private static final int LINKS = 12;
+	private static final float RADIUS = 0.15f;
+	private static final float LENGTH = 0.6f;
+
+	@Override
+	public String getName() {
+		return "ragdolls";
+	}
+
+	@Override
+	public void create(DiscreteDynamicsWorld world) {
+		addGround(world);
+		CapsuleShape capsule = new CapsuleShape(RADIUS, LENGTH);
+		float spacing = LENGTH + RADIUS * 2;
+
+		Transform frameA = new Transform();
+		frameA.setIdentity();
+		frameA.origin.set(0, -spacing / 2, 0);
+		Transform frameB = new Transform();
+		frameB.setIdentity();
+		frameB.origin.set(0, spacing / 2, 0);
+
+		for (int chain = 0; chain < CHAINS; chain++) {
+			float x = (chain % 8) * 1.5f;
+			float z = (chain / 8) * 1.5f;
+			RigidBody previous = null;
+			for (int link = 0; link < LINKS; link++) {
+				// leaning chains so they fall over and tangle instead of landing straight
+				RigidBody body = addBody(world, 1, capsule, x + link * 0.02f, 2 + link * spacing, z);
+				if (previous != null) {
+					ConeTwistConstraint joint = new ConeTwistConstraint(body, previous, frameA, frameB);
+					joint.setLimit((float) Math.PI / 4, (float) Math.PI / 4, (float) Math.PI / 8);
+					world.addConstraint(joint, true);
+				}
+				previous = body;
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package physicsBenchmark;
+
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.StaticPlaneShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
+import com.bulletphysics.linearmath.DefaultMotionState;
+import com.bulletphysics.linearmath.Transform;
+
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+
+/**
+ * A physics scene that is built the same way every time so runs can be compared
+ */
+public abstract class Scene {
+
+	private final ArrayList<RigidBody> bodies = new ArrayList<>();
+
+	/**
+	 * Get the name used to select the scene
+	 *
+	 * @return The name
+	 */
+	public abstract String getName();
+
+	/**
+	 * Add the bodies of the scene to a world
+	 *
+	 * @param world The world
+	 */
+	public abstract void create(DiscreteDynamicsWorld world);
+
+	/**
+	 * Called before every step, used by scenes that are driven
+	 *
+	 * @param step The index of the step
+	 */
+	public void update(int step) {
+	}
+
+	/**
+	 * Get wether the scene has the same amount of contacts after the warmup, the manifold pools of these scenes may not
+	 * grow after the warmup
+	 *
+	 * @return Wether the scene is in a steady state
+	 */
+	public boolean isSteadyState() {
+		return false;
+	}
+
+	/**
+	 * Add a rigid body to the world
+	 *
+	 * @param world The world
+	 * @param mass  The mass, 0 for a static body
+	 * @param shape The shape
+	 * @param x     The x position
+	 * @param y     The y position
+	 * @param z     The z position
+	 * @return The body
+	 */
+	protected RigidBody addBody(DiscreteDynamicsWorld world, float mass, CollisionShape shape, float x, float y, float z) {
+		Transform transform = new Transform();
+		transform.setIdentity();
+		transform.origin.set(x, y, z);
+		Vector3f inertia = new Vector3f();
+		if (mass != 0)
+			shape.calculateLocalInertia(mass, inertia);
+		RigidBody body = new RigidBody(new RigidBodyConstructionInfo(mass, new DefaultMotionState(transform), shape, inertia));
+		world.addRigidBody(body);
+		bodies.add(body);
+		return body;
+	}
+
+	/**
+	 * Add a static ground plane at y = 0
+	 *
+	 * @param world The world
+	 */
+	protected void addGround(DiscreteDynamicsWorld world) {
+		addBody(world, 0, new StaticPlaneShape(new Vector3f(0, 1, 0), 0), 0, 0, 0);
+	}
+
+	/**
+	 * Hash the transforms of every body, the same scene and step count should always give the same checksum
+	 *
+	 * @return The checksum
+	 */
+	public long checksum() {
+		long hash = 17;
+		Transform transform = new Transform();
+		for (RigidBody body : bodies) {
+			body.getWorldTransform(transform);
+			hash = hash * 31 + Float.floatToIntBits(transform.origin.x);
+			hash = hash * 31 + Float.floatToIntBits(transform.origin.y);
+			hash = hash * 31 + Float.floatToIntBits(transform.origin.z);
+		}
+		return hash;
+	}
+}
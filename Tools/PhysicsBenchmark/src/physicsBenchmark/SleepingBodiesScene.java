@@ -0,0 +1,33 @@
+package physicsBenchmark;
+
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Lots of bodies resting on the ground that are asleep from the start, measures the cost of bodies that don't move
+ */
+public class SleepingBodiesScene extends Scene {
+
+	private static final int GRID = 100;
+
+	@Override
+	public String getName() {
+		return "sleeping";
+	}
+
+	@Override
+	public void create(DiscreteDynamicsWorld world) {
+		addGround(world);
+		BoxShape box = new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f));
+		for (int x = 0; x < GRID; x++) {
+			for (int z = 0; z < GRID; z++) {
+				RigidBody body = addBody(world, 1, box, x * 1.5f, 0.5f, z * 1.5f);
+				body.setActivationState(CollisionObject.ISLAND_SLEEPING);
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package physicsBenchmark;
+
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.shapes.SphereShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.linearmath.Transform;
+
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+
+/**
+ * Pairs of spheres that are moved into and out of each other every step, the broadphase adds and removes every pair
+ * each time so manifolds are created and released all the time
+ */
+public class ToggleScene extends Scene {
+
+	private static final int PAIRS = 20;
+	private static final float SPACING = 5;
+
+	private final ArrayList<RigidBody> spheres = new ArrayList<>();
+	private final Transform transform = new Transform();
+	private final Vector3f zero = new Vector3f();
+
+	@Override
+	public String getName() {
+		return "toggle";
+	}
+
+	@Override
+	public void create(DiscreteDynamicsWorld world) {
+		SphereShape sphere = new SphereShape(0.5f);
+		for (int i = 0; i < PAIRS * 2; i++) {
+			RigidBody body = addBody(world, 1, sphere, 0, 0, 0);
+			body.setGravity(zero);
+			body.setActivationState(CollisionObject.DISABLE_DEACTIVATION);
+			spheres.add(body);
+		}
+	}
+
+	@Override
+	public boolean isSteadyState() {
+		return true;
+	}
+
+	@Override
+	public void update(int step) {
+		// overlapping on even steps, far apart on odd steps
+		float gap = step % 2 == 0 ? 0.8f : 3;
+		transform.setIdentity();
+		for (int i = 0; i < PAIRS; i++) {
+			for (int j = 0; j < 2; j++) {
+				RigidBody body = spheres.get(i * 2 + j);
+				transform.origin.set(i * SPACING, 0, j * gap);
+				body.setCenterOfMassTransform(transform);
+				body.setLinearVelocity(zero);
+				body.setAngularVelocity(zero);
+			}
+		}
+	}
+}
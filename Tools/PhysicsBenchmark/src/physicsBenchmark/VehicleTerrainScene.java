@@ -0,0 +1,99 @@
+package physicsBenchmark;
+
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.collision.shapes.BvhTriangleMeshShape;
+import com.bulletphysics.collision.shapes.TriangleIndexVertexArray;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.dynamics.vehicle.DefaultVehicleRaycaster;
+import com.bulletphysics.dynamics.vehicle.RaycastVehicle;
+import com.bulletphysics.dynamics.vehicle.VehicleTuning;
+
+import javax.vecmath.Vector3f;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * Raycast vehicles driving in circles on a hilly triangle mesh terrain
+ */
+public class VehicleTerrainScene extends Scene {
+
+	private static final int TERRAIN_SIZE = 128;
+	private static final float TERRAIN_SCALE = 2;
+	private static final int VEHICLES = 16;
+
+	private final ArrayList<RaycastVehicle> vehicles = new ArrayList<>();
+
+	@Override
+	public String getName() {
+		return "vehicles";
+	}
+
+	@Override
+	public void create(DiscreteDynamicsWorld world) {
+		int vertexCount = (TERRAIN_SIZE + 1) * (TERRAIN_SIZE + 1);
+		int triangleCount = TERRAIN_SIZE * TERRAIN_SIZE * 2;
+		ByteBuffer vertices = ByteBuffer.allocateDirect(vertexCount * 3 * 4).order(ByteOrder.nativeOrder());
+		ByteBuffer indices = ByteBuffer.allocateDirect(triangleCount * 3 * 4).order(ByteOrder.nativeOrder());
+		float offset = TERRAIN_SIZE * TERRAIN_SCALE / 2;
+		for (int z = 0; z <= TERRAIN_SIZE; z++) {
+			for (int x = 0; x <= TERRAIN_SIZE; x++) {
+				float worldX = x * TERRAIN_SCALE - offset;
+				float worldZ = z * TERRAIN_SCALE - offset;
+				vertices.putFloat(worldX);
+				vertices.putFloat(height(worldX, worldZ));
+				vertices.putFloat(worldZ);
+			}
+		}
+		for (int z = 0; z < TERRAIN_SIZE; z++) {
+			for (int x = 0; x < TERRAIN_SIZE; x++) {
+				int i = z * (TERRAIN_SIZE + 1) + x;
+				indices.putInt(i).putInt(i + TERRAIN_SIZE + 1).putInt(i + 1);
+				indices.putInt(i + 1).putInt(i + TERRAIN_SIZE + 1).putInt(i + TERRAIN_SIZE + 2);
+			}
+		}
+		vertices.flip();
+		indices.flip();
+		TriangleIndexVertexArray mesh = new TriangleIndexVertexArray(triangleCount, indices, 3 * 4, vertexCount, vertices, 3 * 4);
+		addBody(world, 0, new BvhTriangleMeshShape(mesh, true), 0, 0, 0);
+
+		BoxShape chassisShape = new BoxShape(new Vector3f(1, 0.5f, 2));
+		VehicleTuning tuning = new VehicleTuning();
+		DefaultVehicleRaycaster raycaster = new DefaultVehicleRaycaster(world);
+		Vector3f down = new Vector3f(0, -1, 0);
+		Vector3f axle = new Vector3f(-1, 0, 0);
+		for (int i = 0; i < VEHICLES; i++) {
+			float x = (i % 4) * 20 - 30;
+			float z = (i / 4) * 20 - 30;
+			RigidBody chassis = addBody(world, 800, chassisShape, x, height(x, z) + 3, z);
+			chassis.setActivationState(CollisionObject.DISABLE_DEACTIVATION);
+
+			RaycastVehicle vehicle = new RaycastVehicle(tuning, chassis, raycaster);
+			vehicle.setCoordinateSystem(0, 1, 2);
+			vehicle.addWheel(new Vector3f(0.9f, 0, 1.6f), down, axle, 0.6f, 0.5f, tuning, true);
+			vehicle.addWheel(new Vector3f(-0.9f, 0, 1.6f), down, axle, 0.6f, 0.5f, tuning, true);
+			vehicle.addWheel(new Vector3f(0.9f, 0, -1.6f), down, axle, 0.6f, 0.5f, tuning, false);
+			vehicle.addWheel(new Vector3f(-0.9f, 0, -1.6f), down, axle, 0.6f, 0.5f, tuning, false);
+			world.addVehicle(vehicle);
+			vehicles.add(vehicle);
+		}
+	}
+
+	@Override
+	public void update(int step) {
+		for (int i = 0; i < vehicles.size(); i++) {
+			RaycastVehicle vehicle = vehicles.get(i);
+			float steering = (float) Math.sin(step * 0.01 + i) * 0.3f;
+			vehicle.setSteeringValue(steering, 0);
+			vehicle.setSteeringValue(steering, 1);
+			vehicle.applyEngineForce(1000, 2);
+			vehicle.applyEngineForce(1000, 3);
+		}
+	}
+
+	private static float height(float x, float z) {
+		return (float) (Math.sin(x * 0.15) * Math.cos(z * 0.1) * 3 + Math.sin((x + z) * 0.05) * 2);
+	}
+}
@@ -0,0 +1,142 @@
+package profilerTrace;
+
+import nullEngine.util.profiler.FrameProfiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class Main {
+	//Usage: profilerTrace [file] [-frames=N]
+	//Records frames on a render and an update thread without a window and writes them as a Chrome trace, default
+	//profiler-trace.json. GPU scopes are only timed on the CPU as there is no OpenGL context
+
+	private static final String[] PASSES = {"geometry", "lighting", "output"};
+
+	public static void main(String[] args) {
+		File file = new File("profiler-trace.json");
+		int frames = 120;
+		try {
+			for (String arg : args) {
+				if (arg.startsWith("-frames="))
+					frames = Integer.parseInt(arg.substring(8));
+				else if (arg.startsWith("-")) {
+					System.err.println("Unknown option " + arg);
+					System.exit(1);
+				} else
+					file = new File(arg);
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid number: " + e.getMessage());
+			System.exit(1);
+		}
+		if (frames < 1) {
+			System.err.println("Frames must be at least 1");
+			System.exit(1);
+		}
+
+		FrameProfiler.setFrames(frames);
+		FrameProfiler.setEnabled(true);
+
+		int updateFrames = frames;
+		Thread update = new Thread(() -> {
+			for (int i = 0; i < updateFrames; i++) {
+				FrameProfiler.begin("update");
+				FrameProfiler.begin("physics");
+				work(200);
+				FrameProfiler.end();
+				work(100);
+				//left open, endFrame ends it
+				FrameProfiler.begin("postUpdate");
+				work(50);
+				FrameProfiler.endFrame();
+			}
+			FrameProfiler.cleanup();
+		}, "UPDATE");
+		update.start();
+
+		for (int i = 0; i < frames; i++) {
+			FrameProfiler.begin("render");
+			for (String pass : PASSES) {
+				FrameProfiler.beginGpu(pass);
+				//ignored on the GPU, GPU scopes don't nest
+				FrameProfiler.beginGpu(pass + " inner");
+				work(100);
+				FrameProfiler.end();
+				FrameProfiler.end();
+			}
+			FrameProfiler.end();
+			FrameProfiler.endFrame();
+		}
+		FrameProfiler.cleanup();
+
+		try {
+			update.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		//a thread that never recorded anything must not show up in the trace
+		Thread idle = new Thread(FrameProfiler::cleanup, "IDLE");
+		idle.start();
+		try {
+			idle.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (!FrameProfiler.writeChromeTrace(file))
+			System.exit(1);
+
+		String trace;
+		try {
+			trace = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			System.err.println("Failed to read " + file + ": " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		int threads = count(trace, "\"ph\":\"M\"") / 2;
+		int frameEvents = count(trace, "\"cat\":\"frame\"");
+		int cpuEvents = count(trace, "\"cat\":\"cpu\"");
+		int gpuEvents = count(trace, "\"cat\":\"gpu\"");
+		System.out.println(String.format("%s: %d threads, %d frames, %d cpu scopes, %d gpu scopes", file, threads, frameEvents, cpuEvents, gpuEvents));
+
+		int expectedCpu = frames * (1 + PASSES.length * 2) + frames * 3;
+		if (threads != 2 || frameEvents != frames * 2 || cpuEvents != expectedCpu || trace.contains("IDLE")) {
+			System.err.println("Unexpected trace, expected 2 threads, " + frames * 2 + " frames and " + expectedCpu + " cpu scopes");
+			System.exit(1);
+		}
+		if (!trace.equals(writeTrace())) {
+			System.err.println("Trace written to a file differs from the trace written to a writer");
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+
+	private static String writeTrace() {
+		Writer writer = new StringWriter();
+		try {
+			FrameProfiler.writeChromeTrace(writer);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return writer.toString();
+	}
+
+	private static int count(String string, String part) {
+		int count = 0;
+		for (int i = string.indexOf(part); i >= 0; i = string.indexOf(part, i + part.length()))
+			count++;
+		return count;
+	}
+
+	private static void work(long micros) {
+		long end = System.nanoTime() + micros * 1000;
+		while (System.nanoTime() < end)
+			Thread.yield();
+	}
+}
@@ -0,0 +1,359 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A Wavefront OBJ parser that reads the bytes directly and merges vertices with the same position, texture coordinate
+ * and normal through a hash table so parsing is linear in the size of the file, faces with more than 3 vertices are
+ * triangulated as fans
+ */
+public class OBJParser {
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * The positions of the merged vertices as 3 floats per vertex
+	 */
+	public float[] positions;
+	/**
+	 * The texture coordinates of the merged vertices as 2 floats per vertex, 0 where a vertex has none
+	 */
+	public float[] texCoords;
+	/**
+	 * The normals of the merged vertices as 3 floats per vertex, 0 where a vertex has none
+	 */
+	public float[] normals;
+	/**
+	 * The triangle indices into the merged vertices
+	 */
+	public int[] indices;
+
+	private final ByteBuffer buf;
+	private final boolean cw;
+	private int pos;
+	private final int end;
+	private int line = 1;
+
+	private float[] rawPositions = new float[INITIAL_CAPACITY * 3];
+	private float[] rawTexCoords = new float[INITIAL_CAPACITY * 2];
+	private float[] rawNormals = new float[INITIAL_CAPACITY * 3];
+	private int rawPositionCount;
+	private int rawTexCoordCount;
+	private int rawNormalCount;
+
+	private int vertexCount;
+	private int indexCount;
+	private int[] face = new int[8];
+
+	private int[] tableKeys;
+	private int[] tableValues;
+	private int tableMask;
+
+	private OBJParser(ByteBuffer buf, boolean cw) {
+		this.buf = buf;
+		this.cw = cw;
+		pos = buf.position();
+		end = buf.limit();
+		int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(buf.remaining() / 32, 1)) * 2);
+		positions = new float[capacity * 3];
+		texCoords = new float[capacity * 2];
+		normals = new float[capacity * 3];
+		indices = new int[capacity * 3];
+		createTable(capacity * 2);
+	}
+
+	/**
+	 * Parse an OBJ file, the bytes between the position and the limit of the buffer are read
+	 *
+	 * @param buf The contents of the file
+	 * @param cw  Wether the faces in the file are wound clockwise and need to be flipped
+	 * @return The parsed model
+	 * @throws IOException If the file is malformed
+	 */
+	public static OBJParser parse(ByteBuffer buf, boolean cw) throws IOException {
+		OBJParser parser = new OBJParser(buf, cw);
+		parser.parse();
+		parser.positions = Arrays.copyOf(parser.positions, parser.vertexCount * 3);
+		parser.texCoords = Arrays.copyOf(parser.texCoords, parser.vertexCount * 2);
+		parser.normals = Arrays.copyOf(parser.normals, parser.vertexCount * 3);
+		parser.indices = Arrays.copyOf(parser.indices, parser.indexCount);
+		parser.rawPositions = null;
+		parser.rawTexCoords = null;
+		parser.rawNormals = null;
+		parser.tableKeys = null;
+		parser.tableValues = null;
+		return parser;
+	}
+
+	/**
+	 * Parse an OBJ file
+	 *
+	 * @param data The contents of the file
+	 * @param cw   Wether the faces in the file are wound clockwise and need to be flipped
+	 * @return The parsed model
+	 * @throws IOException If the file is malformed
+	 */
+	public static OBJParser parse(byte[] data, boolean cw) throws IOException {
+		return parse(ByteBuffer.wrap(data), cw);
+	}
+
+	private void parse() throws IOException {
+		while (pos < end) {
+			skipSpaces();
+			if (pos >= end)
+				break;
+			byte c0 = buf.get(pos);
+			byte c1 = pos + 1 < end ? buf.get(pos + 1) : (byte) '\n';
+			if (c0 == 'v' && isSpace(c1)) {
+				pos++;
+				if (rawPositionCount + 3 > rawPositions.length)
+					rawPositions = Arrays.copyOf(rawPositions, rawPositions.length * 2);
+				rawPositions[rawPositionCount++] = readFloat();
+				rawPositions[rawPositionCount++] = readFloat();
+				rawPositions[rawPositionCount++] = readFloat();
+			} else if (c0 == 'v' && c1 == 't') {
+				pos += 2;
+				if (rawTexCoordCount + 2 > rawTexCoords.length)
+					rawTexCoords = Arrays.copyOf(rawTexCoords, rawTexCoords.length * 2);
+				rawTexCoords[rawTexCoordCount++] = readFloat();
+				rawTexCoords[rawTexCoordCount++] = readFloat();
+			} else if (c0 == 'v' && c1 == 'n') {
+				pos += 2;
+				if (rawNormalCount + 3 > rawNormals.length)
+					rawNormals = Arrays.copyOf(rawNormals, rawNormals.length * 2);
+				rawNormals[rawNormalCount++] = readFloat();
+				rawNormals[rawNormalCount++] = readFloat();
+				rawNormals[rawNormalCount++] = readFloat();
+			} else if (c0 == 'f' && isSpace(c1)) {
+				pos++;
+				readFace();
+			}
+			skipLine();
+		}
+	}
+
+	private void readFace() throws IOException {
+		int count = 0;
+		while (true) {
+			skipSpaces();
+			if (pos >= end || isLineEnd(buf.get(pos)))
+				break;
+
+			int position = resolve(readInt(), rawPositionCount / 3, "position");
+			int texCoord = -1;
+			int normal = -1;
+			if (pos < end && buf.get(pos) == '/') {
+				pos++;
+				if (pos < end && buf.get(pos) != '/')
+					texCoord = resolve(readInt(), rawTexCoordCount / 2, "texture coordinate");
+				if (pos < end && buf.get(pos) == '/') {
+					pos++;
+					normal = resolve(readInt(), rawNormalCount / 3, "normal");
+				}
+			}
+
+			if (count == face.length)
+				face = Arrays.copyOf(face, face.length * 2);
+			face[count++] = getVertex(position, texCoord, normal);
+		}
+
+		if (count < 3)
+			throw new IOException("Line " + line + ": face has less than 3 vertices");
+
+		int required = indexCount + (count - 2) * 3;
+		if (required > indices.length)
+			indices = Arrays.copyOf(indices, Math.max(indices.length * 2, required));
+		for (int i = 1; i < count - 1; i++) {
+			if (cw) {
+				indices[indexCount++] = face[i + 1];
+				indices[indexCount++] = face[i];
+				indices[indexCount++] = face[0];
+			} else {
+				indices[indexCount++] = face[0];
+				indices[indexCount++] = face[i];
+				indices[indexCount++] = face[i + 1];
+			}
+		}
+	}
+
+	private int resolve(int index, int count, String type) throws IOException {
+		int resolved = index < 0 ? count + index : index - 1;
+		if (index == 0 || resolved < 0 || resolved >= count)
+			throw new IOException("Line " + line + ": " + type + " index " + index + " is out of range");
+		return resolved;
+	}
+
+	private int getVertex(int position, int texCoord, int normal) {
+		int slot = hash(position, texCoord, normal) & tableMask;
+		while (true) {
+			int value = tableValues[slot];
+			if (value == -1)
+				break;
+			int key = slot * 3;
+			if (tableKeys[key] == position && tableKeys[key + 1] == texCoord && tableKeys[key + 2] == normal)
+				return value;
+			slot = (slot + 1) & tableMask;
+		}
+
+		int vertex = vertexCount++;
+		tableKeys[slot * 3] = position;
+		tableKeys[slot * 3 + 1] = texCoord;
+		tableKeys[slot * 3 + 2] = normal;
+		tableValues[slot] = vertex;
+
+		if (vertexCount * 3 > positions.length) {
+			positions = Arrays.copyOf(positions, positions.length * 2);
+			texCoords = Arrays.copyOf(texCoords, texCoords.length * 2);
+			normals = Arrays.copyOf(normals, normals.length * 2);
+		}
+		System.arraycopy(rawPositions, position * 3, positions, vertex * 3, 3);
+		if (texCoord != -1)
+			System.arraycopy(rawTexCoords, texCoord * 2, texCoords, vertex * 2, 2);
+		if (normal != -1)
+			System.arraycopy(rawNormals, normal * 3, normals, vertex * 3, 3);
+
+		if (vertexCount * 2 > tableValues.length)
+			rehash();
+		return vertex;
+	}
+
+	private void createTable(int capacity) {
+		tableKeys = new int[capacity * 3];
+		tableValues = new int[capacity];
+		Arrays.fill(tableValues, -1);
+		tableMask = capacity - 1;
+	}
+
+	private void rehash() {
+		int[] oldKeys = tableKeys;
+		int[] oldValues = tableValues;
+		createTable(oldValues.length * 2);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] == -1)
+				continue;
+			int position = oldKeys[i * 3];
+			int texCoord = oldKeys[i * 3 + 1];
+			int normal = oldKeys[i * 3 + 2];
+			int slot = hash(position, texCoord, normal) & tableMask;
+			while (tableValues[slot] != -1)
+				slot = (slot + 1) & tableMask;
+			tableKeys[slot * 3] = position;
+			tableKeys[slot * 3 + 1] = texCoord;
+			tableKeys[slot * 3 + 2] = normal;
+			tableValues[slot] = oldValues[i];
+		}
+	}
+
+	private static int hash(int position, int texCoord, int normal) {
+		int h = position * 0x9E3779B1;
+		h = (h ^ texCoord) * 0x85EBCA6B;
+		h = (h ^ normal) * 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+
+	private int readInt() throws IOException {
+		skipSpaces();
+		boolean negative = false;
+		if (pos < end && (buf.get(pos) == '-' || buf.get(pos) == '+'))
+			negative = buf.get(pos++) == '-';
+		int start = pos;
+		int n = 0;
+		while (pos < end) {
+			int digit = buf.get(pos) - '0';
+			if (digit < 0 || digit > 9)
+				break;
+			n = n * 10 + digit;
+			pos++;
+		}
+		if (pos == start)
+			throw new IOException("Line " + line + ": expected an integer");
+		return negative ? -n : n;
+	}
+
+	private float readFloat() throws IOException {
+		skipSpaces();
+		int start = pos;
+		boolean negative = false;
+		if (pos < end && (buf.get(pos) == '-' || buf.get(pos) == '+'))
+			negative = buf.get(pos++) == '-';
+
+		long mantissa = 0;
+		int exponent = 0;
+		int digits = 0;
+		boolean seenDigit = false;
+		boolean fraction = false;
+		while (pos < end) {
+			byte c = buf.get(pos);
+			if (c >= '0' && c <= '9') {
+				seenDigit = true;
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (c - '0');
+					if (mantissa != 0)
+						digits++;
+					if (fraction)
+						exponent--;
+				} else if (!fraction) {
+					exponent++;
+				}
+			} else if (c == '.' && !fraction) {
+				fraction = true;
+			} else {
+				break;
+			}
+			pos++;
+		}
+
+		if (seenDigit && pos < end && (buf.get(pos) == 'e' || buf.get(pos) == 'E')) {
+			pos++;
+			exponent += readInt();
+		}
+
+		if (!seenDigit || (pos < end && !isSpace(buf.get(pos)) && !isLineEnd(buf.get(pos)))) {
+			// not a plain decimal, let the JDK handle things like nan and inf
+			while (pos < end && !isSpace(buf.get(pos)) && !isLineEnd(buf.get(pos)))
+				pos++;
+			byte[] bytes = new byte[pos - start];
+			for (int i = 0; i < bytes.length; i++)
+				bytes[i] = buf.get(start + i);
+			try {
+				return Float.parseFloat(new String(bytes, "US-ASCII"));
+			} catch (NumberFormatException e) {
+				throw new IOException("Line " + line + ": expected a number", e);
+			}
+		}
+
+		double value = mantissa;
+		if (exponent < 0)
+			value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent] : value / Math.pow(10, -exponent);
+		else if (exponent > 0)
+			value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent] : value * Math.pow(10, exponent);
+		return (float) (negative ? -value : value);
+	}
+
+	private void skipSpaces() {
+		while (pos < end && isSpace(buf.get(pos)))
+			pos++;
+	}
+
+	private void skipLine() {
+		while (pos < end && buf.get(pos) != '\n')
+			pos++;
+		if (pos < end) {
+			pos++;
+			line++;
+		}
+	}
+
+	private static boolean isSpace(byte c) {
+		return c == ' ' || c == '\t' || c == '\r';
+	}
+
+	private static boolean isLineEnd(byte c) {
+		return c == '\n' || c == '#';
+	}
+}
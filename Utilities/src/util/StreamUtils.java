@@ -3,6 +3,7 @@ package util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 /**
  * Utilites for reading and writing InputStreams
@@ -38,6 +39,25 @@ public class StreamUtils {
 		out.write(n & 0xFF);
 	}
 
+	/**
+	 * Read everything that is left in an InputStream
+	 * @param in the stream to read from
+	 * @return the bytes that were read
+	 * @throws IOException
+	 * @see java.io.InputStream
+	 */
+	public static byte[] readAll(InputStream in) throws IOException {
+		byte[] buf = new byte[Math.max(in.available(), 8192)];
+		int len = 0;
+		int read;
+		while ((read = in.read(buf, len, buf.length - len)) > 0) {
+			len += read;
+			if (len == buf.length)
+				buf = Arrays.copyOf(buf, buf.length * 2);
+		}
+		return len == buf.length ? buf : Arrays.copyOf(buf, len);
+	}
+
 	/**
 	 * Read a String from an InputStream
 	 * @param in the stream to read from